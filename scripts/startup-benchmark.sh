@@ -0,0 +1,78 @@
+#!/usr/bin/env bash
+# Startup benchmark: time to first successful request and resident memory for each startup mode.
+#
+#   scripts/startup-benchmark.sh            # jvm, aot+lazy, aot+cds+lazy (and native if built)
+#   RUNS=10 BENCH_PATH=/actuator/health scripts/startup-benchmark.sh
+#
+# Builds the default fat jar and the fast-start variant, then starts each mode RUNS times on PORT, polls BENCH_PATH until it answers 2xx and records the elapsed time and VmRSS at that moment.
+# Reports the median of each. Linux only (reads /proc). The native mode runs only if
+# target/Balancee-Backend-Task exists (mvn -Pnative native:compile -DskipTests first).
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS=${RUNS:-5}
+PORT=${PORT:-18080}
+BENCH_PATH=${BENCH_PATH:-/actuator/health}
+JAVA=${JAVA:-java}
+OUT=target/startup-benchmark
+ARTIFACT=Balancee-Backend-Task-1.0-SNAPSHOT
+
+mkdir -p "$OUT"
+echo "Building default jar..."
+mvn -q -B -DskipTests package
+cp "target/$ARTIFACT.jar" "$OUT/app.jar"
+if [ -x "target/$ARTIFACT" ]; then
+  cp "target/$ARTIFACT" "$OUT/native-app"
+fi
+
+echo "Building fast-start jar and CDS archive..."
+mvn -q -B -Pfast-start -DskipTests package
+# Left in place: the CDS archive is only used when the class path matches the training run's
+FAST_START_JAR="$PWD/target/$ARTIFACT.jar"
+
+measure() {
+  local mode=$1; shift
+  local workdir; workdir=$(mktemp -d)
+  local start end rss pid
+  start=$(date +%s%N)
+  (cd "$workdir" && exec "$@" --server.port="$PORT" >"$workdir/app.log" 2>&1) &
+  pid=$!
+  until curl -sf -o /dev/null "http://localhost:$PORT$BENCH_PATH"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "$mode: process exited before serving, see $workdir/app.log" >&2
+      return 1
+    fi
+    sleep 0.02
+  done
+  end=$(date +%s%N)
+  # The subshell execs the app, so the pid is the JVM (or native binary) itself
+  rss=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+  kill "$pid" && wait "$pid" 2>/dev/null || true
+  rm -rf "$workdir"
+  echo "$(( (end - start) / 1000000 )) $(( rss / 1024 ))"
+}
+
+median() {
+  sort -n | awk '{a[NR]=$1} END {print (NR % 2) ? a[(NR + 1) / 2] : int((a[NR / 2] + a[NR / 2 + 1]) / 2)}'
+}
+
+run_mode() {
+  local mode=$1; shift
+  local times=() rsses=() result
+  for _ in $(seq "$RUNS"); do
+    result=$(measure "$mode" "$@")
+    times+=("${result% *}")
+    rsses+=("${result#* }")
+  done
+  printf "%-16s %10s %10s\n" "$mode" "$(printf '%s\n' "${times[@]}" | median)" "$(printf '%s\n' "${rsses[@]}" | median)"
+}
+
+APP="$PWD/$OUT"
+printf "%-16s %10s %10s\n" "mode" "first-ms" "rss-mb"
+run_mode jvm "$JAVA" -jar "$APP/app.jar"
+run_mode aot+lazy "$JAVA" -Dspring.aot.enabled=true -Dspring.profiles.active=fast-start -jar "$FAST_START_JAR"
+run_mode aot+cds+lazy "$JAVA" -XX:SharedArchiveFile="$PWD/target/application.jsa" -Dspring.aot.enabled=true \
+  -Dspring.profiles.active=fast-start -jar "$FAST_START_JAR"
+if [ -x "$OUT/native-app" ]; then
+  run_mode native "$APP/native-app" --spring.profiles.active=fast-start
+fi
@@ -0,0 +1,20 @@
+package com.balancee.backendtask.audit;
+
+import com.balancee.backendtask.model.Priority;
+import com.balancee.backendtask.model.Status;
+
+// Audited feedback fields. Stored as the ordinal of this enum, values as the ordinal of the field's enum.
+public enum AuditField {
+    STATUS(Status.values()),
+    PRIORITY(Priority.values());
+
+    private final Enum<?>[] values;
+
+    AuditField(Enum<?>[] values) {
+        this.values = values;
+    }
+
+    String nameOf(int ordinal) {
+        return ordinal >= 0 && ordinal < values.length ? values[ordinal].name() : null;
+    }
+}
@@ -0,0 +1,260 @@
+package com.balancee.backendtask.audit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Append-only audit trail of feedback status and priority changes, kept outside the database so
+ * an update stays a single row write. Records go into memory-mapped segment files that roll over
+ * when full. A single flusher thread forces everything appended since its last pass in one go
+ * (group commit); with sync on, an update waits for the flush that covers its record.
+ */
+@Component
+public class AuditLog {
+    private static final Logger logger = LoggerFactory.getLogger(AuditLog.class);
+    private static final Pattern SEGMENT_NAME = Pattern.compile("audit-(\\d{8})\\.log");
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentRecords;
+    private final long commitWindowNanos;
+    private final boolean sync;
+    private final Duration syncTimeout = Duration.ofSeconds(5);
+    private final List<AuditSegment> segments = new CopyOnWriteArrayList<>();
+    private final Counter appends;
+    private final Counter failures;
+    private final Timer flushTimer;
+    private final DistributionSummary batchSize;
+
+    private final Object lock = new Object();
+    // Guarded by lock
+    private AuditSegment active;
+    private final Set<AuditSegment> unflushed = new LinkedHashSet<>();
+    private CompletableFuture<Void> batch = new CompletableFuture<>();
+    private long appended;
+    private long flushed;
+    private boolean running;
+    private Thread flusher;
+
+    public AuditLog(MeterRegistry meterRegistry,
+                    @Value("${feedback.audit.enabled:true}") boolean enabled,
+                    @Value("${feedback.audit.dir:audit}") String directory,
+                    @Value("${feedback.audit.segment-size:64MB}") DataSize segmentSize,
+                    @Value("${feedback.audit.commit-window:2ms}") Duration commitWindow,
+                    @Value("${feedback.audit.sync:true}") boolean sync) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.segmentRecords = (int) Math.max(1, segmentSize.toBytes() / AuditSegment.RECORD_SIZE);
+        this.commitWindowNanos = commitWindow.toNanos();
+        this.sync = sync;
+        this.appends = Counter.builder("feedback.audit.appends").register(meterRegistry);
+        this.failures = Counter.builder("feedback.audit.failures").register(meterRegistry);
+        this.flushTimer = Timer.builder("feedback.audit.flush").register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("feedback.audit.batch.size").register(meterRegistry);
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        List<Path> existing;
+        try (Stream<Path> files = Files.list(directory)) {
+            existing = files.filter(path -> SEGMENT_NAME.matcher(path.getFileName().toString()).matches())
+                    .sorted()
+                    .toList();
+        }
+        for (Path path : existing) {
+            Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+            matcher.matches();
+            segments.add(AuditSegment.open(path, Integer.parseInt(matcher.group(1)), segmentRecords));
+        }
+        if (segments.isEmpty()) {
+            segments.add(openSegment(1));
+        }
+        active = segments.get(segments.size() - 1);
+        logger.info("Audit log opened in {}: {} segment(s), {} record(s) in the active one",
+                directory, segments.size(), active.count());
+
+        running = true;
+        flusher = new Thread(this::flushLoop, "audit-log-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    void close() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+        // The flusher drains what is left before it exits
+        flusher.join(syncTimeout.toMillis());
+    }
+
+    public record Change(UUID feedbackId, AuditField field, Enum<?> oldValue, Enum<?> newValue) {
+        public Change {
+            // A compliance trail has no use for "changed from something"
+            Objects.requireNonNull(oldValue, "oldValue");
+            Objects.requireNonNull(newValue, "newValue");
+        }
+    }
+
+    public void append(UUID feedbackId, String actor, AuditField field, Enum<?> oldValue, Enum<?> newValue) {
+        append(actor, List.of(new Change(feedbackId, field, oldValue, newValue)));
+    }
+
+    /**
+     * Appends changes made by one actor and, with sync on, waits once for the flush covering all
+     * of them. Failures are logged and
+     * counted rather than thrown: the database change has already been committed.
+     */
+    public void append(String actor, List<Change> changes) {
+        if (!enabled || changes.isEmpty()) {
+            return;
+        }
+        byte[] actorBytes = truncate(actor == null ? "" : actor);
+        long micros = ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+        CompletableFuture<Void> commit;
+        try {
+            synchronized (lock) {
+                for (Change change : changes) {
+                    if (active.isFull()) {
+                        active = openSegment(active.sequence() + 1);
+                        segments.add(active);
+                    }
+                    active.append(change.feedbackId(), micros, change.field(),
+                            change.oldValue().ordinal(),
+                            change.newValue().ordinal(), actorBytes);
+                    unflushed.add(active);
+                    appended++;
+                }
+                commit = batch;
+                lock.notifyAll();
+            }
+            appends.increment(changes.size());
+            if (sync) {
+                commit.get(syncTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (UncheckedIOException | ExecutionException | TimeoutException e) {
+            failures.increment();
+            logger.error("Failed to write {} audit record(s), first for feedback {}", changes.size(),
+                    changes.get(0).feedbackId(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Oldest first: segments and records within them are in append order
+    public List<AuditRecord> history(UUID feedbackId) {
+        List<AuditRecord> records = new ArrayList<>();
+        for (AuditSegment segment : segments) {
+            segment.collect(feedbackId, records);
+        }
+        return records;
+    }
+
+    private void flushLoop() {
+        while (true) {
+            synchronized (lock) {
+                while (running && appended == flushed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+                if (appended == flushed) {
+                    return;
+                }
+            }
+            // Give writers arriving right behind the first one a chance to join this flush
+            if (commitWindowNanos > 0) {
+                LockSupport.parkNanos(commitWindowNanos);
+            }
+
+            CompletableFuture<Void> done;
+            List<AuditSegment> dirty;
+            synchronized (lock) {
+                done = batch;
+                batch = new CompletableFuture<>();
+                dirty = new ArrayList<>(unflushed);
+                unflushed.clear();
+                batchSize.record(appended - flushed);
+                flushed = appended;
+            }
+            long start = System.nanoTime();
+            try {
+                dirty.forEach(AuditSegment::force);
+                done.complete(null);
+            } catch (RuntimeException e) {
+                done.completeExceptionally(e);
+            }
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private AuditSegment openSegment(int sequence) {
+        Path path = directory.resolve(String.format("audit-%08d.log", sequence));
+        try {
+            return AuditSegment.open(path, sequence, segmentRecords);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open audit segment " + path, e);
+        }
+    }
+
+    // Cut to the fixed actor slot without splitting a multi-byte character
+    private static byte[] truncate(String actor) {
+        byte[] bytes = actor.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= AuditSegment.ACTOR_BYTES) {
+            return bytes;
+        }
+        int length = AuditSegment.ACTOR_BYTES;
+        while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        byte[] truncated = new byte[length];
+        System.arraycopy(bytes, 0, truncated, 0, length);
+        return truncated;
+    }
+}
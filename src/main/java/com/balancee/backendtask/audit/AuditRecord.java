@@ -0,0 +1,9 @@
+package com.balancee.backendtask.audit;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// One decoded audit log entry. oldValue is null when the previous value was not known at write time.
+public record AuditRecord(UUID feedbackId, String actor, AuditField field, String oldValue, String newValue,
+                          Instant changedAt) {
+}
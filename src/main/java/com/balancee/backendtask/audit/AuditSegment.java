@@ -0,0 +1,197 @@
+package com.balancee.backendtask.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/**
+ * One memory-mapped, preallocated file of fixed 64-byte records:
+ * <pre>
+ *  0  feedback id (16)   16  epoch micros (8)   24  field (1)   25  old ordinal (1, -1 unknown)
+ * 26  new ordinal (1)    27  actor length (1)   28  actor UTF-8 (32)   60  CRC32 of bytes 0-59 (4)
+ * </pre>
+ * The unwritten tail is zeros, which never has a valid CRC, so reopening a segment finds its end
+ * by scanning to the first invalid record. Every block of records has a small Bloom filter of the
+ * feedback ids in it, so replaying one item's history only reads the blocks that may hold it.
+ */
+final class AuditSegment {
+    static final int RECORD_SIZE = 64;
+    static final int ACTOR_BYTES = 32;
+    private static final int CRC_OFFSET = 60;
+    private static final int BLOCK_RECORDS = 4096;
+    // About 8 bits per record and 3 probes: roughly 3% of blocks read needlessly
+    private static final int FILTER_BITS = BLOCK_RECORDS * 8;
+    private static final int FILTER_PROBES = 3;
+
+    private final Path path;
+    private final int sequence;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final long[][] filters;
+    // Written under the log's lock after the record and its filter bits, so readers see both
+    private volatile int count;
+    // Only touched by the flusher thread
+    private int forcedCount;
+
+    private AuditSegment(Path path, int sequence, MappedByteBuffer buffer, int capacity) {
+        this.path = path;
+        this.sequence = sequence;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.filters = new long[(capacity + BLOCK_RECORDS - 1) / BLOCK_RECORDS][];
+    }
+
+    static AuditSegment open(Path path, int sequence, int capacity) throws IOException {
+        long existing = Files.exists(path) ? Files.size(path) : 0;
+        capacity = (int) Math.max(capacity, existing / RECORD_SIZE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * RECORD_SIZE);
+            AuditSegment segment = new AuditSegment(path, sequence, buffer, capacity);
+            segment.recover();
+            return segment;
+        }
+    }
+
+    private void recover() {
+        int recovered = 0;
+        byte[] record = new byte[RECORD_SIZE];
+        while (recovered < capacity) {
+            buffer.get(recovered * RECORD_SIZE, record);
+            ByteBuffer view = ByteBuffer.wrap(record);
+            if (view.getInt(CRC_OFFSET) != crc(record)) {
+                break;
+            }
+            index(recovered, view.getLong(0), view.getLong(8));
+            recovered++;
+        }
+        count = recovered;
+        forcedCount = recovered;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int sequence() {
+        return sequence;
+    }
+
+    int count() {
+        return count;
+    }
+
+    boolean isFull() {
+        return count == capacity;
+    }
+
+    // Caller holds the log's lock
+    void append(UUID feedbackId, long epochMicros, AuditField field, int oldOrdinal, int newOrdinal, byte[] actor) {
+        byte[] record = new byte[RECORD_SIZE];
+        ByteBuffer view = ByteBuffer.wrap(record);
+        view.putLong(feedbackId.getMostSignificantBits())
+                .putLong(feedbackId.getLeastSignificantBits())
+                .putLong(epochMicros)
+                .put((byte) field.ordinal())
+                .put((byte) oldOrdinal)
+                .put((byte) newOrdinal)
+                .put((byte) actor.length)
+                .put(actor);
+        view.putInt(CRC_OFFSET, crc(record));
+        int position = count;
+        buffer.put(position * RECORD_SIZE, record);
+        index(position, feedbackId.getMostSignificantBits(), feedbackId.getLeastSignificantBits());
+        count = position + 1;
+    }
+
+    // Flushes the records written since the last call to the storage device
+    void force() {
+        int end = count;
+        if (end > forcedCount) {
+            buffer.force(forcedCount * RECORD_SIZE, (end - forcedCount) * RECORD_SIZE);
+            forcedCount = end;
+        }
+    }
+
+    void collect(UUID feedbackId, List<AuditRecord> into) {
+        long msb = feedbackId.getMostSignificantBits();
+        long lsb = feedbackId.getLeastSignificantBits();
+        int end = count;
+        byte[] record = new byte[RECORD_SIZE];
+        for (int block = 0; block * BLOCK_RECORDS < end; block++) {
+            if (!mightContain(filters[block], msb, lsb)) {
+                continue;
+            }
+            int blockEnd = Math.min(end, (block + 1) * BLOCK_RECORDS);
+            for (int i = block * BLOCK_RECORDS; i < blockEnd; i++) {
+                if (buffer.getLong(i * RECORD_SIZE) == msb && buffer.getLong(i * RECORD_SIZE + 8) == lsb) {
+                    buffer.get(i * RECORD_SIZE, record);
+                    into.add(decode(ByteBuffer.wrap(record)));
+                }
+            }
+        }
+    }
+
+    private static AuditRecord decode(ByteBuffer view) {
+        UUID feedbackId = new UUID(view.getLong(0), view.getLong(8));
+        long micros = view.getLong(16);
+        AuditField field = AuditField.values()[view.get(24)];
+        String actor = new String(view.array(), 28, view.get(27), StandardCharsets.UTF_8);
+        return new AuditRecord(feedbackId, actor, field, field.nameOf(view.get(25)), field.nameOf(view.get(26)),
+                Instant.EPOCH.plus(micros, ChronoUnit.MICROS));
+    }
+
+    private void index(int position, long msb, long lsb) {
+        int block = position / BLOCK_RECORDS;
+        long[] filter = filters[block];
+        if (filter == null) {
+            filter = new long[FILTER_BITS / 64];
+            filters[block] = filter;
+        }
+        long h1 = mix(msb ^ lsb);
+        long h2 = mix(lsb + 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < FILTER_PROBES; i++) {
+            int bit = (int) ((h1 + i * h2) & (FILTER_BITS - 1));
+            filter[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    private static boolean mightContain(long[] filter, long msb, long lsb) {
+        if (filter == null) {
+            return false;
+        }
+        long h1 = mix(msb ^ lsb);
+        long h2 = mix(lsb + 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < FILTER_PROBES; i++) {
+            int bit = (int) ((h1 + i * h2) & (FILTER_BITS - 1));
+            if ((filter[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int crc(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, CRC_OFFSET);
+        return (int) crc.getValue();
+    }
+}
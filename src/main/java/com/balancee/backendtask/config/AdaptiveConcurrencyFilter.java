@@ -0,0 +1,223 @@
+package com.balancee.backendtask.config;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Global load shedding. Each traffic partition has its own concurrency limit that adapts to the
+ * latency it observes (a gradient limiter in the style of Netflix's concurrency-limits): while
+ * recent latency stays close to the long-term baseline the limit grows, and when requests start
+ * queueing and latency rises the limit shrinks toward what the service can actually sustain.
+ * Requests over the limit are rejected straight away with 503 and Retry-After, before security
+ * or any controller work. Runs ahead of the Spring Security filter chain. Uploads are the
+ * exception: their time is mostly the client streaming the body, which says nothing about server
+ * load, so that partition has a fixed limit instead.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class AdaptiveConcurrencyFilter implements Filter {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyFilter.class);
+
+    enum Partition { SUBMISSION, UPLOAD, AUTH, ADMIN, OTHER }
+
+    private final boolean enabled;
+    private final Map<Partition, GradientLimiter> limiters = new EnumMap<>(Partition.class);
+    private final Map<Partition, Counter> shed = new EnumMap<>(Partition.class);
+
+    public AdaptiveConcurrencyFilter(MeterRegistry meterRegistry,
+                                     @Value("${feedback.concurrency.enabled:true}") boolean enabled,
+                                     @Value("${feedback.concurrency.initial-limit:20}") int initialLimit,
+                                     @Value("${feedback.concurrency.min-limit:4}") int minLimit,
+                                     @Value("${feedback.concurrency.max-limit:200}") int maxLimit,
+                                     @Value("${feedback.concurrency.upload-limit:50}") int uploadLimit) {
+        this.enabled = enabled;
+        for (Partition partition : Partition.values()) {
+            GradientLimiter limiter = partition == Partition.UPLOAD
+                    ? GradientLimiter.fixed(uploadLimit)
+                    : new GradientLimiter(initialLimit, minLimit, maxLimit);
+            limiters.put(partition, limiter);
+            String tag = partition.name().toLowerCase();
+            Gauge.builder("http.concurrency.limit", limiter, GradientLimiter::getLimit)
+                    .tag("partition", tag).register(meterRegistry);
+            Gauge.builder("http.concurrency.inflight", limiter, GradientLimiter::getInflight)
+                    .tag("partition", tag).register(meterRegistry);
+            shed.put(partition, Counter.builder("http.concurrency.shed").tag("partition", tag).register(meterRegistry));
+        }
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest httpRequest = (HttpServletRequest) request;
+        Partition partition = enabled ? partitionOf(httpRequest) : null;
+        if (partition == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        GradientLimiter limiter = limiters.get(partition);
+        if (!limiter.tryAcquire()) {
+            shed.get(partition).increment();
+            HttpServletResponse httpResponse = (HttpServletResponse) response;
+            httpResponse.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            httpResponse.setHeader("Retry-After", "1");
+            httpResponse.setContentType("application/json");
+            httpResponse.getWriter().write("{\"error\":\"Server is busy. Try again shortly.\"}");
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limiter.release(System.nanoTime() - start);
+        }
+    }
+
+    // Null means the request is not limited: health checks, and the SSE stream whose connection stays open
+    static Partition partitionOf(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (path.startsWith("/actuator/health") || path.equals("/api/admin/feedback/stream")) {
+            return null;
+        }
+        if (path.startsWith("/api/auth/")) {
+            return Partition.AUTH;
+        }
+        if (path.startsWith("/api/admin/")) {
+            return Partition.ADMIN;
+        }
+        if (path.startsWith("/api/feedback/") && (path.endsWith("/attachments") || path.contains("/uploads"))
+                && !request.getMethod().equals("GET")) {
+            return Partition.UPLOAD;
+        }
+        if (path.equals("/api/feedback") && request.getMethod().equals("POST")) {
+            return Partition.SUBMISSION;
+        }
+        return Partition.OTHER;
+    }
+
+    /**
+     * limit = limit * clamp(tolerance * longRtt / shortRtt, 0.5, 1) + sqrt(limit), smoothed.
+     * shortRtt is the mean of the last sample window, longRtt an exponential average of those means.
+     * The sqrt(limit) headroom lets the limit probe upward while latency holds steady. A fixed
+     * limiter only counts requests in flight and ignores their latency.
+     */
+    static class GradientLimiter {
+        private static final double RTT_TOLERANCE = 1.5;
+        private static final double SMOOTHING = 0.2;
+        private static final int WINDOW_SAMPLES = 50;
+        private static final long WINDOW_NANOS = 1_000_000_000L;
+        private static final double LONG_RTT_ALPHA = 2.0 / (600 + 1);
+
+        private final AtomicInteger inflight = new AtomicInteger();
+        private final int minLimit;
+        private final int maxLimit;
+        private final boolean adaptive;
+        private volatile double limit;
+
+        // Guarded by this
+        private double longRtt;
+        private long windowStart = System.nanoTime();
+        private long windowSum;
+        private int windowCount;
+        private int windowMaxInflight;
+
+        GradientLimiter(int initialLimit, int minLimit, int maxLimit) {
+            this(initialLimit, minLimit, maxLimit, true);
+        }
+
+        private GradientLimiter(int initialLimit, int minLimit, int maxLimit, boolean adaptive) {
+            this.limit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.adaptive = adaptive;
+        }
+
+        static GradientLimiter fixed(int limit) {
+            return new GradientLimiter(limit, limit, limit, false);
+        }
+
+        boolean tryAcquire() {
+            int current;
+            do {
+                current = inflight.get();
+                if (current >= (int) limit) {
+                    return false;
+                }
+            } while (!inflight.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        void release(long rttNanos) {
+            int inflightAtRelease = inflight.getAndDecrement();
+            if (adaptive) {
+                onSample(rttNanos, inflightAtRelease);
+            }
+        }
+
+        synchronized void onSample(long rttNanos, int inflightAtRelease) {
+            windowSum += rttNanos;
+            windowCount++;
+            windowMaxInflight = Math.max(windowMaxInflight, inflightAtRelease);
+            long now = System.nanoTime();
+            if (windowCount < WINDOW_SAMPLES && now - windowStart < WINDOW_NANOS) {
+                return;
+            }
+
+            double shortRtt = (double) windowSum / windowCount;
+            boolean appLimited = windowMaxInflight < limit / 2;
+            windowStart = now;
+            windowSum = 0;
+            windowCount = 0;
+            windowMaxInflight = 0;
+
+            longRtt = longRtt == 0 ? shortRtt : longRtt + LONG_RTT_ALPHA * (shortRtt - longRtt);
+            // After a latency spike, let the baseline recover quickly instead of staying inflated
+            if (longRtt / shortRtt > 2) {
+                longRtt *= 0.95;
+            }
+            // Too little traffic to learn anything about the limit
+            if (appLimited) {
+                return;
+            }
+
+            double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRtt / shortRtt));
+            double newLimit = limit * gradient + Math.sqrt(limit);
+            newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+            newLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+            if ((int) newLimit != (int) limit) {
+                logger.debug("Concurrency limit {} -> {} (shortRtt={}ms, longRtt={}ms)", (int) limit, (int) newLimit,
+                        shortRtt / 1_000_000, longRtt / 1_000_000);
+            }
+            limit = newLimit;
+        }
+
+        double getLimit() {
+            return limit;
+        }
+
+        int getInflight() {
+            return inflight.get();
+        }
+    }
+}
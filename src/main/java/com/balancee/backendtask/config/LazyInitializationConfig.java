@@ -0,0 +1,27 @@
+package com.balancee.backendtask.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.balancee.backendtask.persistence.TextCompressionMigration;
+import com.balancee.backendtask.readmodel.FeedbackBitmapIndex;
+import com.balancee.backendtask.service.FeedbackArchiver;
+import com.balancee.backendtask.service.ResumableUploadService;
+import com.balancee.backendtask.service.TriageQueue;
+import com.balancee.backendtask.service.notification.OutboxDispatcher;
+import com.balancee.backendtask.service.processing.AttachmentProcessingPipeline;
+
+@Configuration
+public class LazyInitializationConfig {
+
+    // With spring.main.lazy-initialization=true (fast-start profile) a @Scheduled method is only
+    // registered once its bean is created, and a bean nothing depends on is never created. Beans with
+    // background jobs or startup work (the text migration, which nothing injects) stay eager
+    @Bean
+    static LazyInitializationExcludeFilter scheduledBeansExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(FeedbackArchiver.class, ResumableUploadService.class,
+                TriageQueue.class, AttachmentProcessingPipeline.class, FeedbackBitmapIndex.class, OutboxDispatcher.class,
+                TextCompressionMigration.class);
+    }
+}
@@ -0,0 +1,23 @@
+package com.balancee.backendtask.config;
+
+import java.net.URI;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.balancee.backendtask.service.notification.LoggingNotifier;
+import com.balancee.backendtask.service.notification.Notifier;
+import com.balancee.backendtask.service.notification.WebhookNotifier;
+
+@Configuration
+public class NotificationConfig {
+
+    // Without a webhook URL notifications are only logged; other channels plug in as Notifier beans
+    @Bean
+    public Notifier notifier(@Value("${feedback.notifications.webhook-url:}") String webhookUrl,
+                             @Value("${feedback.notifications.timeout:5s}") Duration timeout) {
+        return webhookUrl.isBlank() ? new LoggingNotifier() : new WebhookNotifier(URI.create(webhookUrl), timeout);
+    }
+}
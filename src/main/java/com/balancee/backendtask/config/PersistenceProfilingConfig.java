@@ -0,0 +1,30 @@
+package com.balancee.backendtask.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.balancee.backendtask.persistence.ProfilingDataSource;
+import com.balancee.backendtask.persistence.QueryProfiler;
+
+@Configuration
+public class PersistenceProfilingConfig {
+
+    // Static so registering the post-processor does not create this configuration or its dependencies early
+    @Bean
+    static BeanPostProcessor profilingDataSourcePostProcessor(ObjectProvider<QueryProfiler> profiler,
+                                                              @Value("${feedback.db.profiling.enabled:true}") boolean enabled) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return enabled && bean instanceof DataSource dataSource
+                        ? ProfilingDataSource.wrap(dataSource, profiler::getObject)
+                        : bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,56 @@
+package com.balancee.backendtask.config;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import com.balancee.backendtask.service.storage.AttachmentStorage;
+import com.balancee.backendtask.service.storage.CachingAttachmentStorage;
+import com.balancee.backendtask.service.storage.LocalAttachmentStorage;
+import com.balancee.backendtask.service.storage.S3AttachmentStorage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+public class StorageConfig {
+
+    // Local disk suits a single node; with several nodes behind a load balancer use s3 so all of them see every upload
+    @Bean
+    public AttachmentStorage attachmentStorage(MeterRegistry meterRegistry,
+                                               @Value("${feedback.storage.type:local}") String type,
+                                               @Value("${feedback.uploads.dir:uploads/}") String uploadDir,
+                                               @Value("${feedback.storage.s3.endpoint:https://s3.amazonaws.com}") String endpoint,
+                                               @Value("${feedback.storage.s3.bucket:}") String bucket,
+                                               @Value("${feedback.storage.s3.region:us-east-1}") String region,
+                                               @Value("${feedback.storage.s3.access-key:}") String accessKey,
+                                               @Value("${feedback.storage.s3.secret-key:}") String secretKey,
+                                               @Value("${feedback.storage.s3.path-style:false}") boolean pathStyle,
+                                               @Value("${feedback.storage.s3.prefix:attachments/}") String prefix,
+                                               @Value("${feedback.storage.s3.part-size:8MB}") DataSize partSize,
+                                               @Value("${feedback.storage.s3.upload-concurrency:8}") int uploadConcurrency,
+                                               @Value("${feedback.storage.s3.timeout:30s}") Duration timeout,
+                                               @Value("${feedback.storage.cache.dir:storage-cache}") String cacheDir,
+                                               @Value("${feedback.storage.cache.max-size:1GB}") DataSize cacheSize) throws IOException {
+        if (type.equals("local")) {
+            return new LocalAttachmentStorage(Paths.get(uploadDir));
+        }
+        if (!type.equals("s3")) {
+            throw new IllegalStateException("Unknown feedback.storage.type: " + type);
+        }
+        if (bucket.isBlank()) {
+            throw new IllegalStateException("feedback.storage.s3.bucket is required for S3 storage");
+        }
+        AttachmentStorage s3 = new S3AttachmentStorage(new S3AttachmentStorage.Settings(URI.create(endpoint), bucket,
+                region, accessKey, secretKey, pathStyle, prefix, partSize.toBytes(), uploadConcurrency, timeout));
+        // The cache keeps processing and repeated downloads from going back to the bucket
+        return cacheSize.toBytes() > 0
+                ? new CachingAttachmentStorage(s3, Paths.get(cacheDir), cacheSize.toBytes(), meterRegistry)
+                : s3;
+    }
+}
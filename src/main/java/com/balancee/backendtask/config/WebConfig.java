@@ -0,0 +1,39 @@
+package com.balancee.backendtask.config;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.balancee.backendtask.persistence.QueryProfilingInterceptor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    private final ObjectMapper objectMapper;
+    private final QueryProfilingInterceptor queryProfilingInterceptor;
+
+    public WebConfig(ObjectMapper objectMapper, QueryProfilingInterceptor queryProfilingInterceptor) {
+        this.objectMapper = objectMapper;
+        this.queryProfilingInterceptor = queryProfilingInterceptor;
+    }
+
+    // Binary encodings chosen via Accept (application/x-jackson-smile, application/cbor). They reuse the
+    // application ObjectMapper's modules and settings; JSON stays the default for */*.
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new MappingJackson2SmileHttpMessageConverter(objectMapper.copyWith(new SmileFactory())));
+        converters.add(new MappingJackson2CborHttpMessageConverter(objectMapper.copyWith(new CBORFactory())));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(queryProfilingInterceptor);
+    }
+}
@@ -0,0 +1,124 @@
+package com.balancee.backendtask.controller;
+
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.balancee.backendtask.model.Attachment;
+import com.balancee.backendtask.model.Feedback;
+import com.balancee.backendtask.model.UploadSession;
+import com.balancee.backendtask.repository.FeedbackRepository;
+import com.balancee.backendtask.repository.UploadSessionRepository;
+import com.balancee.backendtask.service.ResumableUploadService;
+import com.balancee.backendtask.service.ResumableUploadService.UploadException;
+
+import lombok.Data;
+
+// Resumable alternative to the multipart upload: create a session, PUT the bytes in one or more
+// chunks at Upload-Offset, then complete it to get the Attachment
+@RestController
+@RequestMapping("/api/feedback/{id}/uploads")
+public class AttachmentUploadController {
+    private static final Logger logger = LoggerFactory.getLogger(AttachmentUploadController.class);
+    private final FeedbackRepository feedbackRepository;
+    private final UploadSessionRepository sessionRepository;
+    private final ResumableUploadService uploadService;
+
+    public AttachmentUploadController(FeedbackRepository feedbackRepository, UploadSessionRepository sessionRepository,
+                                      ResumableUploadService uploadService) {
+        this.feedbackRepository = feedbackRepository;
+        this.sessionRepository = sessionRepository;
+        this.uploadService = uploadService;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> createUpload(@PathVariable UUID id, @RequestBody CreateUploadRequest request) {
+        Optional<Feedback> feedbackOpt = feedbackRepository.findById(id);
+        if (feedbackOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        UploadSession session = uploadService.create(feedbackOpt.get(), request.getFileName(),
+                request.getContentType(), request.getSize());
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header("Upload-Offset", "0")
+                .body(describe(session));
+    }
+
+    @GetMapping("/{uploadId}")
+    public ResponseEntity<?> getUpload(@PathVariable UUID id, @PathVariable UUID uploadId) {
+        return findSession(id, uploadId)
+                .<ResponseEntity<?>>map(session -> ResponseEntity.ok()
+                        .header("Upload-Offset", String.valueOf(session.getReceivedBytes()))
+                        .body(describe(session)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PutMapping("/{uploadId}")
+    public ResponseEntity<?> writeChunk(
+            @PathVariable UUID id,
+            @PathVariable UUID uploadId,
+            @RequestHeader("Upload-Offset") long offset,
+            InputStream body) {
+        Optional<UploadSession> sessionOpt = findSession(id, uploadId);
+        if (sessionOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        long received = uploadService.writeChunk(sessionOpt.get(), offset, body);
+        return ResponseEntity.noContent()
+                .header("Upload-Offset", String.valueOf(received))
+                .build();
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    public ResponseEntity<?> completeUpload(@PathVariable UUID id, @PathVariable UUID uploadId) {
+        Optional<UploadSession> sessionOpt = findSession(id, uploadId);
+        if (sessionOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Attachment attachment = uploadService.complete(sessionOpt.get());
+        return ResponseEntity.status(HttpStatus.CREATED).body(attachment);
+    }
+
+    @ExceptionHandler(UploadException.class)
+    public ResponseEntity<Map<String, String>> handleUploadException(UploadException ex) {
+        logger.warn("Upload request rejected: {}", ex.getMessage());
+        return ResponseEntity.status(ex.getStatus()).body(Map.of("error", ex.getMessage()));
+    }
+
+    private Optional<UploadSession> findSession(UUID feedbackId, UUID uploadId) {
+        return sessionRepository.findById(uploadId)
+                .filter(session -> session.getFeedback().getId().equals(feedbackId));
+    }
+
+    private Map<String, Object> describe(UploadSession session) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("uploadId", session.getId());
+        body.put("fileName", session.getFileName());
+        body.put("size", session.getTotalSize());
+        body.put("offset", session.getReceivedBytes());
+        return body;
+    }
+
+    @Data
+    public static class CreateUploadRequest {
+        private String fileName;
+        private String contentType;
+        private long size;
+    }
+}
@@ -0,0 +1,31 @@
+package com.balancee.backendtask.controller;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.balancee.backendtask.audit.AuditLog;
+import com.balancee.backendtask.audit.AuditRecord;
+
+@RestController
+@RequestMapping("/api/admin/feedback")
+public class AuditController {
+    private final AuditLog auditLog;
+
+    public AuditController(AuditLog auditLog) {
+        this.auditLog = auditLog;
+    }
+
+    // Also answers for archived or deleted feedback: the log outlives the row
+    @GetMapping("/{id}/history")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<AuditRecord>> getHistory(@PathVariable UUID id) {
+        return ResponseEntity.ok(auditLog.history(id));
+    }
+}
@@ -0,0 +1,85 @@
+package com.balancee.backendtask.controller;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.balancee.backendtask.service.backup.BackupManifest;
+import com.balancee.backendtask.service.backup.BackupService;
+import com.balancee.backendtask.service.backup.BackupService.BackupException;
+
+// Online snapshots; restoring one is done at startup with feedback.backup.restore-from
+@RestController
+@RequestMapping("/api/admin/backups")
+public class BackupController {
+    private static final Logger logger = LoggerFactory.getLogger(BackupController.class);
+    private final BackupService backupService;
+
+    public BackupController(BackupService backupService) {
+        this.backupService = backupService;
+    }
+
+    // Runs on the request thread and returns once the archive is complete
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> createSnapshot(@RequestParam(defaultValue = "false") boolean full)
+            throws IOException {
+        return ResponseEntity.status(HttpStatus.CREATED).body(describe(backupService.snapshot(full)));
+    }
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<Map<String, Object>>> listSnapshots() throws IOException {
+        return ResponseEntity.ok(backupService.list().stream().map(this::describe).toList());
+    }
+
+    @PostMapping("/{id}/verify")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> verifySnapshot(@PathVariable String id) throws IOException {
+        List<String> problems = backupService.verify(id);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", id);
+        body.put("valid", problems.isEmpty());
+        body.put("problems", problems);
+        return ResponseEntity.ok(body);
+    }
+
+    @ExceptionHandler(BackupException.class)
+    public ResponseEntity<Map<String, String>> handleBackupException(BackupException ex) {
+        logger.warn("Backup request rejected: {}", ex.getMessage());
+        return ResponseEntity.status(ex.getStatus()).body(Map.of("error", ex.getMessage()));
+    }
+
+    @ExceptionHandler(IOException.class)
+    public ResponseEntity<Map<String, String>> handleIOException(IOException ex) {
+        logger.error("Backup request failed", ex);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("error", "Backup storage failed"));
+    }
+
+    private Map<String, Object> describe(BackupManifest manifest) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", manifest.id());
+        body.put("createdAt", manifest.createdAt());
+        body.put("base", manifest.base());
+        body.put("databaseBytes", manifest.databaseBytes());
+        body.put("files", manifest.files().size());
+        body.put("copiedFiles", manifest.copiedFiles());
+        body.put("copiedBytes", manifest.copiedBytes());
+        body.put("missing", manifest.missing());
+        return body;
+    }
+}
@@ -0,0 +1,7 @@
+package com.balancee.backendtask.controller;
+
+import java.util.List;
+
+// Envelope for keyset-paged endpoints; nextCursor is null on the last page
+public record CursorPage<T>(List<T> content, int size, String nextCursor) {
+}
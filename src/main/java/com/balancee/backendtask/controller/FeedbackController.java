@@ -1,11 +1,17 @@
 package com.balancee.backendtask.controller;
 
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -14,7 +20,13 @@ import org.springframework.data.domain.Sort;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.FieldError;
@@ -25,27 +37,52 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.WebRequest;
 
+import com.balancee.backendtask.audit.AuditField;
+import com.balancee.backendtask.audit.AuditLog;
+import com.balancee.backendtask.events.FeedbackChangeTracker;
+import com.balancee.backendtask.events.FeedbackEvent;
+import com.balancee.backendtask.events.FeedbackEventType;
 import com.balancee.backendtask.model.Feedback;
 import com.balancee.backendtask.model.Category;
 import com.balancee.backendtask.model.Status;
 import com.balancee.backendtask.model.Priority;
 import com.balancee.backendtask.model.AdminResponse;
 import com.balancee.backendtask.model.Attachment;
+import com.balancee.backendtask.model.ArchivedFeedback;
 import com.balancee.backendtask.repository.FeedbackRepository;
 import com.balancee.backendtask.repository.AdminResponseRepository;
 import com.balancee.backendtask.repository.AttachmentRepository;
+import com.balancee.backendtask.repository.ArchivedFeedbackRepository;
+import com.balancee.backendtask.repository.ArchivedAdminResponseRepository;
+import com.balancee.backendtask.repository.ArchivedAttachmentRepository;
+import com.balancee.backendtask.repository.FeedbackCounts;
+import com.balancee.backendtask.repository.FeedbackFilter;
+import com.balancee.backendtask.repository.FeedbackRepositoryCustom;
+import com.balancee.backendtask.repository.FeedbackSort;
+import com.balancee.backendtask.readmodel.FeedbackBitmapIndex;
+import com.balancee.backendtask.service.FeedbackBulkUpdater;
+import com.balancee.backendtask.service.IdempotencyStore;
+import com.balancee.backendtask.service.SingleFlight;
+import com.balancee.backendtask.service.notification.NotificationOutbox;
+import com.balancee.backendtask.service.processing.AttachmentProcessingPipeline;
+import com.balancee.backendtask.service.storage.AttachmentStorage;
+import com.balancee.backendtask.service.storage.StoredObjectResource;
+import com.balancee.backendtask.service.trending.TrendingTerms;
 
 import org.springframework.web.multipart.MultipartFile;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.NoSuchFileException;
 
 import jakarta.validation.Valid;
+import lombok.Data;
 
 @RestController
 @RequestMapping("/api")
@@ -54,32 +91,85 @@ public class FeedbackController {
     private final FeedbackRepository repository;
     private final AdminResponseRepository adminResponseRepository;
     private final AttachmentRepository attachmentRepository;
-    private final String uploadDir = "uploads/";
+    private final ArchivedFeedbackRepository archivedFeedbackRepository;
+    private final ArchivedAdminResponseRepository archivedAdminResponseRepository;
+    private final ArchivedAttachmentRepository archivedAttachmentRepository;
+    private final FeedbackBulkUpdater bulkUpdater;
+    private final ApplicationEventPublisher eventPublisher;
+    private final FeedbackChangeTracker changeTracker;
+    private final AttachmentProcessingPipeline processingPipeline;
+    private final IdempotencyStore idempotencyStore;
+    private final TrendingTerms trendingTerms;
+    private final FeedbackBitmapIndex bitmapIndex;
+    private final SingleFlight singleFlight;
+    private final AuditLog auditLog;
+    private final NotificationOutbox notificationOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final AttachmentStorage storage;
 
-    public FeedbackController(FeedbackRepository repository, AdminResponseRepository adminResponseRepository, AttachmentRepository attachmentRepository) {
+    public FeedbackController(FeedbackRepository repository, AdminResponseRepository adminResponseRepository, AttachmentRepository attachmentRepository,
+                              ArchivedFeedbackRepository archivedFeedbackRepository, ArchivedAdminResponseRepository archivedAdminResponseRepository,
+                              ArchivedAttachmentRepository archivedAttachmentRepository, FeedbackBulkUpdater bulkUpdater,
+                              ApplicationEventPublisher eventPublisher, FeedbackChangeTracker changeTracker,
+                              AttachmentProcessingPipeline processingPipeline, IdempotencyStore idempotencyStore,
+                              TrendingTerms trendingTerms, FeedbackBitmapIndex bitmapIndex,
+                              SingleFlight singleFlight, AuditLog auditLog, NotificationOutbox notificationOutbox,
+                              TransactionTemplate transactionTemplate, AttachmentStorage storage) {
         this.repository = repository;
         this.adminResponseRepository = adminResponseRepository;
         this.attachmentRepository = attachmentRepository;
-        
-        // Create upload directory if it doesn't exist
-        try {
-            Files.createDirectories(Paths.get(uploadDir));
-        } catch (Exception e) {
-            logger.error("Failed to create upload directory", e);
-        }
+        this.archivedFeedbackRepository = archivedFeedbackRepository;
+        this.archivedAdminResponseRepository = archivedAdminResponseRepository;
+        this.archivedAttachmentRepository = archivedAttachmentRepository;
+        this.bulkUpdater = bulkUpdater;
+        this.eventPublisher = eventPublisher;
+        this.changeTracker = changeTracker;
+        this.processingPipeline = processingPipeline;
+        this.idempotencyStore = idempotencyStore;
+        this.trendingTerms = trendingTerms;
+        this.bitmapIndex = bitmapIndex;
+        this.singleFlight = singleFlight;
+        this.auditLog = auditLog;
+        this.notificationOutbox = notificationOutbox;
+        this.transactionTemplate = transactionTemplate;
+        this.storage = storage;
     }
 
     @PostMapping("/feedback")
-    public ResponseEntity<Feedback> createFeedback(@Valid @RequestBody Feedback feedback) {
+    public ResponseEntity<?> createFeedback(
+            @Valid @RequestBody Feedback feedback,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            Principal principal) {
+        // A signed-in submitter owns what they send, whatever userId the body claims; /feedback/mine relies on it
+        if (principal != null) {
+            feedback.setUserId(principal.getName());
+        }
+        if (idempotencyKey == null) {
+            return saveFeedback(feedback);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotencyStore.MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid Idempotency-Key"));
+        }
+        // Submission is open to anonymous clients, so their keys are scoped by the userId they send
+        String owner = principal != null ? principal.getName() : "anonymous:" + feedback.getUserId();
+        String fingerprint = IdempotencyStore.fingerprint(feedback.getUserId(), feedback.getRating(),
+                feedback.getCategory(), feedback.getMessage());
+        return idempotencyStore.execute("feedback|" + owner + "|" + idempotencyKey, fingerprint,
+                () -> saveFeedback(feedback));
+    }
+
+    private ResponseEntity<?> saveFeedback(Feedback feedback) {
         logger.info("Received feedback submission: userId={}, rating={}", feedback.getUserId(), feedback.getRating());
         Feedback saved = repository.save(feedback);
         logger.info("Feedback saved with ID: {}", saved.getId());
+        eventPublisher.publishEvent(FeedbackEvent.of(FeedbackEventType.CREATED, saved));
+        trendingTerms.record(saved.getCategory(), saved.getMessage());
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
     @GetMapping("/admin/feedback")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Page<Feedback>> getAllFeedback(
+    public ResponseEntity<?> getAllFeedback(
             @RequestParam Optional<Integer> rating,
             @RequestParam Optional<Category> category,
             @RequestParam Optional<Status> status,
@@ -89,35 +179,95 @@ public class FeedbackController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
-        Sort sort = Sort.by(sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC, sortBy);
+            @RequestParam Optional<String> sortDir,
+            @RequestParam(defaultValue = "false") boolean archived,
+            @RequestParam Optional<List<String>> fields,
+            @RequestParam(defaultValue = "false") boolean includeCounts,
+            WebRequest webRequest) {
+        Optional<String> unknownField = fields.stream().flatMap(List::stream)
+                .filter(field -> !FeedbackRepositoryCustom.PROJECTABLE_FIELDS.contains(field))
+                .findFirst();
+        if (unknownField.isPresent()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Unknown field: " + unknownField.get()));
+        }
+        // Only index-backed sorts; anything else would sort the whole table
+        Sort sort;
+        try {
+            sort = FeedbackSort.parse(sortBy, sortDir.orElse(null));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        String etag = changeTracker.listingETag();
+        if (notModified(webRequest, etag, "listing")) {
+            return null;
+        }
         Pageable pageable = PageRequest.of(page, size, sort);
         
-        logger.info("Fetching feedback with filters and pagination: page={}, size={}, sortBy={}, sortDir={}", 
-                page, size, sortBy, sortDir);
+        logger.info("Fetching feedback with filters and pagination: page={}, size={}, sort={}, archived={}", 
+                page, size, sort, archived);
+
+        FeedbackFilter filter = FeedbackFilter.of(rating, category, status, priority, startDate, endDate);
+        // Identical concurrent listings share one query; the ETag keeps requests after a write apart
+        String key = String.join("|", etag, filter.toString(), pageable.toString(), String.valueOf(archived),
+                String.valueOf(fields.orElse(null)), String.valueOf(includeCounts));
+        return singleFlight.execute("listing", key, () -> listFeedback(filter, pageable, archived, fields, includeCounts));
+    }
+
+    private ResponseEntity<?> listFeedback(FeedbackFilter filter, Pageable pageable, boolean archived,
+                                           Optional<List<String>> fields, boolean includeCounts) {
+        if (fields.isPresent()) {
+            // Sparse fieldset: only the requested columns are selected, no entities are loaded
+            List<String> selected = fields.get();
+            if (includeCounts && !selected.contains("id")) {
+                selected = new ArrayList<>(selected);
+                selected.add(0, "id");
+            }
+            Pageable query = FeedbackSort.forQuery(filter, pageable);
+            Page<Map<String, Object>> projected = archived
+                    ? repository.findProjected(ArchivedFeedback.class, filter.<ArchivedFeedback>toSpecification(), selected, query)
+                    : repository.findProjected(Feedback.class, filter.<Feedback>toSpecification(), selected, query);
+            if (includeCounts) {
+                Map<UUID, FeedbackCounts> counts = countsFor(projected.map(row -> (UUID) row.get("id")).getContent(), archived);
+                projected.forEach(row -> {
+                    FeedbackCounts c = counts.get((UUID) row.get("id"));
+                    row.put("responseCount", c == null ? 0L : c.getResponseCount());
+                    row.put("attachmentCount", c == null ? 0L : c.getAttachmentCount());
+                    row.put("lastResponseAt", c == null ? null : c.getLastResponseAt());
+                });
+            }
+            logger.info("Returning {} projected feedback entries with fields {}", projected.getNumberOfElements(), fields.get());
+            return ResponseEntity.ok(PageResponse.of(projected));
+        }
 
         Page<Feedback> feedbackPage;
-        if (priority.isPresent() && category.isPresent()) {
-            feedbackPage = repository.findByPriorityAndCategory(priority.get(), category.get(), pageable);
-        } else if (priority.isPresent()) {
-            feedbackPage = repository.findByPriority(priority.get(), pageable);
-        } else if (status.isPresent() && category.isPresent()) {
-            feedbackPage = repository.findByStatusAndCategory(status.get(), category.get(), pageable);
-        } else if (status.isPresent()) {
-            feedbackPage = repository.findByStatus(status.get(), pageable);
-        } else if (rating.isPresent() && category.isPresent()) {
-            feedbackPage = repository.findByCategoryAndRating(category.get(), rating.get(), pageable);
-        } else if (category.isPresent()) {
-            feedbackPage = repository.findByCategory(category.get(), pageable);
-        } else if (rating.isPresent()) {
-            feedbackPage = repository.findByRating(rating.get(), pageable);
+        if (archived) {
+            feedbackPage = archivedFeedbackRepository.findAll(filter.<ArchivedFeedback>toSpecification(),
+                    FeedbackSort.forQuery(filter, pageable)).map(ArchivedFeedback::toFeedback);
         } else {
-            feedbackPage = repository.findAll(pageable);
+            feedbackPage = bitmapIndex.findAll(filter, pageable);
+        }
+        if (includeCounts) {
+            Map<UUID, FeedbackCounts> counts = countsFor(feedbackPage.map(Feedback::getId).getContent(), archived);
+            feedbackPage.forEach(feedback -> {
+                FeedbackCounts c = counts.get(feedback.getId());
+                feedback.setResponseCount(c == null ? 0L : c.getResponseCount());
+                feedback.setAttachmentCount(c == null ? 0L : c.getAttachmentCount());
+                feedback.setLastResponseAt(c == null ? null : c.getLastResponseAt());
+            });
         }
 
         logger.info("Returning {} feedback entries (page {} of {})", 
                 feedbackPage.getNumberOfElements(), feedbackPage.getNumber() + 1, feedbackPage.getTotalPages());
-        return ResponseEntity.ok(feedbackPage);
+        return ResponseEntity.ok(PageResponse.of(feedbackPage));
+    }
+
+    // Response/attachment counts for a whole page in one query instead of two calls per row
+    private Map<UUID, FeedbackCounts> countsFor(List<UUID> ids, boolean archived) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        List<FeedbackCounts> counts = archived ? archivedFeedbackRepository.findCounts(ids) : repository.findCounts(ids);
+        return counts.stream().collect(Collectors.toMap(FeedbackCounts::getFeedbackId, c -> c));
     }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -134,22 +284,75 @@ public class FeedbackController {
 
     @PutMapping("/admin/feedback/{id}/status")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Feedback> updateFeedbackStatus(
+    public ResponseEntity<?> updateFeedbackStatus(
             @PathVariable UUID id,
-            @RequestParam Status status) {
+            @RequestParam Status status,
+            @RequestParam Optional<Long> version,
+            Principal principal) {
         logger.info("Updating feedback {} status to {}", id, status);
         
-        Optional<Feedback> feedbackOpt = repository.findById(id);
-        if (feedbackOpt.isEmpty()) {
-            return ResponseEntity.notFound().build();
+        LocalDateTime now = LocalDateTime.now();
+        Optional<Feedback> previous = transactionTemplate.execute(tx -> {
+            Optional<Feedback> row = repository.updateStatus(id, status, version.orElse(null), now);
+            // The user's notification commits or rolls back with the status change
+            row.ifPresent(before -> notificationOutbox.statusChanged(id, before.getUserId(), status));
+            return row;
+        });
+        if (previous.isEmpty()) {
+            return updateFailure(id, version);
         }
-        
-        Feedback feedback = feedbackOpt.get();
+        Feedback feedback = previous.get();
+        auditLog.append(id, principal.getName(), AuditField.STATUS, feedback.getStatus(), status);
         feedback.setStatus(status);
-        Feedback updated = repository.save(feedback);
         
         logger.info("Feedback {} status updated to {}", id, status);
-        return ResponseEntity.ok(updated);
+        eventPublisher.publishEvent(FeedbackEvent.statusChanged(id, status));
+        return ResponseEntity.ok(updated(feedback, now));
+    }
+
+    @PostMapping("/admin/feedback/bulk-update")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> bulkUpdateFeedback(@RequestBody BulkUpdateRequest request, Principal principal) {
+        if (request.getStatus() == null && request.getPriority() == null) {
+            return ResponseEntity.badRequest().body(Map.of("error", "status or priority is required"));
+        }
+        boolean hasIds = request.getIds() != null && !request.getIds().isEmpty();
+        boolean hasFilter = request.getFilter() != null && !request.getFilter().isEmpty();
+        if (hasIds == hasFilter) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Exactly one of ids or a non-empty filter is required"));
+        }
+
+        int updated = hasIds
+                ? bulkUpdater.updateByIds(request.getIds(), request.getStatus(), request.getPriority(), principal.getName())
+                : bulkUpdater.updateByFilter(request.getFilter(), request.getStatus(), request.getPriority(), principal.getName());
+        return ResponseEntity.ok(Map.of("updated", updated));
+    }
+
+    // Answers If-None-Match before any query runs; on a miss the ETag header is already set on the response
+    private boolean notModified(WebRequest webRequest, String etag, String endpoint) {
+        boolean conditional = webRequest.getHeader("If-None-Match") != null;
+        boolean notModified = webRequest.checkNotModified(etag);
+        if (conditional) {
+            changeTracker.recordConditionalRequest(endpoint, notModified);
+        }
+        return notModified;
+    }
+
+    // A conditional update touched no row: either the id is unknown or the version moved on
+    private ResponseEntity<?> updateFailure(UUID id, Optional<Long> version) {
+        if (version.isPresent() && repository.existsById(id)) {
+            logger.warn("Optimistic lock conflict updating feedback {} at version {}", id, version.get());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Feedback was modified concurrently; reload and retry"));
+        }
+        return ResponseEntity.notFound().build();
+    }
+
+    // The row a single update returns is the one before it; this turns it into the row after it
+    private static Feedback updated(Feedback previous, LocalDateTime now) {
+        previous.setUpdatedAt(now);
+        previous.setVersion(previous.getVersion() + 1);
+        return previous;
     }
 
     @PostMapping("/admin/feedback/{id}/response")
@@ -165,7 +368,13 @@ public class FeedbackController {
         }
         
         adminResponse.setFeedback(feedbackOpt.get());
-        AdminResponse saved = adminResponseRepository.save(adminResponse);
+        // The outbox row is written in the same transaction; delivery happens later, off this request
+        AdminResponse saved = transactionTemplate.execute(tx -> {
+            AdminResponse response = adminResponseRepository.save(adminResponse);
+            notificationOutbox.responseAdded(response);
+            return response;
+        });
+        eventPublisher.publishEvent(FeedbackEvent.of(FeedbackEventType.RESPONSE_ADDED, feedbackOpt.get()));
         
         logger.info("Admin response added to feedback {} by admin {}", id, adminResponse.getAdminId());
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
@@ -173,9 +382,28 @@ public class FeedbackController {
 
     @GetMapping("/admin/feedback/{id}/responses")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<AdminResponse>> getFeedbackResponses(@PathVariable UUID id) {
+    public ResponseEntity<List<AdminResponse>> getFeedbackResponses(
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "false") boolean archived,
+            WebRequest webRequest) {
+        String etag = changeTracker.feedbackETag(id);
+        if (notModified(webRequest, etag, "responses")) {
+            return null;
+        }
+        return singleFlight.execute("responses", etag + "|" + id + "|" + archived, () -> findResponses(id, archived));
+    }
+
+    private ResponseEntity<List<AdminResponse>> findResponses(UUID id, boolean archived) {
         Optional<Feedback> feedbackOpt = repository.findById(id);
         if (feedbackOpt.isEmpty()) {
+            if (archived) {
+                return archivedFeedbackRepository.findById(id)
+                        .map(ArchivedFeedback::toFeedback)
+                        .map(feedback -> ResponseEntity.ok(archivedAdminResponseRepository.findByFeedbackId(id).stream()
+                                .map(response -> response.toAdminResponse(feedback))
+                                .toList()))
+                        .orElseGet(() -> ResponseEntity.notFound().build());
+            }
             return ResponseEntity.notFound().build();
         }
         
@@ -183,31 +411,103 @@ public class FeedbackController {
         return ResponseEntity.ok(responses);
     }
 
+    @GetMapping("/feedback/mine")
+    public ResponseEntity<?> getMyFeedback(
+            @RequestParam Optional<String> cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeResponses,
+            Principal principal) {
+        return feedbackHistory(principal.getName(), cursor, size, includeResponses);
+    }
+
+    @GetMapping("/admin/users/{userId}/feedback")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getUserFeedback(
+            @PathVariable String userId,
+            @RequestParam Optional<String> cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean includeResponses) {
+        return feedbackHistory(userId, cursor, size, includeResponses);
+    }
+
+    // Keyset paging on (createdAt, id) so every page is an index range scan, however deep the client pages
+    private ResponseEntity<?> feedbackHistory(String userId, Optional<String> cursor, int size, boolean includeResponses) {
+        if (size <= 0 || size > 100) {
+            return ResponseEntity.badRequest().body(Map.of("error", "size must be between 1 and 100"));
+        }
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Feedback> rows;
+        if (cursor.isPresent()) {
+            String[] position;
+            try {
+                position = new String(Base64.getUrlDecoder().decode(cursor.get()), StandardCharsets.UTF_8).split("\\|", 2);
+                rows = repository.findByUserIdBefore(userId, LocalDateTime.parse(position[0]), UUID.fromString(position[1]), limit);
+            } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Invalid cursor"));
+            }
+        } else {
+            rows = repository.findByUserIdOrderByCreatedAtDescIdDesc(userId, limit);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            Feedback last = rows.get(size - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((last.getCreatedAt() + "|" + last.getId()).getBytes(StandardCharsets.UTF_8));
+        }
+        if (includeResponses && !rows.isEmpty()) {
+            // One query for the threads of the whole page
+            Map<UUID, List<AdminResponse>> threads = adminResponseRepository
+                    .findByFeedbackIdInOrderByCreatedAtAsc(rows.stream().map(Feedback::getId).toList()).stream()
+                    .collect(Collectors.groupingBy(response -> response.getFeedback().getId()));
+            rows.forEach(feedback -> feedback.setResponses(threads.getOrDefault(feedback.getId(), List.of())));
+        }
+        logger.info("Returning {} feedback entries for user {}", rows.size(), userId);
+        return ResponseEntity.ok(new CursorPage<>(rows, size, nextCursor));
+    }
+
     @PutMapping("/admin/feedback/{id}/priority")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<Feedback> updateFeedbackPriority(
+    public ResponseEntity<?> updateFeedbackPriority(
             @PathVariable UUID id,
-            @RequestParam Priority priority) {
+            @RequestParam Priority priority,
+            @RequestParam Optional<Long> version,
+            Principal principal) {
         logger.info("Updating feedback {} priority to {}", id, priority);
         
-        Optional<Feedback> feedbackOpt = repository.findById(id);
-        if (feedbackOpt.isEmpty()) {
-            return ResponseEntity.notFound().build();
+        LocalDateTime now = LocalDateTime.now();
+        Optional<Feedback> previous = repository.updatePriority(id, priority, version.orElse(null), now);
+        if (previous.isEmpty()) {
+            return updateFailure(id, version);
         }
-        
-        Feedback feedback = feedbackOpt.get();
+        Feedback feedback = previous.get();
+        auditLog.append(id, principal.getName(), AuditField.PRIORITY, feedback.getPriority(), priority);
         feedback.setPriority(priority);
-        Feedback updated = repository.save(feedback);
         
         logger.info("Feedback {} priority updated to {}", id, priority);
-        return ResponseEntity.ok(updated);
+        eventPublisher.publishEvent(FeedbackEvent.priorityChanged(id, priority));
+        return ResponseEntity.ok(updated(feedback, now));
     }
 
     @PostMapping("/feedback/{id}/attachments")
     public ResponseEntity<?> uploadAttachment(
             @PathVariable UUID id,
-            @RequestParam("file") MultipartFile file) {
-        
+            @RequestParam("file") MultipartFile file,
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            Principal principal) {
+        if (idempotencyKey == null) {
+            return storeAttachment(id, file);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotencyStore.MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Invalid Idempotency-Key"));
+        }
+        String fingerprint = IdempotencyStore.fingerprint(id, file.getOriginalFilename(), file.getSize());
+        return idempotencyStore.execute("attachment|" + principal.getName() + "|" + idempotencyKey, fingerprint,
+                () -> storeAttachment(id, file));
+    }
+
+    private ResponseEntity<?> storeAttachment(UUID id, MultipartFile file) {
         if (file.isEmpty()) {
             return ResponseEntity.badRequest().body(Map.of("error", "File is required"));
         }
@@ -219,18 +519,22 @@ public class FeedbackController {
         
         try {
             String fileName = System.currentTimeMillis() + "_" + file.getOriginalFilename();
-            Path filePath = Paths.get(uploadDir + fileName);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            String key;
+            try (InputStream in = file.getInputStream()) {
+                key = storage.put(fileName, in, file.getSize(), file.getContentType());
+            }
             
             Attachment attachment = new Attachment();
             attachment.setFeedback(feedbackOpt.get());
             attachment.setFileName(file.getOriginalFilename());
             attachment.setContentType(file.getContentType());
             attachment.setFileSize(file.getSize());
-            attachment.setFilePath(filePath.toString());
+            attachment.setFilePath(key);
             
             Attachment saved = attachmentRepository.save(attachment);
             logger.info("File uploaded for feedback {}: {}", id, fileName);
+            eventPublisher.publishEvent(FeedbackEvent.of(FeedbackEventType.ATTACHMENT_ADDED, feedbackOpt.get()));
+            processingPipeline.submit(saved.getId());
             
             return ResponseEntity.status(HttpStatus.CREATED).body(saved);
         } catch (Exception e) {
@@ -241,13 +545,113 @@ public class FeedbackController {
     }
 
     @GetMapping("/feedback/{id}/attachments")
-    public ResponseEntity<List<Attachment>> getFeedbackAttachments(@PathVariable UUID id) {
+    public ResponseEntity<List<Attachment>> getFeedbackAttachments(
+            @PathVariable UUID id,
+            @RequestParam(defaultValue = "false") boolean archived,
+            WebRequest webRequest) {
+        String etag = changeTracker.feedbackETag(id);
+        if (notModified(webRequest, etag, "attachments")) {
+            return null;
+        }
+        return singleFlight.execute("attachments", etag + "|" + id + "|" + archived, () -> findAttachments(id, archived));
+    }
+
+    // Only the sniffed content type is trusted; the client's could make a browser render the download
+    @GetMapping("/feedback/{id}/attachments/{attachmentId}/content")
+    public ResponseEntity<?> downloadAttachment(
+            @PathVariable UUID id,
+            @PathVariable UUID attachmentId,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range) {
+        Optional<Attachment> attachmentOpt = attachmentRepository.findById(attachmentId)
+                .filter(candidate -> candidate.getFeedback().getId().equals(id));
+        if (attachmentOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Attachment attachment = attachmentOpt.get();
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(attachment.getDetectedContentType() == null
+                ? MediaType.APPLICATION_OCTET_STREAM
+                : MediaType.parseMediaType(attachment.getDetectedContentType()));
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename(attachment.getFileName(), StandardCharsets.UTF_8)
+                .build());
+
+        String key = attachment.getFilePath();
+        // fileSize is always the size of the original bytes
+        long size = attachment.getFileSize();
+        List<HttpRange> ranges;
+        try {
+            ranges = range == null ? List.of() : HttpRange.parseRanges(range);
+            for (HttpRange requested : ranges) {
+                if (requested.getRangeStart(size) >= size) {
+                    return rangeNotSatisfiable(size);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            return rangeNotSatisfiable(size);
+        }
+        try {
+            // Several ranges get the whole body; InputStreamResource keeps Spring from answering them as multipart
+            if (ranges.size() > 1) {
+                headers.setContentLength(size);
+                return ResponseEntity.ok().headers(headers)
+                        .body(new InputStreamResource(new StoredObjectResource(storage, key, size,
+                                attachment.isCompressed()).getInputStream()));
+            }
+            // Gzipped content has to be inflated from the start; Spring serves ranges of it by skipping
+            if (attachment.isCompressed()) {
+                return ResponseEntity.ok().headers(headers)
+                        .body(new StoredObjectResource(storage, key, size, true));
+            }
+            if (ranges.size() == 1) {
+                // A single range is fetched from the storage as a range, not read up to the offset
+                long start = ranges.get(0).getRangeStart(size);
+                long end = ranges.get(0).getRangeEnd(size);
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+                headers.setContentLength(end - start + 1);
+                return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).headers(headers)
+                        .body(new InputStreamResource(storage.getRange(key, start, end - start + 1)));
+            }
+            return ResponseEntity.ok().headers(headers).body(new StoredObjectResource(storage, key, size, false));
+        } catch (NoSuchFileException e) {
+            logger.error("Attachment {} has no stored content at {}", attachmentId, key);
+            return ResponseEntity.notFound().build();
+        } catch (IOException e) {
+            logger.error("Failed to read attachment {}", attachmentId, e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Failed to read attachment"));
+        }
+    }
+
+    private static ResponseEntity<Void> rangeNotSatisfiable(long size) {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                .build();
+    }
+
+    private ResponseEntity<List<Attachment>> findAttachments(UUID id, boolean archived) {
         Optional<Feedback> feedbackOpt = repository.findById(id);
         if (feedbackOpt.isEmpty()) {
+            if (archived) {
+                return archivedFeedbackRepository.findById(id)
+                        .map(ArchivedFeedback::toFeedback)
+                        .map(feedback -> ResponseEntity.ok(archivedAttachmentRepository.findByFeedbackId(id).stream()
+                                .map(attachment -> attachment.toAttachment(feedback))
+                                .toList()))
+                        .orElseGet(() -> ResponseEntity.notFound().build());
+            }
             return ResponseEntity.notFound().build();
         }
         
         List<Attachment> attachments = attachmentRepository.findByFeedback(feedbackOpt.get());
         return ResponseEntity.ok(attachments);
     }
-}
\ No newline at end of file
+
+    @Data
+    public static class BulkUpdateRequest {
+        private List<UUID> ids;
+        private FeedbackFilter filter;
+        private Status status;
+        private Priority priority;
+    }
+}
@@ -0,0 +1,41 @@
+package com.balancee.backendtask.controller;
+
+import java.util.Optional;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.balancee.backendtask.events.FeedbackEventStream;
+import com.balancee.backendtask.model.Category;
+import com.balancee.backendtask.model.Priority;
+
+@RestController
+@RequestMapping("/api/admin/feedback")
+public class FeedbackStreamController {
+    private final FeedbackEventStream eventStream;
+
+    public FeedbackStreamController(FeedbackEventStream eventStream) {
+        this.eventStream = eventStream;
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<SseEmitter> streamFeedbackEvents(
+            @RequestParam Optional<Category> category,
+            @RequestParam Optional<Priority> priority,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        SseEmitter emitter = eventStream.subscribe(category.orElse(null), priority.orElse(null), lastEventId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header("Retry-After", "5").build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+}
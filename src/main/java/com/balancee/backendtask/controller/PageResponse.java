@@ -0,0 +1,14 @@
+package com.balancee.backendtask.controller;
+
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+
+// Stable page envelope for list endpoints, independent of Spring Data's PageImpl internals
+public record PageResponse<T>(List<T> content, int page, int size, long totalElements, int totalPages) {
+
+    public static <T> PageResponse<T> of(Page<T> page) {
+        return new PageResponse<>(page.getContent(), page.getNumber(), page.getSize(),
+                page.getTotalElements(), page.getTotalPages());
+    }
+}
@@ -0,0 +1,44 @@
+package com.balancee.backendtask.controller;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.balancee.backendtask.model.Category;
+import com.balancee.backendtask.service.trending.TrendingTerms;
+
+@RestController
+@RequestMapping("/api/admin/feedback")
+public class TrendingController {
+    private final TrendingTerms trendingTerms;
+
+    public TrendingController(TrendingTerms trendingTerms) {
+        this.trendingTerms = trendingTerms;
+    }
+
+    @GetMapping("/trending")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> getTrendingTerms(
+            @RequestParam Optional<Category> category,
+            @RequestParam(defaultValue = "60") int windowMinutes,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(defaultValue = "count") String sortBy) {
+        if (windowMinutes <= 0 || limit <= 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "windowMinutes and limit must be positive"));
+        }
+        if (!sortBy.equals("count") && !sortBy.equals("growth")) {
+            return ResponseEntity.badRequest().body(Map.of("error", "sortBy must be count or growth"));
+        }
+        List<TrendingTerms.TrendingTerm> terms = trendingTerms.trending(category.orElse(null),
+                Duration.ofMinutes(windowMinutes), Math.min(limit, 100), sortBy.equals("growth"));
+        return ResponseEntity.ok(terms);
+    }
+}
@@ -0,0 +1,66 @@
+package com.balancee.backendtask.controller;
+
+import java.security.Principal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.balancee.backendtask.model.Feedback;
+import com.balancee.backendtask.model.Status;
+import com.balancee.backendtask.repository.FeedbackRepository;
+import com.balancee.backendtask.service.TriageQueue;
+
+@RestController
+@RequestMapping("/api/admin/triage")
+public class TriageController {
+    private static final Logger logger = LoggerFactory.getLogger(TriageController.class);
+
+    private final TriageQueue triageQueue;
+    private final FeedbackRepository repository;
+
+    public TriageController(TriageQueue triageQueue, FeedbackRepository repository) {
+        this.triageQueue = triageQueue;
+        this.repository = repository;
+    }
+
+    @PostMapping("/claim")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> claimNext(Principal principal) {
+        Optional<TriageQueue.Lease> lease;
+        while ((lease = triageQueue.claim(principal.getName())).isPresent()) {
+            UUID id = lease.get().entry().id();
+            Optional<Feedback> feedback = repository.findById(id);
+            if (feedback.isPresent() && feedback.get().getStatus() == Status.NEW) {
+                logger.info("Feedback {} claimed for triage by {}", id, principal.getName());
+                Map<String, Object> body = new LinkedHashMap<>();
+                body.put("feedback", feedback.get());
+                body.put("leaseExpiresAt", lease.get().expiresAt());
+                return ResponseEntity.ok(body);
+            }
+            // Stale entry: the feedback moved on before its event reached the queue
+            triageQueue.discard(id);
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/{id}/release")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> release(@PathVariable UUID id, Principal principal) {
+        if (!triageQueue.release(id, principal.getName())) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "No active claim on this feedback for " + principal.getName()));
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
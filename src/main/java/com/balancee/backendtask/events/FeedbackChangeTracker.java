@@ -0,0 +1,80 @@
+package com.balancee.backendtask.events;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Monotonic change versions used as weak ETags. Every feedback write bumps a global version
+ * (covering all listings) and the version of the feedback's stripe (covering its responses and
+ * attachments). Two ids sharing a stripe only cause an extra miss, never a stale hit.
+ * Versions are local to this instance; the boot epoch makes ETags from other instances or
+ * earlier runs never match.
+ */
+@Component
+public class FeedbackChangeTracker {
+    private static final int STRIPES = 4096;
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong globalVersion = new AtomicLong();
+    private final AtomicLongArray stripeVersions = new AtomicLongArray(STRIPES);
+    private final AtomicLong conditionalHits = new AtomicLong();
+    private final AtomicLong conditionalRequests = new AtomicLong();
+    private final MeterRegistry meterRegistry;
+
+    public FeedbackChangeTracker(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("feedback.etag.hit.ratio", this, FeedbackChangeTracker::hitRatio)
+                .description("Share of If-None-Match requests answered with 304")
+                .register(meterRegistry);
+    }
+
+    @EventListener
+    public void onFeedbackEvent(FeedbackEvent event) {
+        long version = globalVersion.incrementAndGet();
+        if (event.feedbackId() != null) {
+            stripeVersions.accumulateAndGet(stripe(event.feedbackId()), version, Math::max);
+        }
+    }
+
+    public String listingETag() {
+        return etag(globalVersion.get());
+    }
+
+    public String feedbackETag(UUID feedbackId) {
+        return etag(stripeVersions.get(stripe(feedbackId)));
+    }
+
+    public void recordConditionalRequest(String endpoint, boolean notModified) {
+        conditionalRequests.incrementAndGet();
+        if (notModified) {
+            conditionalHits.incrementAndGet();
+        }
+        Counter.builder("feedback.etag.requests")
+                .tag("endpoint", endpoint)
+                .tag("result", notModified ? "not_modified" : "modified")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private double hitRatio() {
+        long requests = conditionalRequests.get();
+        return requests == 0 ? 0.0 : (double) conditionalHits.get() / requests;
+    }
+
+    private String etag(long version) {
+        return "W/\"" + epoch + "-" + version + "\"";
+    }
+
+    private static int stripe(UUID id) {
+        int hash = id.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,46 @@
+package com.balancee.backendtask.events;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import com.balancee.backendtask.model.Category;
+import com.balancee.backendtask.model.Feedback;
+import com.balancee.backendtask.model.Priority;
+import com.balancee.backendtask.model.Status;
+
+// Published on the write paths through Spring's ApplicationEventPublisher. Attributes the
+// writer did not read (e.g. category on a single-statement status update) are left null.
+// createdAt is the feedback's own timestamp, which is what orders it; occurredAt is when the event happened.
+public record FeedbackEvent(FeedbackEventType type, UUID feedbackId, Category category, Status status,
+                            Priority priority, LocalDateTime createdAt, Instant occurredAt) {
+
+    public static FeedbackEvent of(FeedbackEventType type, Feedback feedback) {
+        return new FeedbackEvent(type, feedback.getId(), feedback.getCategory(), feedback.getStatus(),
+                feedback.getPriority(), feedback.getCreatedAt(), Instant.now());
+    }
+
+    public static FeedbackEvent statusChanged(UUID feedbackId, Status status) {
+        return new FeedbackEvent(FeedbackEventType.STATUS_CHANGED, feedbackId, null, status, null, null, Instant.now());
+    }
+
+    public static FeedbackEvent priorityChanged(UUID feedbackId, Priority priority) {
+        return new FeedbackEvent(FeedbackEventType.PRIORITY_CHANGED, feedbackId, null, null, priority, null, Instant.now());
+    }
+
+    public static FeedbackEvent archived(UUID feedbackId) {
+        return new FeedbackEvent(FeedbackEventType.ARCHIVED, feedbackId, null, null, null, null, Instant.now());
+    }
+
+    public boolean isComplete() {
+        return category != null && status != null && priority != null;
+    }
+
+    public FeedbackEvent withAttributes(Category category, Status status, Priority priority) {
+        return new FeedbackEvent(type, feedbackId,
+                this.category != null ? this.category : category,
+                this.status != null ? this.status : status,
+                this.priority != null ? this.priority : priority,
+                createdAt, occurredAt);
+    }
+}
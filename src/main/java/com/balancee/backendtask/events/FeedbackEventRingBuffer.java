@@ -0,0 +1,61 @@
+package com.balancee.backendtask.events;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size, multi-producer ring of the most recent events. Readers keep their own cursor
+ * (the next sequence they want); a cursor that falls more than capacity behind is overrun.
+ */
+public class FeedbackEventRingBuffer {
+    private final AtomicReferenceArray<Slot> slots;
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong(1);
+
+    public FeedbackEventRingBuffer(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    public long publish(FeedbackEvent event) {
+        long sequence = nextSequence.getAndIncrement();
+        slots.set(index(sequence), new Slot(sequence, event));
+        return sequence;
+    }
+
+    public long nextSequence() {
+        return nextSequence.get();
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    // True when the event at this sequence has already been overwritten, or the sequence was
+    // never issued by this buffer (e.g. a Last-Event-ID from before a restart)
+    public boolean isLost(long sequence) {
+        long next = nextSequence.get();
+        return sequence < next - capacity() || sequence > next;
+    }
+
+    // The slot holding exactly this sequence, or null if it isn't published yet or was overwritten
+    public Slot get(long sequence) {
+        Slot slot = slots.get(index(sequence));
+        return slot != null && slot.sequence() == sequence ? slot : null;
+    }
+
+    // Replaces an event in place (used to cache lazily resolved attributes)
+    public void replace(Slot slot, FeedbackEvent event) {
+        slots.compareAndSet(index(slot.sequence()), slot, new Slot(slot.sequence(), event));
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence & mask);
+    }
+
+    public record Slot(long sequence, FeedbackEvent event) {
+    }
+}
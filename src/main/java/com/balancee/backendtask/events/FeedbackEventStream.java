@@ -0,0 +1,206 @@
+package com.balancee.backendtask.events;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.balancee.backendtask.model.Category;
+import com.balancee.backendtask.model.Priority;
+import com.balancee.backendtask.repository.FeedbackRepository;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Fans feedback events out to SSE subscribers. Events go into a bounded ring buffer; every
+ * subscriber reads it through its own cursor on a small sender pool, so a slow client only
+ * delays itself. A subscriber that falls further behind than the buffer holds gets a
+ * "resync" event and continues from the newest event.
+ */
+@Component
+public class FeedbackEventStream {
+    private static final Logger logger = LoggerFactory.getLogger(FeedbackEventStream.class);
+    private static final int MAX_EVENTS_PER_DRAIN = 256;
+
+    private final FeedbackEventRingBuffer buffer;
+    private final FeedbackRepository repository;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor senders;
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "feedback-events-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long emitterTimeoutMs;
+    private final int maxSubscribers;
+
+    public FeedbackEventStream(FeedbackRepository repository,
+                               @Value("${feedback.events.buffer-size:1024}") int bufferSize,
+                               @Value("${feedback.events.sender-threads:4}") int senderThreads,
+                               @Value("${feedback.events.emitter-timeout-ms:1800000}") long emitterTimeoutMs,
+                               @Value("${feedback.events.max-subscribers:200}") int maxSubscribers,
+                               @Value("${feedback.events.heartbeat-ms:15000}") long heartbeatMs) {
+        this.repository = repository;
+        this.buffer = new FeedbackEventRingBuffer(bufferSize);
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.maxSubscribers = maxSubscribers;
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxSubscribers), r -> {
+                    Thread thread = new Thread(r, "feedback-events-sender");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        heartbeats.scheduleAtFixedRate(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    @EventListener
+    public void onFeedbackEvent(FeedbackEvent event) {
+        buffer.publish(event);
+        subscribers.forEach(this::schedule);
+    }
+
+    // Returns null when the subscriber limit is reached
+    public SseEmitter subscribe(Category category, Priority priority, Long lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        long cursor = lastEventId != null ? lastEventId + 1 : buffer.nextSequence();
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, category, priority, cursor);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        logger.info("Feedback event subscriber added: category={}, priority={}, lastEventId={}, subscribers={}",
+                category, priority, lastEventId, subscribers.size());
+        schedule(subscriber);
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private void heartbeat() {
+        subscribers.forEach(subscriber -> {
+            subscriber.heartbeatDue = true;
+            schedule(subscriber);
+        });
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            try {
+                senders.execute(() -> drain(subscriber));
+            } catch (RejectedExecutionException e) {
+                // Picked up again by the next event or heartbeat
+                subscriber.scheduled.set(false);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            int sent = 0;
+            while (sent < MAX_EVENTS_PER_DRAIN) {
+                long cursor = subscriber.cursor;
+                if (buffer.isLost(cursor)) {
+                    long resumeAt = buffer.nextSequence();
+                    logger.warn("Feedback event subscriber fell behind at {}, resyncing from {}", cursor, resumeAt);
+                    subscriber.emitter.send(SseEmitter.event().name("resync").data(resumeAt));
+                    subscriber.cursor = resumeAt;
+                    sent++;
+                    continue;
+                }
+                FeedbackEventRingBuffer.Slot slot = buffer.get(cursor);
+                if (slot == null) {
+                    break;
+                }
+                FeedbackEvent event = slot.event();
+                if (subscriber.filtersOnAttributes() && !event.isComplete()) {
+                    event = resolve(slot);
+                }
+                if (subscriber.matches(event)) {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(String.valueOf(slot.sequence()))
+                            .name(event.type().name())
+                            .data(event, MediaType.APPLICATION_JSON));
+                    sent++;
+                }
+                subscriber.cursor = cursor + 1;
+            }
+            if (subscriber.heartbeatDue) {
+                subscriber.heartbeatDue = false;
+                if (sent == 0) {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+            return;
+        } finally {
+            subscriber.scheduled.set(false);
+        }
+        if (buffer.get(subscriber.cursor) != null || buffer.isLost(subscriber.cursor)) {
+            schedule(subscriber);
+        }
+    }
+
+    // Fills in attributes the publisher didn't know, once per event rather than per subscriber
+    private FeedbackEvent resolve(FeedbackEventRingBuffer.Slot slot) {
+        FeedbackEvent event = slot.event();
+        FeedbackEvent resolved = repository.findSummaryById(event.feedbackId())
+                .map(summary -> event.withAttributes(summary.getCategory(), summary.getStatus(), summary.getPriority()))
+                .orElse(event);
+        buffer.replace(slot, resolved);
+        return resolved;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final Category category;
+        private final Priority priority;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile long cursor;
+        private volatile boolean heartbeatDue;
+
+        private Subscriber(SseEmitter emitter, Category category, Priority priority, long cursor) {
+            this.emitter = emitter;
+            this.category = category;
+            this.priority = priority;
+            this.cursor = cursor;
+        }
+
+        private boolean filtersOnAttributes() {
+            return category != null || priority != null;
+        }
+
+        private boolean matches(FeedbackEvent event) {
+            return (category == null || category == event.category())
+                    && (priority == null || priority == event.priority());
+        }
+    }
+}
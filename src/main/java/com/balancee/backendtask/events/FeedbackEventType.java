@@ -0,0 +1,11 @@
+package com.balancee.backendtask.events;
+
+public enum FeedbackEventType {
+    CREATED,
+    STATUS_CHANGED,
+    PRIORITY_CHANGED,
+    RESPONSE_ADDED,
+    ATTACHMENT_ADDED,
+    ATTACHMENT_UPDATED,
+    ARCHIVED
+}
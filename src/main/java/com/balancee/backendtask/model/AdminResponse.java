@@ -3,6 +3,12 @@ package com.balancee.backendtask.model;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+import com.balancee.backendtask.persistence.CompressedText;
+import com.balancee.backendtask.persistence.CompressedTextConverter;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
@@ -18,16 +24,27 @@ public class AdminResponse {
 
     @ManyToOne
     @JoinColumn(name = "feedback_id")
+    @JsonIgnoreProperties("responses")
     private Feedback feedback;
 
-    @NotBlank(message = "response is required")
-    private String response;
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "response_data", length = CompressedText.MAX_STORED_SIZE)
+    private CompressedText response;
 
     @NotBlank(message = "adminId is required")
     private String adminId;
 
     private LocalDateTime createdAt;
 
+    @NotBlank(message = "response is required")
+    public String getResponse() {
+        return response == null ? null : response.text();
+    }
+
+    public void setResponse(String response) {
+        this.response = CompressedText.of(response);
+    }
+
     public AdminResponse() {
         this.id = UUID.randomUUID();
         this.createdAt = LocalDateTime.now();
@@ -0,0 +1,48 @@
+package com.balancee.backendtask.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+
+import com.balancee.backendtask.persistence.CompressedText;
+import com.balancee.backendtask.persistence.CompressedTextConverter;
+
+@Entity
+@Data
+public class ArchivedAdminResponse {
+    @Id
+    private UUID id;
+
+    private UUID feedbackId;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "response_data", length = CompressedText.MAX_STORED_SIZE)
+    private CompressedText response;
+
+    private String adminId;
+
+    private LocalDateTime createdAt;
+
+    public String getResponse() {
+        return response == null ? null : response.text();
+    }
+
+    public void setResponse(String response) {
+        this.response = CompressedText.of(response);
+    }
+
+    public AdminResponse toAdminResponse(Feedback feedback) {
+        AdminResponse adminResponse = new AdminResponse();
+        adminResponse.setId(id);
+        adminResponse.setFeedback(feedback);
+        adminResponse.setResponse(getResponse());
+        adminResponse.setAdminId(adminId);
+        adminResponse.setCreatedAt(createdAt);
+        return adminResponse;
+    }
+}
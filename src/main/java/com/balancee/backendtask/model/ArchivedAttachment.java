@@ -0,0 +1,48 @@
+package com.balancee.backendtask.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import lombok.Data;
+
+@Entity
+@Data
+public class ArchivedAttachment {
+    @Id
+    private UUID id;
+
+    private UUID feedbackId;
+
+    private String fileName;
+    private String contentType;
+    private Long fileSize;
+    private String filePath;
+    private LocalDateTime uploadedAt;
+
+    // As left by the processing pipeline; compressed objects are gzipped in the storage
+    @Enumerated(EnumType.STRING)
+    private ProcessingState processingState;
+    private String checksum;
+    private String detectedContentType;
+    private boolean compressed;
+
+    public Attachment toAttachment(Feedback feedback) {
+        Attachment attachment = new Attachment();
+        attachment.setId(id);
+        attachment.setFeedback(feedback);
+        attachment.setFileName(fileName);
+        attachment.setContentType(contentType);
+        attachment.setFileSize(fileSize);
+        attachment.setFilePath(filePath);
+        attachment.setUploadedAt(uploadedAt);
+        attachment.setProcessingState(processingState);
+        attachment.setChecksum(checksum);
+        attachment.setDetectedContentType(detectedContentType);
+        attachment.setCompressed(compressed);
+        return attachment;
+    }
+}
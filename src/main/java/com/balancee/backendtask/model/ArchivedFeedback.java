@@ -0,0 +1,79 @@
+package com.balancee.backendtask.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+import com.balancee.backendtask.persistence.CompressedText;
+import com.balancee.backendtask.persistence.CompressedTextConverter;
+
+// Same listing indexes as Feedback, since archived listings accept the same sorts
+@Entity
+@Table(name = "archived_feedback", indexes = {
+        @Index(name = "idx_archived_feedback_created_desc", columnList = "created_at DESC, id DESC"),
+        @Index(name = "idx_archived_feedback_created", columnList = "created_at, id"),
+        @Index(name = "idx_archived_feedback_status_created", columnList = "status, created_at DESC, id DESC"),
+        @Index(name = "idx_archived_feedback_priority_created", columnList = "priority, created_at DESC, id DESC"),
+        @Index(name = "idx_archived_feedback_category_created", columnList = "category, created_at DESC, id DESC"),
+        @Index(name = "idx_archived_feedback_rating_created", columnList = "rating, created_at DESC, id DESC")
+})
+@Data
+public class ArchivedFeedback {
+
+    @Id
+    private UUID id;
+
+    private String userId;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "message_data", length = CompressedText.MAX_STORED_SIZE)
+    private CompressedText message;
+
+    private int rating;
+
+    @Enumerated(EnumType.STRING)
+    private Category category;
+
+    @Enumerated(EnumType.STRING)
+    private Status status;
+
+    @Enumerated(EnumType.STRING)
+    private Priority priority;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    private LocalDateTime archivedAt;
+
+    public String getMessage() {
+        return message == null ? null : message.text();
+    }
+
+    public void setMessage(String message) {
+        this.message = CompressedText.of(message);
+    }
+
+    public Feedback toFeedback() {
+        Feedback feedback = new Feedback();
+        feedback.setId(id);
+        feedback.setUserId(userId);
+        feedback.setMessage(getMessage());
+        feedback.setRating(rating);
+        feedback.setCategory(category);
+        feedback.setStatus(status);
+        feedback.setPriority(priority);
+        feedback.setCreatedAt(createdAt);
+        feedback.setUpdatedAt(updatedAt);
+        return feedback;
+    }
+}
@@ -4,6 +4,8 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
@@ -25,8 +27,19 @@ public class Attachment {
     private String filePath;
     private LocalDateTime uploadedAt;
 
+    // Filled in by the post-upload processing pipeline
+    @Enumerated(EnumType.STRING)
+    private ProcessingState processingState;
+    private int processingAttempts;
+    private LocalDateTime processingUpdatedAt;
+    private LocalDateTime nextAttemptAt;
+    private String checksum;
+    private String detectedContentType;
+    private boolean compressed;
+
     public Attachment() {
         this.id = UUID.randomUUID();
         this.uploadedAt = LocalDateTime.now();
+        this.processingState = ProcessingState.PENDING;
     }
 }
\ No newline at end of file
@@ -1,29 +1,58 @@
 package com.balancee.backendtask.model;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import com.balancee.backendtask.persistence.CompressedText;
+import com.balancee.backendtask.persistence.CompressedTextConverter;
+import com.balancee.backendtask.readmodel.FeedbackIndexListener;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 @Entity
+@EntityListeners(FeedbackIndexListener.class)
+// The listing indexes back FeedbackSort: one per sort order it accepts, and one per equality filter with createdAt
+@Table(name = "feedback", indexes = {
+        @Index(name = "idx_feedback_user_created", columnList = "user_id, created_at"),
+        @Index(name = "idx_feedback_created_desc", columnList = "created_at DESC, id DESC"),
+        @Index(name = "idx_feedback_created", columnList = "created_at, id"),
+        @Index(name = "idx_feedback_status_created", columnList = "status, created_at DESC, id DESC"),
+        @Index(name = "idx_feedback_priority_created", columnList = "priority, created_at DESC, id DESC"),
+        @Index(name = "idx_feedback_category_created", columnList = "category, created_at DESC, id DESC"),
+        @Index(name = "idx_feedback_rating_created", columnList = "rating, created_at DESC, id DESC")
+})
 @Data
 public class Feedback {
 
     @Id
     private UUID id;
 
+    @Column(name = "user_id")
     private String userId;
 
-    @NotBlank(message = "message is required")
-    private String message;
+    // Stored compressed once large, see CompressedText; exposed as a plain String below
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "message_data", length = CompressedText.MAX_STORED_SIZE)
+    private CompressedText message;
 
     @Min(value = 1, message = "rating must be at least 1")
     @Max(value = 5, message = "rating must be at most 5")
@@ -39,8 +68,49 @@ public class Feedback {
     @Enumerated(EnumType.STRING)
     private Priority priority;
 
+    @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    private LocalDateTime updatedAt;
+
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
+
+    // Only filled in by the admin listing when includeCounts=true
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long responseCount;
+
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long attachmentCount;
+
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private LocalDateTime lastResponseAt;
+
+    // Only filled in by the feedback history endpoints when includeResponses=true
+    // Excluded from toString/equals: each response points back at this feedback
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private List<AdminResponse> responses;
+
+    @NotBlank(message = "message is required")
+    public String getMessage() {
+        return message == null ? null : message.text();
+    }
+
+    public void setMessage(String message) {
+        this.message = CompressedText.of(message);
+    }
+
     public Feedback() {
         this.id = UUID.randomUUID();
         this.createdAt = LocalDateTime.now();
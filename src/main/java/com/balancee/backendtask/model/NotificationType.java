@@ -0,0 +1,6 @@
+package com.balancee.backendtask.model;
+
+public enum NotificationType {
+    RESPONSE_ADDED,
+    STATUS_CHANGED
+}
@@ -0,0 +1,57 @@
+package com.balancee.backendtask.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.Data;
+
+// A notification to the submitting user, written in the same transaction as the change it reports
+@Entity
+@Table(name = "outbox_message", indexes = @Index(name = "idx_outbox_state_next", columnList = "state, next_attempt_at"))
+@Data
+public class OutboxMessage {
+    @Id
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    private NotificationType type;
+
+    private UUID feedbackId;
+    private String recipient;
+
+    @Column(length = 8192)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "state")
+    private OutboxState state;
+
+    private int attempts;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    // Set by the dispatcher run that claimed the message
+    private UUID claimToken;
+    private LocalDateTime claimedAt;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    public OutboxMessage() {
+        this.id = UUID.randomUUID();
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+        this.state = OutboxState.PENDING;
+    }
+}
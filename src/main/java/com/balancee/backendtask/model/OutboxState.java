@@ -0,0 +1,8 @@
+package com.balancee.backendtask.model;
+
+public enum OutboxState {
+    PENDING,
+    SENDING,
+    SENT,
+    FAILED
+}
@@ -0,0 +1,8 @@
+package com.balancee.backendtask.model;
+
+public enum ProcessingState {
+    PENDING,
+    PROCESSING,
+    PROCESSED,
+    FAILED
+}
@@ -0,0 +1,35 @@
+package com.balancee.backendtask.model;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import lombok.Data;
+
+@Entity
+@Data
+public class UploadSession {
+    @Id
+    private UUID id;
+
+    @ManyToOne
+    @JoinColumn(name = "feedback_id")
+    private Feedback feedback;
+
+    private String fileName;
+    private String contentType;
+    private long totalSize;
+    private long receivedBytes;
+    private String partPath;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public UploadSession() {
+        this.id = UUID.randomUUID();
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+}
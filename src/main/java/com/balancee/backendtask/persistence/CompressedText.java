@@ -0,0 +1,154 @@
+package com.balancee.backendtask.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.hibernate.annotations.Immutable;
+
+/**
+ * A text column value in its stored form. The first byte says how the rest is encoded: RAW is
+ * plain UTF-8, DEFLATE is the UTF-8 length as four bytes followed by raw deflate data. Text of
+ * MIN_COMPRESSED_SIZE bytes or more is deflated when that actually saves space. The text is only
+ * decoded the first time it is asked for, so loading an entity whose message is never read costs
+ * nothing more than the bytes.
+ */
+@Immutable
+public final class CompressedText {
+    static final byte RAW = 0;
+    static final byte DEFLATE = 1;
+    static final int MIN_COMPRESSED_SIZE = 512;
+    // Column length of the stored form; the header and deflate overhead come out of this
+    public static final int MAX_STORED_SIZE = 1_048_576;
+
+    // Codec totals since startup, reported by TextCompressionMigration
+    static final LongAdder textBytes = new LongAdder();
+    static final LongAdder storedBytes = new LongAdder();
+    static final LongAdder compressed = new LongAdder();
+    static final LongAdder decoded = new LongAdder();
+
+    private final byte[] encoded;
+    private volatile String text;
+
+    private CompressedText(byte[] encoded, String text) {
+        this.encoded = encoded;
+        this.text = text;
+    }
+
+    public static CompressedText of(String text) {
+        if (text == null) {
+            return null;
+        }
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        byte[] encoded = utf8.length >= MIN_COMPRESSED_SIZE ? deflate(utf8) : null;
+        if (encoded == null) {
+            encoded = new byte[utf8.length + 1];
+            encoded[0] = RAW;
+            System.arraycopy(utf8, 0, encoded, 1, utf8.length);
+        } else {
+            compressed.increment();
+        }
+        textBytes.add(utf8.length);
+        storedBytes.add(encoded.length);
+        return new CompressedText(encoded, text);
+    }
+
+    public static CompressedText fromStored(byte[] encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        if (encoded.length == 0 || (encoded[0] != RAW && encoded[0] != DEFLATE)) {
+            throw new IllegalArgumentException("Unknown text encoding " + (encoded.length == 0 ? "(empty)" : encoded[0]));
+        }
+        return new CompressedText(encoded, null);
+    }
+
+    public byte[] stored() {
+        return encoded;
+    }
+
+    public boolean isCompressed() {
+        return encoded[0] == DEFLATE;
+    }
+
+    public String text() {
+        String current = text;
+        if (current == null) {
+            current = decode(encoded);
+            text = current;
+        }
+        return current;
+    }
+
+    // Deflated bytes, or null when they would not be smaller than the raw form
+    private static byte[] deflate(byte[] utf8) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(utf8);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(utf8.length / 2);
+            out.write(DEFLATE);
+            out.writeBytes(ByteBuffer.allocate(4).putInt(utf8.length).array());
+            byte[] buffer = new byte[Math.min(utf8.length, 8192)];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+                if (out.size() > utf8.length) {
+                    return null;
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static String decode(byte[] encoded) {
+        decoded.increment();
+        if (encoded[0] == RAW) {
+            return new String(encoded, 1, encoded.length - 1, StandardCharsets.UTF_8);
+        }
+        int length = ByteBuffer.wrap(encoded, 1, 4).getInt();
+        byte[] utf8 = new byte[length];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(encoded, 5, encoded.length - 5);
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(utf8, read, length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != length) {
+                throw new IllegalStateException("Compressed text is truncated: " + read + " of " + length + " bytes");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Compressed text is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    // Compares the stored form, so Hibernate's dirty check never has to decode
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CompressedText that && Arrays.equals(encoded, that.encoded);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(encoded);
+    }
+
+    @Override
+    public String toString() {
+        return text();
+    }
+}
@@ -0,0 +1,178 @@
+package com.balancee.backendtask.persistence;
+
+import java.io.Closeable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps a DataSource in JDK proxies down to its statements and result sets, so every execution
+ * is timed and handed to the QueryProfiler together with its SQL, row count and a redacted view
+ * of its bind parameters (type and length only, never the value). Everything else is passed
+ * straight through, including unwrap, so pool metrics still reach the real DataSource.
+ */
+public final class ProfilingDataSource {
+
+    private ProfilingDataSource() {
+    }
+
+    // The profiler is looked up on first use: the DataSource is created long before the meter registry is ready
+    public static DataSource wrap(DataSource dataSource, Supplier<QueryProfiler> lookup) {
+        Supplier<QueryProfiler> profiler = new Supplier<>() {
+            private volatile QueryProfiler resolved;
+
+            @Override
+            public QueryProfiler get() {
+                QueryProfiler current = resolved;
+                if (current == null) {
+                    current = lookup.get();
+                    resolved = current;
+                }
+                return current;
+            }
+        };
+        // Closeable stays visible so the container still shuts the pool down
+        Class<?>[] extra = dataSource instanceof Closeable ? new Class<?>[]{Closeable.class} : new Class<?>[0];
+        return proxy(DataSource.class, dataSource, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            return result instanceof Connection connection ? connection(connection, profiler) : result;
+        }, extra);
+    }
+
+    private static Connection connection(Connection connection, Supplier<QueryProfiler> profiler) {
+        return proxy(Connection.class, connection, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (result instanceof CallableStatement statement) {
+                return statement(CallableStatement.class, statement, (String) args[0], profiler);
+            }
+            if (result instanceof PreparedStatement statement) {
+                return statement(PreparedStatement.class, statement, (String) args[0], profiler);
+            }
+            if (result instanceof Statement statement) {
+                return statement(Statement.class, statement, null, profiler);
+            }
+            return result;
+        });
+    }
+
+    private static <S extends Statement> S statement(Class<S> type, S statement, String preparedSql,
+                                                     Supplier<QueryProfiler> profiler) {
+        Map<Integer, String> binds = new TreeMap<>();
+        int[] batched = {0};
+        return proxy(type, statement, (target, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                binds.put(index, name.equals("setNull") ? "null" : redact(args[1]));
+            } else if (name.equals("clearParameters")) {
+                binds.clear();
+            } else if (name.equals("addBatch")) {
+                batched[0]++;
+            }
+            if (!name.startsWith("execute")) {
+                Object result = invoke(target, method, args);
+                if (name.equals("getResultSet") && result instanceof ResultSet resultSet && preparedSql != null) {
+                    QueryProfiler queryProfiler = profiler.get();
+                    return resultSet(resultSet, queryProfiler.statement(preparedSql), queryProfiler);
+                }
+                return result;
+            }
+
+            String sql = preparedSql != null ? preparedSql
+                    : args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+            long start = System.nanoTime();
+            Object result = invoke(target, method, args);
+            long nanos = System.nanoTime() - start;
+            if (sql == null) {
+                // executeBatch on a plain Statement; its SQL went in through addBatch
+                return result;
+            }
+            QueryProfiler queryProfiler = profiler.get();
+            QueryProfiler.Statement shape = queryProfiler.statement(sql);
+            long rows = -1;
+            if (result instanceof Integer count) {
+                rows = count;
+            } else if (result instanceof Long count) {
+                rows = count;
+            } else if (result instanceof int[] counts) {
+                rows = 0;
+                for (int count : counts) {
+                    rows += Math.max(count, 0);
+                }
+            }
+            List<String> redacted = List.copyOf(binds.values());
+            if (name.equals("executeBatch")) {
+                redacted = List.of(batched[0] + " rows of " + redacted);
+                batched[0] = 0;
+            }
+            queryProfiler.recordExecution(shape, nanos, rows, redacted);
+            return result instanceof ResultSet resultSet ? resultSet(resultSet, shape, queryProfiler) : result;
+        });
+    }
+
+    // Counts the rows read and reports them when the result set is closed
+    private static ResultSet resultSet(ResultSet resultSet, QueryProfiler.Statement shape, QueryProfiler profiler) {
+        long[] rows = {0};
+        boolean[] reported = {false};
+        return proxy(ResultSet.class, resultSet, (target, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+                rows[0]++;
+            } else if (method.getName().equals("close") && !reported[0]) {
+                reported[0] = true;
+                profiler.recordRows(shape, rows[0]);
+            }
+            return result;
+        });
+    }
+
+    private static String redact(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof CharSequence text) {
+            return "String(" + text.length() + ")";
+        }
+        if (value instanceof byte[] bytes) {
+            return "bytes(" + bytes.length + ")";
+        }
+        return value.getClass().getSimpleName();
+    }
+
+    private interface Handler<T> {
+        Object handle(T target, Method method, Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler<T> handler, Class<?>... extra) {
+        // Identity semantics, since Hibernate keys its resource registry by statement
+        InvocationHandler invocationHandler = (proxy, method, args) -> switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> handler.handle(target, method, args);
+        };
+        Class<?>[] interfaces = new Class<?>[extra.length + 1];
+        interfaces[0] = type;
+        System.arraycopy(extra, 0, interfaces, 1, extra.length);
+        return (T) Proxy.newProxyInstance(ProfilingDataSource.class.getClassLoader(), interfaces, invocationHandler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.balancee.backendtask.persistence;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Collects what the profiling DataSource sees. Every statement is reduced to a shape (literals
+ * and IN lists collapsed) with a short id like "select feedback#1a2b3c", and timed per shape and
+ * endpoint. Slow statements are logged with their bind values redacted, at most once per shape
+ * per log interval. A SELECT shape repeated threshold times within one request is reported as a
+ * likely N+1.
+ */
+@Component
+public class QueryProfiler {
+    private static final Logger logger = LoggerFactory.getLogger(QueryProfiler.class);
+    static final String BACKGROUND = "background";
+    private static final int SQL_CACHE_SIZE = 10_000;
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])-?\\d+(?:\\.\\d+)?\\b");
+    // ORDER BY / GROUP BY items up to the end of the clause; a bare number there is a select-list position
+    private static final Pattern BY_CLAUSE =
+            Pattern.compile("(?i)\\b(?:order|group)\\s+by\\s+([^()]*?)(?=\\s+(?:offset|fetch|limit|having|for)\\b|\\)|$)");
+    private static final Pattern ORDINAL_ITEM =
+            Pattern.compile("(?i)\\s*\\d+(?:\\s+(?:asc|desc))?(?:\\s+nulls\\s+(?:first|last))?\\s*");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern TABLE = Pattern.compile("(?i)\\b(?:from|into|update)\\s+([\\w.\"]+)");
+
+    private final MeterRegistry meterRegistry;
+    private final long slowNanos;
+    private final long logIntervalNanos;
+    private final int nPlusOneThreshold;
+    private final int maxShapes;
+    private final Map<String, Statement> bySql = new ConcurrentHashMap<>();
+    private final Map<String, Statement> byShape = new ConcurrentHashMap<>();
+    private final Map<String, LogSampler> samplers = new ConcurrentHashMap<>();
+    private final ThreadLocal<RequestStats> request = new ThreadLocal<>();
+    private final ThreadLocal<Capture> capture = new ThreadLocal<>();
+
+    public QueryProfiler(MeterRegistry meterRegistry,
+                         @Value("${feedback.db.slow-query-threshold:200ms}") Duration slowThreshold,
+                         @Value("${feedback.db.slow-query-log-interval:10s}") Duration logInterval,
+                         @Value("${feedback.db.n-plus-one-threshold:10}") int nPlusOneThreshold,
+                         @Value("${feedback.db.max-statement-shapes:500}") int maxShapes) {
+        this.meterRegistry = meterRegistry;
+        this.slowNanos = slowThreshold.toNanos();
+        this.logIntervalNanos = logInterval.toNanos();
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.maxShapes = maxShapes;
+    }
+
+    // A normalized statement, shared by every execution of the same shape
+    record Statement(String id, String kind, String shape) {
+    }
+
+    Statement statement(String sql) {
+        Statement known = bySql.get(sql);
+        if (known != null) {
+            return known;
+        }
+        String shape = shape(sql);
+        Statement statement = byShape.get(shape);
+        if (statement == null) {
+            String kind = kind(shape);
+            // Past the cap new shapes share one id per kind, so a runaway query generator cannot explode the meters
+            String id;
+            if (byShape.size() < maxShapes) {
+                Matcher table = TABLE.matcher(shape);
+                id = kind + " " + (table.find() ? table.group(1).replace("\"", "").toLowerCase(Locale.ROOT) : "?")
+                        + "#" + String.format("%06x", shape.hashCode() & 0xFFFFFF);
+            } else {
+                id = kind + " other";
+            }
+            statement = new Statement(id, kind, shape);
+            if (!id.endsWith(" other")) {
+                statement = Objects.requireNonNullElse(byShape.putIfAbsent(shape, statement), statement);
+            }
+        }
+        // Raw SQL differs from the shape only in literals and IN list lengths; caching it skips the regexes
+        if (bySql.size() < SQL_CACHE_SIZE) {
+            bySql.putIfAbsent(sql, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * Called after each execution. rows is the update count, or -1 for queries whose rows are
+     * only known once their result set is read (see {@link #recordRows}).
+     */
+    void recordExecution(Statement statement, long nanos, long rows, List<String> binds) {
+        RequestStats stats = request.get();
+        String endpoint = stats == null ? BACKGROUND : stats.endpoint;
+        Timer.builder("feedback.db.statements")
+                .tag("statement", statement.id())
+                .tag("kind", statement.kind())
+                .tag("endpoint", endpoint)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (rows >= 0) {
+            recordRows(statement, rows);
+        }
+        if (stats != null && statement.kind().equals("select")) {
+            stats.selects.merge(statement, 1, Integer::sum);
+        }
+        Capture current = capture.get();
+        if (current != null) {
+            current.statements.add(statement);
+        }
+        if (nanos >= slowNanos) {
+            Counter.builder("feedback.db.slow").tag("statement", statement.id()).register(meterRegistry).increment();
+            long suppressed = sampler("slow|" + statement.id()).acquire();
+            if (suppressed >= 0) {
+                logger.warn("Slow statement {} on {}: {} ms, binds {}{}: {}", statement.id(), endpoint,
+                        TimeUnit.NANOSECONDS.toMillis(nanos), binds,
+                        suppressed > 0 ? " (" + suppressed + " more since last logged)" : "", statement.shape());
+            }
+        }
+    }
+
+    void recordRows(Statement statement, long rows) {
+        RequestStats stats = request.get();
+        DistributionSummary.builder("feedback.db.rows")
+                .tag("statement", statement.id())
+                .tag("endpoint", stats == null ? BACKGROUND : stats.endpoint)
+                .register(meterRegistry)
+                .record(rows);
+    }
+
+    void beginRequest(String endpoint) {
+        request.set(new RequestStats(endpoint));
+    }
+
+    void endRequest() {
+        RequestStats stats = request.get();
+        request.remove();
+        if (stats == null) {
+            return;
+        }
+        stats.selects.forEach((statement, count) -> {
+            if (count < nPlusOneThreshold) {
+                return;
+            }
+            Counter.builder("feedback.db.n_plus_one")
+                    .tag("statement", statement.id())
+                    .tag("endpoint", stats.endpoint)
+                    .register(meterRegistry)
+                    .increment();
+            long suppressed = sampler("n+1|" + stats.endpoint + "|" + statement.id()).acquire();
+            if (suppressed >= 0) {
+                logger.warn("Possible N+1 on {}: {} ran {} times in one request: {}", stats.endpoint, statement.id(),
+                        count, statement.shape());
+            }
+        });
+    }
+
+    /**
+     * Records every statement the calling thread runs until closed, for tests and ad-hoc
+     * investigations: wrap a MockMvc call and assert on the statement count of that endpoint.
+     */
+    public Capture capture() {
+        Capture started = new Capture();
+        capture.set(started);
+        return started;
+    }
+
+    public final class Capture implements AutoCloseable {
+        private final List<Statement> statements = new ArrayList<>();
+
+        private Capture() {
+        }
+
+        public int count() {
+            return statements.size();
+        }
+
+        public long count(String kind) {
+            return statements.stream().filter(statement -> statement.kind().equals(kind)).count();
+        }
+
+        // Statement ids in execution order
+        public List<String> statementIds() {
+            return statements.stream().map(Statement::id).toList();
+        }
+
+        // Statement shapes in execution order, literals as ?, e.g. to EXPLAIN them against the test database
+        public List<String> sql() {
+            return statements.stream().map(Statement::shape).toList();
+        }
+
+        // SELECT shapes run at least n-plus-one-threshold times, with their counts
+        public Map<String, Integer> repeatedSelects() {
+            Map<String, Integer> counts = new HashMap<>();
+            statements.stream().filter(statement -> statement.kind().equals("select"))
+                    .forEach(statement -> counts.merge(statement.id(), 1, Integer::sum));
+            counts.values().removeIf(count -> count < nPlusOneThreshold);
+            return counts;
+        }
+
+        @Override
+        public void close() {
+            capture.remove();
+        }
+    }
+
+    static String shape(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = withoutNumbers(shape);
+        shape = WHITESPACE.matcher(shape).replaceAll(" ").trim();
+        return IN_LIST.matcher(shape).replaceAll("in (?...)");
+    }
+
+    // Numbers become ?, except ordinal ORDER BY / GROUP BY items: "order by 2" and "order by 3" are different statements
+    private static String withoutNumbers(String sql) {
+        StringBuilder shape = new StringBuilder();
+        Matcher clause = BY_CLAUSE.matcher(sql);
+        int last = 0;
+        while (clause.find()) {
+            shape.append(NUMBER_LITERAL.matcher(sql.substring(last, clause.start(1))).replaceAll("?"));
+            String[] items = clause.group(1).split(",", -1);
+            for (int i = 0; i < items.length; i++) {
+                shape.append(i == 0 ? "" : ",").append(ORDINAL_ITEM.matcher(items[i]).matches() ? items[i]
+                        : NUMBER_LITERAL.matcher(items[i]).replaceAll("?"));
+            }
+            last = clause.end(1);
+        }
+        return shape.append(NUMBER_LITERAL.matcher(sql.substring(last)).replaceAll("?")).toString();
+    }
+
+    private static String kind(String shape) {
+        int end = 0;
+        while (end < shape.length() && Character.isLetter(shape.charAt(end))) {
+            end++;
+        }
+        String keyword = shape.substring(0, end).toLowerCase(Locale.ROOT);
+        return switch (keyword) {
+            case "select", "with" -> "select";
+            case "insert", "update", "delete", "merge" -> keyword;
+            default -> "other";
+        };
+    }
+
+    private LogSampler sampler(String key) {
+        return samplers.computeIfAbsent(key, k -> new LogSampler());
+    }
+
+    // Lets one log line through per interval and counts the ones it held back
+    private final class LogSampler {
+        private final AtomicLong lastLogged = new AtomicLong(System.nanoTime() - logIntervalNanos);
+        private final AtomicLong suppressed = new AtomicLong();
+
+        // The number suppressed since the last line if this one may be logged, otherwise -1
+        long acquire() {
+            long now = System.nanoTime();
+            long last = lastLogged.get();
+            if (now - last >= logIntervalNanos && lastLogged.compareAndSet(last, now)) {
+                return suppressed.getAndSet(0);
+            }
+            suppressed.incrementAndGet();
+            return -1;
+        }
+    }
+
+    private static final class RequestStats {
+        private final String endpoint;
+        private final Map<Statement, Integer> selects = new HashMap<>();
+
+        private RequestStats(String endpoint) {
+            this.endpoint = endpoint;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.balancee.backendtask.persistence;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// Tags statements with the handler's route ("GET /api/admin/feedback") and closes the request's N+1 check
+@Component
+public class QueryProfilingInterceptor implements AsyncHandlerInterceptor {
+    private final QueryProfiler profiler;
+
+    public QueryProfilingInterceptor(QueryProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        profiler.beginRequest(request.getMethod() + " " + (pattern == null ? "unmapped" : pattern));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        profiler.endRequest();
+    }
+
+    // Streaming responses carry on in other threads; this one is free for the next request
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        profiler.endRequest();
+    }
+}
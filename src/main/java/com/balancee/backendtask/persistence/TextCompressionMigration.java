@@ -0,0 +1,119 @@
+package com.balancee.backendtask.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Moves text written before compression existed into the *_data columns. Those rows still have
+ * their text in the old varchar column (message or response) and nothing in the new one, so the
+ * entities would load them without text. Runs once per startup, before the application takes
+ * traffic, one chunk per transaction; the old column is left in place, emptied, and can be
+ * dropped by hand afterwards. Also publishes the codec totals as feedback.text.* meters.
+ */
+@Component
+public class TextCompressionMigration {
+    private static final Logger logger = LoggerFactory.getLogger(TextCompressionMigration.class);
+
+    private record TextColumn(String table, String legacy, String data) {
+    }
+
+    private static final List<TextColumn> COLUMNS = List.of(
+            new TextColumn("feedback", "message", "message_data"),
+            new TextColumn("admin_response", "response", "response_data"),
+            new TextColumn("archived_feedback", "message", "message_data"),
+            new TextColumn("archived_admin_response", "response", "response_data"));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate chunkReader;
+    private final TransactionTemplate transactionTemplate;
+
+    // The EntityManagerFactory is only a dependency so the schema has been updated before this runs
+    public TextCompressionMigration(DataSource dataSource, TransactionTemplate transactionTemplate,
+                                    EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry,
+                                    @Value("${feedback.compression.migration-chunk-size:500}") int chunkSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.chunkReader = new JdbcTemplate(dataSource);
+        this.chunkReader.setMaxRows(chunkSize);
+        this.transactionTemplate = transactionTemplate;
+
+        FunctionCounter.builder("feedback.text.bytes", CompressedText.textBytes, adder -> adder.sum())
+                .tag("form", "text").baseUnit("bytes").register(meterRegistry);
+        FunctionCounter.builder("feedback.text.bytes", CompressedText.storedBytes, adder -> adder.sum())
+                .tag("form", "stored").baseUnit("bytes").register(meterRegistry);
+        FunctionCounter.builder("feedback.text.compressed", CompressedText.compressed, adder -> adder.sum())
+                .register(meterRegistry);
+        FunctionCounter.builder("feedback.text.decoded", CompressedText.decoded, adder -> adder.sum())
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void migrate() {
+        for (TextColumn column : COLUMNS) {
+            if (hasColumn(column.table(), column.legacy())) {
+                migrate(column);
+            }
+        }
+    }
+
+    private void migrate(TextColumn column) {
+        long start = System.nanoTime();
+        long rows = 0;
+        long textChars = 0;
+        long storedBytes = 0;
+        String select = "SELECT id, " + column.legacy() + " FROM " + column.table()
+                + " WHERE " + column.legacy() + " IS NOT NULL";
+        // COALESCE keeps text the application already wrote to the new column
+        String update = "UPDATE " + column.table() + " SET " + column.data() + " = COALESCE(" + column.data()
+                + ", ?), " + column.legacy() + " = NULL WHERE id = ?";
+        while (true) {
+            List<Object[]> chunk = new ArrayList<>();
+            long[] sizes = {0, 0};
+            transactionTemplate.executeWithoutResult(status -> {
+                chunkReader.query(select, resultSet -> {
+                    String text = resultSet.getString(2);
+                    CompressedText encoded = CompressedText.of(text);
+                    sizes[0] += text.length();
+                    sizes[1] += encoded.stored().length;
+                    chunk.add(new Object[]{encoded.stored(), resultSet.getObject(1)});
+                });
+                if (!chunk.isEmpty()) {
+                    jdbcTemplate.batchUpdate(update, chunk);
+                }
+            });
+            if (chunk.isEmpty()) {
+                break;
+            }
+            rows += chunk.size();
+            textChars += sizes[0];
+            storedBytes += sizes[1];
+            logger.debug("Moved {} rows of {}.{} into {} so far", rows, column.table(), column.legacy(), column.data());
+        }
+        if (rows > 0) {
+            logger.info("Moved {} rows of {}.{} into {} in {} ms: {} characters of text now take {} bytes",
+                    rows, column.table(), column.legacy(), column.data(), (System.nanoTime() - start) / 1_000_000,
+                    textChars, storedBytes);
+        }
+    }
+
+    private boolean hasColumn(String table, String column) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS "
+                + "WHERE LOWER(TABLE_NAME) = ? AND LOWER(COLUMN_NAME) = ?", Integer.class,
+                table.toLowerCase(Locale.ROOT), column.toLowerCase(Locale.ROOT));
+        return count != null && count > 0;
+    }
+}
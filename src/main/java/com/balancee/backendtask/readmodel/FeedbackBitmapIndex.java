@@ -0,0 +1,520 @@
+package com.balancee.backendtask.readmodel;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.balancee.backendtask.events.FeedbackEvent;
+import com.balancee.backendtask.model.Category;
+import com.balancee.backendtask.model.Feedback;
+import com.balancee.backendtask.model.Priority;
+import com.balancee.backendtask.model.Status;
+import com.balancee.backendtask.repository.FeedbackColumns;
+import com.balancee.backendtask.repository.FeedbackFilter;
+import com.balancee.backendtask.repository.FeedbackRepository;
+import com.balancee.backendtask.repository.FeedbackSort;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Columnar in-memory copy of the filterable Feedback attributes. Every row gets an int ordinal;
+ * enums and rating are byte columns, createdAt an epoch-micros column, and each enum value and
+ * rating has a Roaring bitmap of the ordinals holding it. A listing filter is a bitmap
+ * intersection, its count the cardinality, and the page is chosen from the columns, so the
+ * database only loads the page's rows by id.
+ *
+ * Kept current by the entity listener and by the events of the single-statement updates. A
+ * rebuild streams the table into fresh columns and swaps them in; writes during the rebuild
+ * are replayed onto the new columns. Writes it cannot see (another instance, plain SQL) are
+ * caught when the page is loaded: if a row is missing or no longer matches the filter, the
+ * listing falls back to SQL, the loaded rows are written back into the index, and the index is
+ * rebuilt on the next check.
+ */
+@Component
+public class FeedbackBitmapIndex {
+    private static final Logger logger = LoggerFactory.getLogger(FeedbackBitmapIndex.class);
+    private static final Set<String> SORTABLE = Set.of("createdAt", "rating", "category", "status", "priority", "id");
+
+    private final FeedbackRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Timer bitmapTimer;
+    private final Timer sqlTimer;
+    private final boolean enabled;
+    private final int maxWindow;
+
+    // Guarded by lock
+    private Columns columns = new Columns();
+    private List<Consumer<Columns>> pendingDuringRebuild;
+    private boolean ready;
+    private volatile boolean staleDetected;
+
+    public FeedbackBitmapIndex(FeedbackRepository repository, TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${feedback.readmodel.enabled:true}") boolean enabled,
+                               @Value("${feedback.readmodel.max-window:10000}") int maxWindow) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.maxWindow = maxWindow;
+        this.bitmapTimer = Timer.builder("feedback.listing.query").tag("path", "bitmap").register(meterRegistry);
+        this.sqlTimer = Timer.builder("feedback.listing.query").tag("path", "sql").register(meterRegistry);
+        Gauge.builder("feedback.readmodel.rows", this, FeedbackBitmapIndex::liveRows).register(meterRegistry);
+        Gauge.builder("feedback.readmodel.bitmap.bytes", this, FeedbackBitmapIndex::bitmapBytes).register(meterRegistry);
+    }
+
+    /**
+     * Admin listing over the live table: answered from the bitmaps when the filter and sort allow it,
+     * otherwise (or while the index is not ready) by the Specification query.
+     */
+    public Page<Feedback> findAll(FeedbackFilter filter, Pageable pageable) {
+        long start = System.nanoTime();
+        Optional<Page<Feedback>> page = enabled ? query(filter, pageable) : Optional.empty();
+        if (page.isPresent()) {
+            bitmapTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return page.get();
+        }
+        start = System.nanoTime();
+        Page<Feedback> result = repository.findAll(filter.<Feedback>toSpecification(),
+                FeedbackSort.forQuery(filter, pageable));
+        sqlTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    private Optional<Page<Feedback>> query(FeedbackFilter filter, Pageable pageable) {
+        List<Sort.Order> orders = pageable.getSort().toList();
+        if (orders.stream().anyMatch(order -> !SORTABLE.contains(order.getProperty()))
+                || pageable.getOffset() + pageable.getPageSize() > maxWindow) {
+            return Optional.empty();
+        }
+
+        List<UUID> ids;
+        long total;
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+            Columns c = columns;
+            RoaringBitmap candidates = c.matching(filter);
+            long from = filter.getStartDate() != null ? toMicros(filter.getStartDate()) : Long.MIN_VALUE;
+            long to = filter.getEndDate() != null ? toMicros(filter.getEndDate()) : Long.MAX_VALUE;
+            int window = (int) (pageable.getOffset() + pageable.getPageSize());
+            long[] counted = new long[1];
+            int[] selected = c.top(candidates, from, to, orders, window, counted);
+            total = counted[0];
+            ids = new ArrayList<>(pageable.getPageSize());
+            for (int i = (int) pageable.getOffset(); i < selected.length; i++) {
+                ids.add(c.ids[selected[i]]);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Hydrate the page, keeping the index's order
+        Map<UUID, Feedback> loaded = new HashMap<>();
+        repository.findAllById(ids).forEach(feedback -> loaded.put(feedback.getId(), feedback));
+        if (loaded.size() != ids.size()) {
+            // A row changed behind the index's back (or its insert has not committed yet)
+            staleDetected = true;
+            return Optional.empty();
+        }
+        List<Feedback> drifted = loaded.values().stream().filter(feedback -> !filter.matches(feedback)).toList();
+        if (!drifted.isEmpty()) {
+            drifted.forEach(feedback -> upsert(feedback.getId(), feedback.getCategory(), feedback.getStatus(),
+                    feedback.getPriority(), feedback.getRating(), feedback.getCreatedAt()));
+            staleDetected = true;
+            return Optional.empty();
+        }
+        List<Feedback> content = ids.stream().map(loaded::get).toList();
+        return Optional.of(new PageImpl<>(content, pageable, total));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    // Compacts away ordinals of removed rows and recovers from writes the index did not see
+    @Scheduled(initialDelayString = "${feedback.readmodel.check-interval-ms:60000}",
+            fixedDelayString = "${feedback.readmodel.check-interval-ms:60000}")
+    public void checkHealth() {
+        if (!enabled) {
+            return;
+        }
+        boolean compact;
+        lock.readLock().lock();
+        try {
+            compact = ready && columns.size > 1024 && columns.live.getCardinality() < columns.size / 2;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (staleDetected || compact) {
+            staleDetected = false;
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (pendingDuringRebuild != null) {
+                return;
+            }
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        long start = System.nanoTime();
+        Columns fresh = new Columns();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<FeedbackColumns> rows = repository.streamColumnsBy()) {
+                    rows.forEach(row -> fresh.upsert(row.getId(), row.getCategory(), row.getStatus(), row.getPriority(),
+                            row.getRating(), row.getCreatedAt()));
+                }
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.error("Feedback bitmap index rebuild failed, listings use SQL", e);
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            // Writes that raced with the scan; every operation is idempotent, so replaying is safe
+            pendingDuringRebuild.forEach(operation -> operation.accept(fresh));
+            pendingDuringRebuild = null;
+            fresh.runOptimize();
+            columns = fresh;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Feedback bitmap index rebuilt with {} rows in {} ms", fresh.live.getCardinality(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @EventListener
+    public void onFeedbackEvent(FeedbackEvent event) {
+        switch (event.type()) {
+            case STATUS_CHANGED -> apply(c -> c.setStatus(event.feedbackId(), event.status()));
+            case PRIORITY_CHANGED -> apply(c -> c.setPriority(event.feedbackId(), event.priority()));
+            case ARCHIVED -> remove(event.feedbackId());
+            default -> {
+            }
+        }
+    }
+
+    void upsert(UUID id, Category category, Status status, Priority priority, int rating, LocalDateTime createdAt) {
+        apply(c -> c.upsert(id, category, status, priority, rating, createdAt));
+    }
+
+    void remove(UUID id) {
+        apply(c -> c.remove(id));
+    }
+
+    private void apply(Consumer<Columns> operation) {
+        lock.writeLock().lock();
+        try {
+            operation.accept(columns);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(operation);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private double liveRows() {
+        lock.readLock().lock();
+        try {
+            return columns.live.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private double bitmapBytes() {
+        lock.readLock().lock();
+        try {
+            return columns.bitmapBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // TIMESTAMP columns keep microseconds, so micros compare like the SQL path does
+    private static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    // Sort rank of each enum constant by name: EnumType.STRING columns sort alphabetically in SQL
+    private static byte[] nameRanks(Enum<?>[] values) {
+        Enum<?>[] sorted = values.clone();
+        Arrays.sort(sorted, Comparator.comparing(Enum::name));
+        byte[] ranks = new byte[values.length];
+        for (int i = 0; i < sorted.length; i++) {
+            ranks[sorted[i].ordinal()] = (byte) i;
+        }
+        return ranks;
+    }
+
+    private static RoaringBitmap[] bitmaps(int count) {
+        RoaringBitmap[] bitmaps = new RoaringBitmap[count];
+        for (int i = 0; i < count; i++) {
+            bitmaps[i] = new RoaringBitmap();
+        }
+        return bitmaps;
+    }
+
+    private static final class Columns {
+        private static final byte NONE = -1;
+        private static final byte[] CATEGORY_RANK = nameRanks(Category.values());
+        private static final byte[] STATUS_RANK = nameRanks(Status.values());
+        private static final byte[] PRIORITY_RANK = nameRanks(Priority.values());
+
+        private UUID[] ids = new UUID[1024];
+        private byte[] categories = new byte[1024];
+        private byte[] statuses = new byte[1024];
+        private byte[] priorities = new byte[1024];
+        private byte[] ratings = new byte[1024];
+        private long[] createdAt = new long[1024];
+        private int size;
+        private final Map<UUID, Integer> ordinals = new HashMap<>();
+
+        private final RoaringBitmap live = new RoaringBitmap();
+        private final RoaringBitmap[] byCategory = bitmaps(Category.values().length);
+        private final RoaringBitmap[] byStatus = bitmaps(Status.values().length);
+        private final RoaringBitmap[] byPriority = bitmaps(Priority.values().length);
+        // Index 0 collects ratings outside 1..5, which validation normally prevents
+        private final RoaringBitmap[] byRating = bitmaps(6);
+
+        void upsert(UUID id, Category category, Status status, Priority priority, int rating, LocalDateTime created) {
+            Integer ordinal = ordinals.get(id);
+            if (ordinal == null) {
+                ordinal = size++;
+                ensureCapacity(size);
+                ordinals.put(id, ordinal);
+                ids[ordinal] = id;
+                live.add(ordinal);
+            }
+            int row = ordinal;
+            categories[row] = move(byCategory, row, categories[row], category);
+            statuses[row] = move(byStatus, row, statuses[row], status);
+            priorities[row] = move(byPriority, row, priorities[row], priority);
+            int ratingSlot = rating >= 1 && rating <= 5 ? rating : 0;
+            if (ratings[row] != ratingSlot || !byRating[ratingSlot].contains(row)) {
+                byRating[ratings[row]].remove(row);
+                byRating[ratingSlot].add(row);
+                ratings[row] = (byte) ratingSlot;
+            }
+            createdAt[row] = created != null ? toMicros(created) : 0;
+        }
+
+        void setStatus(UUID id, Status status) {
+            Integer row = ordinals.get(id);
+            if (row != null) {
+                statuses[row] = move(byStatus, row, statuses[row], status);
+            }
+        }
+
+        void setPriority(UUID id, Priority priority) {
+            Integer row = ordinals.get(id);
+            if (row != null) {
+                priorities[row] = move(byPriority, row, priorities[row], priority);
+            }
+        }
+
+        void remove(UUID id) {
+            Integer row = ordinals.remove(id);
+            if (row == null) {
+                return;
+            }
+            live.remove(row);
+            move(byCategory, row, categories[row], null);
+            move(byStatus, row, statuses[row], null);
+            move(byPriority, row, priorities[row], null);
+            byRating[ratings[row]].remove(row);
+            ids[row] = null;
+        }
+
+        // New rows start with code 0 in every column, so the old bitmap is only touched if it holds the row
+        private static byte move(RoaringBitmap[] bitmaps, int row, byte oldCode, Enum<?> value) {
+            byte newCode = value != null ? (byte) value.ordinal() : NONE;
+            if (oldCode != NONE && bitmaps[oldCode].contains(row) && oldCode != newCode) {
+                bitmaps[oldCode].remove(row);
+            }
+            if (newCode != NONE) {
+                bitmaps[newCode].add(row);
+            }
+            return newCode;
+        }
+
+        RoaringBitmap matching(FeedbackFilter filter) {
+            List<RoaringBitmap> required = new ArrayList<>(5);
+            required.add(live);
+            if (filter.getCategory() != null) {
+                required.add(byCategory[filter.getCategory().ordinal()]);
+            }
+            if (filter.getStatus() != null) {
+                required.add(byStatus[filter.getStatus().ordinal()]);
+            }
+            if (filter.getPriority() != null) {
+                required.add(byPriority[filter.getPriority().ordinal()]);
+            }
+            if (filter.getRating() != null) {
+                int rating = filter.getRating();
+                required.add(rating >= 1 && rating <= 5 ? byRating[rating] : new RoaringBitmap());
+            }
+            // Smallest first keeps the intermediate results small
+            required.sort(Comparator.comparingLong(RoaringBitmap::getLongCardinality));
+            RoaringBitmap result = required.get(0).clone();
+            for (int i = 1; i < required.size() && !result.isEmpty(); i++) {
+                result.and(required.get(i));
+            }
+            return result;
+        }
+
+        /**
+         * The first window ordinals of the candidates within [from, to] in sort order, using a bounded
+         * heap. The listing sorts end in createdAt and id, so rows tie the way they do in SQL; only an
+         * unsorted listing falls back to ordinal order. counted[0] receives the number of matching rows.
+         */
+        int[] top(RoaringBitmap candidates, long from, long to, List<Sort.Order> orders, int window, long[] counted) {
+            boolean rangeFilter = from != Long.MIN_VALUE || to != Long.MAX_VALUE;
+            if (orders.isEmpty() && !rangeFilter) {
+                counted[0] = candidates.getLongCardinality();
+                int[] result = new int[(int) Math.min(window, counted[0])];
+                IntIterator it = candidates.getIntIterator();
+                for (int i = 0; i < result.length; i++) {
+                    result[i] = it.next();
+                }
+                return result;
+            }
+
+            Comparator<Integer> inOrder = (a, b) -> {
+                for (Sort.Order order : orders) {
+                    int cmp = order.getProperty().equals("id") ? compareIds(ids[a], ids[b])
+                            : Long.compare(key(a, order), key(b, order));
+                    if (cmp != 0) {
+                        return order.isDescending() ? -cmp : cmp;
+                    }
+                }
+                return Integer.compare(a, b);
+            };
+            // Max-heap on sort order: the root is the worst row kept so far
+            PriorityQueue<Integer> heap = new PriorityQueue<>(Math.max(1, window), inOrder.reversed());
+            long count = 0;
+            IntIterator it = candidates.getIntIterator();
+            while (it.hasNext()) {
+                int row = it.next();
+                long created = createdAt[row];
+                if (created < from || created > to) {
+                    continue;
+                }
+                count++;
+                if (window == 0) {
+                    continue;
+                }
+                if (heap.size() < window) {
+                    heap.add(row);
+                } else if (inOrder.compare(row, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(row);
+                }
+            }
+            counted[0] = count;
+            Integer[] sorted = heap.toArray(new Integer[0]);
+            Arrays.sort(sorted, inOrder);
+            return Arrays.stream(sorted).mapToInt(Integer::intValue).toArray();
+        }
+
+        // H2 orders UUIDs by their two halves compared unsigned, unlike UUID.compareTo
+        private static int compareIds(UUID a, UUID b) {
+            int cmp = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+            return cmp != 0 ? cmp : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+        }
+
+        private long key(int row, Sort.Order order) {
+            return switch (order.getProperty()) {
+                case "createdAt" -> createdAt[row];
+                case "rating" -> ratings[row];
+                case "category" -> categories[row] == NONE ? -1 : CATEGORY_RANK[categories[row]];
+                case "status" -> statuses[row] == NONE ? -1 : STATUS_RANK[statuses[row]];
+                case "priority" -> priorities[row] == NONE ? -1 : PRIORITY_RANK[priorities[row]];
+                default -> 0;
+            };
+        }
+
+        void runOptimize() {
+            live.runOptimize();
+            for (RoaringBitmap[] group : List.of(byCategory, byStatus, byPriority, byRating)) {
+                for (RoaringBitmap bitmap : group) {
+                    bitmap.runOptimize();
+                }
+            }
+        }
+
+        long bitmapBytes() {
+            long bytes = live.getLongSizeInBytes();
+            for (RoaringBitmap[] group : List.of(byCategory, byStatus, byPriority, byRating)) {
+                for (RoaringBitmap bitmap : group) {
+                    bytes += bitmap.getLongSizeInBytes();
+                }
+            }
+            return bytes;
+        }
+
+        private void ensureCapacity(int needed) {
+            if (needed <= ids.length) {
+                return;
+            }
+            int capacity = Math.max(needed, ids.length + (ids.length >> 1));
+            ids = Arrays.copyOf(ids, capacity);
+            categories = Arrays.copyOf(categories, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+            createdAt = Arrays.copyOf(createdAt, capacity);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.balancee.backendtask.readmodel;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+import com.balancee.backendtask.model.Feedback;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+// Keeps the bitmap index in step with entity writes. Single-statement JPQL updates bypass
+// these callbacks; those paths publish FeedbackEvents, which the index also listens to.
+public class FeedbackIndexListener {
+    // Resolved lazily: the index needs the repositories, which need the EntityManagerFactory creating this listener
+    private final ObjectProvider<FeedbackBitmapIndex> index;
+
+    public FeedbackIndexListener(ObjectProvider<FeedbackBitmapIndex> index) {
+        this.index = index;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Feedback feedback) {
+        index.ifAvailable(i -> i.upsert(feedback.getId(), feedback.getCategory(), feedback.getStatus(),
+                feedback.getPriority(), feedback.getRating(), feedback.getCreatedAt()));
+    }
+
+    @PostRemove
+    public void onRemove(Feedback feedback) {
+        index.ifAvailable(i -> i.remove(feedback.getId()));
+    }
+}
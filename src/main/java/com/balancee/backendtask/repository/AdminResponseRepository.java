@@ -3,10 +3,19 @@ package com.balancee.backendtask.repository;
 import com.balancee.backendtask.model.AdminResponse;
 import com.balancee.backendtask.model.Feedback;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 public interface AdminResponseRepository extends JpaRepository<AdminResponse, UUID> {
     List<AdminResponse> findByFeedback(Feedback feedback);
+    List<AdminResponse> findByFeedbackIdInOrderByCreatedAtAsc(Collection<UUID> feedbackIds);
+
+    @Modifying
+    @Query("delete from AdminResponse r where r.feedback.id in :feedbackIds")
+    int deleteByFeedbackIds(@Param("feedbackIds") Collection<UUID> feedbackIds);
 }
\ No newline at end of file
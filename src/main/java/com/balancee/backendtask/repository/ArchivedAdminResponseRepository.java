@@ -0,0 +1,21 @@
+package com.balancee.backendtask.repository;
+
+import com.balancee.backendtask.model.ArchivedAdminResponse;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface ArchivedAdminResponseRepository extends JpaRepository<ArchivedAdminResponse, UUID> {
+    List<ArchivedAdminResponse> findByFeedbackId(UUID feedbackId);
+
+    @Modifying
+    @Query(value = "INSERT INTO archived_admin_response (id, feedback_id, response_data, admin_id, created_at) " +
+            "SELECT id, feedback_id, response_data, admin_id, created_at FROM admin_response " +
+            "WHERE feedback_id IN (:feedbackIds)", nativeQuery = true)
+    int copyFromHot(@Param("feedbackIds") Collection<UUID> feedbackIds);
+}
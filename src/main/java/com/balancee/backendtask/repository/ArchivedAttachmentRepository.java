@@ -0,0 +1,26 @@
+package com.balancee.backendtask.repository;
+
+import com.balancee.backendtask.model.ArchivedAttachment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface ArchivedAttachmentRepository extends JpaRepository<ArchivedAttachment, UUID> {
+    List<ArchivedAttachment> findByFeedbackId(UUID feedbackId);
+
+    @Query("select a.filePath from ArchivedAttachment a")
+    List<String> findAllFilePaths();
+
+    @Modifying
+    @Query(value = "INSERT INTO archived_attachment (id, feedback_id, file_name, content_type, file_size, file_path, " +
+            "uploaded_at, processing_state, checksum, detected_content_type, compressed) " +
+            "SELECT id, feedback_id, file_name, content_type, file_size, file_path, uploaded_at, processing_state, " +
+            "checksum, detected_content_type, compressed FROM attachment WHERE feedback_id IN (:feedbackIds)",
+            nativeQuery = true)
+    int copyFromHot(@Param("feedbackIds") Collection<UUID> feedbackIds);
+}
@@ -0,0 +1,29 @@
+package com.balancee.backendtask.repository;
+
+import com.balancee.backendtask.model.ArchivedFeedback;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface ArchivedFeedbackRepository extends JpaRepository<ArchivedFeedback, UUID>,
+        JpaSpecificationExecutor<ArchivedFeedback> {
+
+    @Modifying
+    @Query(value = "INSERT INTO archived_feedback (id, user_id, message_data, rating, category, status, priority, " +
+            "created_at, updated_at, archived_at) SELECT id, user_id, message_data, rating, category, status, priority, " +
+            "created_at, updated_at, LOCALTIMESTAMP FROM feedback WHERE id IN (:ids)", nativeQuery = true)
+    int copyFromHot(@Param("ids") Collection<UUID> ids);
+
+    @Query("select f.id as feedbackId, " +
+            "(select count(r) from ArchivedAdminResponse r where r.feedbackId = f.id) as responseCount, " +
+            "(select count(a) from ArchivedAttachment a where a.feedbackId = f.id) as attachmentCount, " +
+            "(select max(r.createdAt) from ArchivedAdminResponse r where r.feedbackId = f.id) as lastResponseAt " +
+            "from ArchivedFeedback f where f.id in :ids")
+    List<FeedbackCounts> findCounts(@Param("ids") Collection<UUID> ids);
+}
@@ -2,11 +2,44 @@ package com.balancee.backendtask.repository;
 
 import com.balancee.backendtask.model.Attachment;
 import com.balancee.backendtask.model.Feedback;
+import com.balancee.backendtask.model.ProcessingState;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 public interface AttachmentRepository extends JpaRepository<Attachment, UUID> {
     List<Attachment> findByFeedback(Feedback feedback);
+
+    // Pending rows due for an attempt, plus rows left PROCESSING by a worker that died before finishing
+    @Query("select a.id from Attachment a where (a.processingState = :pending " +
+            "and (a.nextAttemptAt is null or a.nextAttemptAt <= :now)) " +
+            "or (a.processingState = :processing and a.processingUpdatedAt < :staleBefore) order by a.uploadedAt")
+    List<UUID> findIdsToProcess(@Param("pending") ProcessingState pending, @Param("processing") ProcessingState processing,
+                                @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore,
+                                Pageable pageable);
+
+    // Claims a row for one worker; returns 0 if another worker got it first or it isn't due yet
+    @Transactional
+    @Modifying
+    @Query("update Attachment a set a.processingState = :processing, a.processingUpdatedAt = :now " +
+            "where a.id = :id and ((a.processingState = :pending and (a.nextAttemptAt is null or a.nextAttemptAt <= :now)) " +
+            "or (a.processingState = :processing and a.processingUpdatedAt < :staleBefore))")
+    int claimForProcessing(@Param("id") UUID id, @Param("pending") ProcessingState pending,
+                           @Param("processing") ProcessingState processing, @Param("now") LocalDateTime now,
+                           @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Query("select a.filePath from Attachment a")
+    List<String> findAllFilePaths();
+
+    @Modifying
+    @Query("delete from Attachment a where a.feedback.id in :feedbackIds")
+    int deleteByFeedbackIds(@Param("feedbackIds") Collection<UUID> feedbackIds);
 }
\ No newline at end of file
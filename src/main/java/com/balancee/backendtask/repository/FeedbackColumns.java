@@ -0,0 +1,18 @@
+package com.balancee.backendtask.repository;
+
+import com.balancee.backendtask.model.Category;
+import com.balancee.backendtask.model.Priority;
+import com.balancee.backendtask.model.Status;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Interface projection of the filterable columns, used to build the bitmap read model
+public interface FeedbackColumns {
+    UUID getId();
+    Category getCategory();
+    Status getStatus();
+    Priority getPriority();
+    int getRating();
+    LocalDateTime getCreatedAt();
+}
@@ -0,0 +1,12 @@
+package com.balancee.backendtask.repository;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Per-feedback response/attachment aggregates for a listing page
+public interface FeedbackCounts {
+    UUID getFeedbackId();
+    long getResponseCount();
+    long getAttachmentCount();
+    LocalDateTime getLastResponseAt();
+}
@@ -0,0 +1,81 @@
+package com.balancee.backendtask.repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.domain.Specification;
+
+import com.balancee.backendtask.model.Category;
+import com.balancee.backendtask.model.Feedback;
+import com.balancee.backendtask.model.Priority;
+import com.balancee.backendtask.model.Status;
+
+import jakarta.persistence.criteria.Predicate;
+import lombok.Data;
+
+// Admin listing filters, shared by the listing, archive and bulk update paths.
+// Works for any entity exposing the Feedback attribute names (Feedback, ArchivedFeedback).
+@Data
+public class FeedbackFilter {
+    private Integer rating;
+    private Category category;
+    private Status status;
+    private Priority priority;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+
+    public static FeedbackFilter of(Optional<Integer> rating, Optional<Category> category, Optional<Status> status,
+                                    Optional<Priority> priority, Optional<LocalDateTime> startDate,
+                                    Optional<LocalDateTime> endDate) {
+        FeedbackFilter filter = new FeedbackFilter();
+        filter.setRating(rating.orElse(null));
+        filter.setCategory(category.orElse(null));
+        filter.setStatus(status.orElse(null));
+        filter.setPriority(priority.orElse(null));
+        filter.setStartDate(startDate.orElse(null));
+        filter.setEndDate(endDate.orElse(null));
+        return filter;
+    }
+
+    public boolean isEmpty() {
+        return rating == null && category == null && status == null && priority == null
+                && startDate == null && endDate == null;
+    }
+
+    // The toSpecification conditions, checked on a row that is already loaded
+    public boolean matches(Feedback feedback) {
+        return (rating == null || rating == feedback.getRating())
+                && (category == null || category == feedback.getCategory())
+                && (status == null || status == feedback.getStatus())
+                && (priority == null || priority == feedback.getPriority())
+                && (startDate == null || !feedback.getCreatedAt().isBefore(startDate))
+                && (endDate == null || !feedback.getCreatedAt().isAfter(endDate));
+    }
+
+    public <T> Specification<T> toSpecification() {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (rating != null) {
+                predicates.add(cb.equal(root.get("rating"), rating));
+            }
+            if (category != null) {
+                predicates.add(cb.equal(root.get("category"), category));
+            }
+            if (status != null) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            if (priority != null) {
+                predicates.add(cb.equal(root.get("priority"), priority));
+            }
+            if (startDate != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.<LocalDateTime>get("createdAt"), startDate));
+            }
+            if (endDate != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.<LocalDateTime>get("createdAt"), endDate));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
@@ -7,12 +7,26 @@ import com.balancee.backendtask.model.Priority;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
-public interface FeedbackRepository extends JpaRepository<Feedback, UUID> {
+public interface FeedbackRepository extends JpaRepository<Feedback, UUID>, JpaSpecificationExecutor<Feedback>,
+        FeedbackRepositoryCustom {
     List<Feedback> findByRating(int rating);
     List<Feedback> findByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
     List<Feedback> findByRatingAndCreatedAtBetween(int rating, LocalDateTime start, LocalDateTime end);
@@ -31,4 +45,53 @@ public interface FeedbackRepository extends JpaRepository<Feedback, UUID> {
     Page<Feedback> findByStatusAndCategory(Status status, Category category, Pageable pageable);
     Page<Feedback> findByPriority(Priority priority, Pageable pageable);
     Page<Feedback> findByPriorityAndCategory(Priority priority, Category category, Pageable pageable);
+
+    Optional<FeedbackSummary> findSummaryById(UUID id);
+    List<TriageCandidate> findCandidatesByStatus(Status status);
+
+    // Must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<FeedbackColumns> streamColumnsBy();
+
+    // Keyset pages of one user's feedback, newest first; both use the (user_id, created_at) index
+    List<Feedback> findByUserIdOrderByCreatedAtDescIdDesc(String userId, Pageable pageable);
+
+    @Query("select f from Feedback f where f.userId = :userId " +
+            "and (f.createdAt < :createdAt or (f.createdAt = :createdAt and f.id < :id)) " +
+            "order by f.createdAt desc, f.id desc")
+    List<Feedback> findByUserIdBefore(@Param("userId") String userId, @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") UUID id, Pageable pageable);
+
+    // One statement for the whole page, however many ids it has
+    @Query("select f.id as feedbackId, " +
+            "(select count(r) from AdminResponse r where r.feedback.id = f.id) as responseCount, " +
+            "(select count(a) from Attachment a where a.feedback.id = f.id) as attachmentCount, " +
+            "(select max(r.createdAt) from AdminResponse r where r.feedback.id = f.id) as lastResponseAt " +
+            "from Feedback f where f.id in :ids")
+    List<FeedbackCounts> findCounts(@Param("ids") Collection<UUID> ids);
+
+    // Locks the rows so the values read are the ones a bulk update in the same transaction replaces
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select f.id as id, f.userId as userId, f.status as status, f.priority as priority, f.version as version " +
+            "from Feedback f where f.id in :ids")
+    List<FeedbackState> lockStates(@Param("ids") Collection<UUID> ids);
+
+    // Set-based bulk update; a null status or priority leaves that column unchanged
+    @Modifying
+    @Query("update Feedback f set f.status = coalesce(:status, f.status), " +
+            "f.priority = coalesce(:priority, f.priority), f.updatedAt = :now, f.version = f.version + 1 " +
+            "where f.id in :ids")
+    int bulkUpdate(@Param("ids") Collection<UUID> ids, @Param("status") Status status,
+                   @Param("priority") Priority priority, @Param("now") LocalDateTime now);
+
+    // Archival
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select f.id from Feedback f where f.status in :statuses " +
+            "and coalesce(f.updatedAt, f.createdAt) < :cutoff order by f.createdAt")
+    List<UUID> findArchivableIds(@Param("statuses") Collection<Status> statuses,
+                                 @Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Modifying
+    @Query("delete from Feedback f where f.id in :ids")
+    int deleteByIds(@Param("ids") Collection<UUID> ids);
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.balancee.backendtask.repository;
+
+import com.balancee.backendtask.model.Feedback;
+import com.balancee.backendtask.model.Priority;
+import com.balancee.backendtask.model.Status;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+public interface FeedbackRepositoryCustom {
+    // Attributes a listing may project; message is the only potentially large one
+    Set<String> PROJECTABLE_FIELDS = Set.of("id", "userId", "message", "rating", "category", "status",
+            "priority", "createdAt", "updatedAt");
+
+    // Keyset scan over ids only: returns up to limit ids greater than after, ordered by id
+    List<UUID> findIds(Specification<Feedback> spec, UUID after, int limit);
+
+    // Selects only the given attributes as a tuple query; rows are not managed entities
+    <T> Page<Map<String, Object>> findProjected(Class<T> entityClass, Specification<T> spec,
+                                                List<String> fields, Pageable pageable);
+
+    // One conditional UPDATE that also returns the row as it was before it; empty when no row matched.
+    // A null expectedVersion skips the optimistic version check
+    Optional<Feedback> updateStatus(UUID id, Status status, Long expectedVersion, LocalDateTime now);
+
+    Optional<Feedback> updatePriority(UUID id, Priority priority, Long expectedVersion, LocalDateTime now);
+}
@@ -0,0 +1,161 @@
+package com.balancee.backendtask.repository;
+
+import com.balancee.backendtask.model.Category;
+import com.balancee.backendtask.model.Feedback;
+import com.balancee.backendtask.model.Priority;
+import com.balancee.backendtask.model.Status;
+import com.balancee.backendtask.persistence.CompressedText;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.query.NativeQuery;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+public class FeedbackRepositoryImpl implements FeedbackRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<UUID> findIds(Specification<Feedback> spec, UUID after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UUID> query = cb.createQuery(UUID.class);
+        Root<Feedback> root = query.from(Feedback.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        Predicate filter = spec.toPredicate(root, query, cb);
+        if (filter != null) {
+            predicates.add(filter);
+        }
+        if (after != null) {
+            predicates.add(cb.greaterThan(root.<UUID>get("id"), after));
+        }
+
+        query.select(root.<UUID>get("id"))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(root.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public <T> Page<Map<String, Object>> findProjected(Class<T> entityClass, Specification<T> spec,
+                                                       List<String> fields, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(entityClass);
+
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String field : fields) {
+            selections.add(root.get(field).alias(field));
+        }
+        query.multiselect(selections);
+        Predicate filter = spec.toPredicate(root, query, cb);
+        if (filter != null) {
+            query.where(filter);
+        }
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Tuple tuple : typedQuery.getResultList()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String field : fields) {
+                Object value = tuple.get(field);
+                row.put(field, value instanceof CompressedText text ? text.text() : value);
+            }
+            rows.add(row);
+        }
+        return PageableExecutionUtils.getPage(rows, pageable, () -> count(entityClass, spec));
+    }
+
+    private <T> long count(Class<T> entityClass, Specification<T> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> root = query.from(entityClass);
+        query.select(cb.count(root));
+        Predicate filter = spec.toPredicate(root, query, cb);
+        if (filter != null) {
+            query.where(filter);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @Override
+    @Transactional
+    public Optional<Feedback> updateStatus(UUID id, Status status, Long expectedVersion, LocalDateTime now) {
+        return updateReturningPrevious("status", status, id, expectedVersion, now);
+    }
+
+    @Override
+    @Transactional
+    public Optional<Feedback> updatePriority(UUID id, Priority priority, Long expectedVersion, LocalDateTime now) {
+        return updateReturningPrevious("priority", priority, id, expectedVersion, now);
+    }
+
+    // H2's OLD TABLE yields the rows an UPDATE changed as they were before it, so the previous value
+    // comes from the same statement that replaced it and cannot belong to another version
+    private Optional<Feedback> updateReturningPrevious(String column, Enum<?> value, UUID id, Long expectedVersion,
+                                                       LocalDateTime now) {
+        String sql = "select id, user_id, message_data, rating, category, status, priority, created_at, updated_at, version "
+                + "from old table (update feedback set " + column + " = :value, updated_at = :now, version = version + 1 "
+                + "where id = :id" + (expectedVersion == null ? "" : " and version = :expectedVersion") + ")";
+        NativeQuery<Object[]> query = entityManager.createNativeQuery(sql).unwrap(NativeQuery.class);
+        query.addScalar("id", UUID.class)
+                .addScalar("user_id", String.class)
+                .addScalar("message_data", byte[].class)
+                .addScalar("rating", Integer.class)
+                .addScalar("category", String.class)
+                .addScalar("status", String.class)
+                .addScalar("priority", String.class)
+                .addScalar("created_at", LocalDateTime.class)
+                .addScalar("updated_at", LocalDateTime.class)
+                .addScalar("version", Long.class);
+        query.setParameter("value", value.name())
+                .setParameter("now", now)
+                .setParameter("id", id);
+        if (expectedVersion != null) {
+            query.setParameter("expectedVersion", expectedVersion);
+        }
+        return query.getResultList().stream().findFirst().map(FeedbackRepositoryImpl::toFeedback);
+    }
+
+    private static Feedback toFeedback(Object[] row) {
+        Feedback feedback = new Feedback();
+        feedback.setId((UUID) row[0]);
+        feedback.setUserId((String) row[1]);
+        CompressedText message = CompressedText.fromStored((byte[]) row[2]);
+        feedback.setMessage(message == null ? null : message.text());
+        feedback.setRating((Integer) row[3]);
+        feedback.setCategory(row[4] == null ? null : Category.valueOf((String) row[4]));
+        feedback.setStatus(row[5] == null ? null : Status.valueOf((String) row[5]));
+        feedback.setPriority(row[6] == null ? null : Priority.valueOf((String) row[6]));
+        feedback.setCreatedAt((LocalDateTime) row[7]);
+        feedback.setUpdatedAt((LocalDateTime) row[8]);
+        feedback.setVersion((Long) row[9]);
+        return feedback;
+    }
+}
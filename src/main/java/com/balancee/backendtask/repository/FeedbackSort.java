@@ -0,0 +1,106 @@
+package com.balancee.backendtask.repository;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+// Sort orders the admin listing accepts, each one read straight off an index of Feedback and
+// ArchivedFeedback (H2 only skips the sort when the ORDER BY is a prefix of an index, with the
+// same directions). Keep in step with the @Table indexes of both entities. Every order ends in
+// createdAt and id, so it is total and SQL and the bitmap read model page rows the same way.
+public final class FeedbackSort {
+    public static final Sort DEFAULT = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    // Equality-filtered columns with a (column, created_at DESC) index, in the order one is picked
+    private static final List<String> INDEXED_FILTERS = List.of("status", "priority", "category", "rating");
+
+    private static final List<Sort> SUPPORTED = supported();
+
+    private FeedbackSort() {
+    }
+
+    private static List<Sort> supported() {
+        List<Sort> sorts = new ArrayList<>();
+        sorts.add(DEFAULT);
+        // Oldest first has its own index: H2 does not scan one backwards
+        sorts.add(Sort.by(Sort.Order.asc("createdAt"), Sort.Order.asc("id")));
+        for (String column : INDEXED_FILTERS) {
+            sorts.add(Sort.by(Sort.Order.asc(column), Sort.Order.desc("createdAt"), Sort.Order.desc("id")));
+        }
+        return List.copyOf(sorts);
+    }
+
+    /**
+     * Parses sortBy (comma-separated keys) and sortDir (one direction for all keys, one per key,
+     * or none for each key's indexed direction: createdAt descending, the others ascending).
+     * Ties are broken by createdAt descending unless it was given, then by id in createdAt's
+     * direction. Throws IllegalArgumentException for anything the indexes cannot serve.
+     */
+    public static Sort parse(String sortBy, String sortDir) {
+        String[] keys = sortBy.split(",");
+        String[] directions = sortDir == null || sortDir.isBlank() ? new String[0] : sortDir.split(",");
+        if (directions.length > 1 && directions.length != keys.length) {
+            throw new IllegalArgumentException("sortDir needs one direction or one per sortBy key");
+        }
+        List<Sort.Order> orders = new ArrayList<>();
+        for (int i = 0; i < keys.length; i++) {
+            String key = keys[i].trim();
+            String direction = directions.length == 0 ? (key.equals("createdAt") ? "desc" : "asc")
+                    : directions[directions.length == 1 ? 0 : i].trim().toLowerCase(Locale.ROOT);
+            if (!direction.equals("asc") && !direction.equals("desc")) {
+                throw new IllegalArgumentException("Unknown sort direction: " + direction);
+            }
+            orders.add(direction.equals("asc") ? Sort.Order.asc(key) : Sort.Order.desc(key));
+        }
+        Sort.Order createdAt = orders.stream().filter(order -> order.getProperty().equals("createdAt")).findFirst()
+                .orElse(null);
+        if (createdAt == null) {
+            createdAt = Sort.Order.desc("createdAt");
+            orders.add(createdAt);
+        }
+        orders.add(createdAt.isAscending() ? Sort.Order.asc("id") : Sort.Order.desc("id"));
+        Sort sort = Sort.by(orders);
+        if (!SUPPORTED.contains(sort)) {
+            throw new IllegalArgumentException("Unsupported sort " + describe(sort) + "; supported: "
+                    + SUPPORTED.stream().map(FeedbackSort::describe).collect(Collectors.joining(", ")));
+        }
+        return sort;
+    }
+
+    /**
+     * The pageable to run in SQL. A createdAt-descending listing filtered on one indexed column is
+     * ordered by that column first, which changes nothing (it has one value) but lets the database
+     * read the rows in order from that column's index instead of sorting the matches.
+     */
+    public static Pageable forQuery(FeedbackFilter filter, Pageable pageable) {
+        if (!pageable.getSort().equals(DEFAULT)) {
+            return pageable;
+        }
+        String column = null;
+        if (filter.getStatus() != null) {
+            column = "status";
+        } else if (filter.getPriority() != null) {
+            column = "priority";
+        } else if (filter.getCategory() != null) {
+            column = "category";
+        } else if (filter.getRating() != null) {
+            column = "rating";
+        }
+        if (column == null) {
+            return pageable;
+        }
+        Sort sort = Sort.by(Sort.Order.asc(column), Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+        return pageable.isPaged() ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort)
+                : Pageable.unpaged(sort);
+    }
+
+    private static String describe(Sort sort) {
+        return sort.stream().map(order -> order.getProperty() + ":" + order.getDirection().name().toLowerCase(Locale.ROOT))
+                .collect(Collectors.joining(","));
+    }
+}
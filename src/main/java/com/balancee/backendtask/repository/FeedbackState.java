@@ -0,0 +1,15 @@
+package com.balancee.backendtask.repository;
+
+import com.balancee.backendtask.model.Priority;
+import com.balancee.backendtask.model.Status;
+
+import java.util.UUID;
+
+// Interface projection of the audited fields, the version they were read at and who to notify
+public interface FeedbackState {
+    UUID getId();
+    String getUserId();
+    Status getStatus();
+    Priority getPriority();
+    Long getVersion();
+}
@@ -0,0 +1,15 @@
+package com.balancee.backendtask.repository;
+
+import com.balancee.backendtask.model.Category;
+import com.balancee.backendtask.model.Priority;
+import com.balancee.backendtask.model.Status;
+
+import java.util.UUID;
+
+// Interface projection: only these columns are selected
+public interface FeedbackSummary {
+    UUID getId();
+    Category getCategory();
+    Status getStatus();
+    Priority getPriority();
+}
@@ -0,0 +1,57 @@
+package com.balancee.backendtask.repository;
+
+import com.balancee.backendtask.model.OutboxMessage;
+import com.balancee.backendtask.model.OutboxState;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface OutboxRepository extends JpaRepository<OutboxMessage, UUID> {
+    // Due PENDING messages, and SENDING ones whose dispatcher went away mid-send
+    @Query("select m.id from OutboxMessage m where (m.state = :pending and m.nextAttemptAt <= :now) " +
+            "or (m.state = :sending and m.claimedAt < :staleBefore) order by m.nextAttemptAt")
+    List<UUID> findDispatchable(@Param("pending") OutboxState pending, @Param("sending") OutboxState sending,
+                                @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore,
+                                Pageable pageable);
+
+    // Repeats the dispatchable condition so two dispatchers never claim the same message
+    @Transactional
+    @Modifying
+    @Query("update OutboxMessage m set m.state = :sending, m.claimToken = :token, m.claimedAt = :now, " +
+            "m.attempts = m.attempts + 1 where m.id in :ids " +
+            "and ((m.state = :pending and m.nextAttemptAt <= :now) or (m.state = :sending and m.claimedAt < :staleBefore))")
+    int claim(@Param("ids") Collection<UUID> ids, @Param("token") UUID token, @Param("pending") OutboxState pending,
+              @Param("sending") OutboxState sending, @Param("now") LocalDateTime now,
+              @Param("staleBefore") LocalDateTime staleBefore);
+
+    List<OutboxMessage> findByClaimToken(UUID claimToken);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxMessage m set m.state = :sent, m.sentAt = :now, m.claimToken = null, m.lastError = null " +
+            "where m.id in :ids and m.claimToken = :token")
+    int markSent(@Param("ids") Collection<UUID> ids, @Param("token") UUID token, @Param("sent") OutboxState sent,
+                 @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxMessage m set m.state = :state, m.nextAttemptAt = :nextAttemptAt, m.claimToken = null, " +
+            "m.lastError = :error where m.id = :id and m.claimToken = :token")
+    int markUnsent(@Param("id") UUID id, @Param("token") UUID token, @Param("state") OutboxState state,
+                   @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("error") String error);
+
+    long countByState(OutboxState state);
+
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxMessage m where m.state = :sent and m.sentAt < :cutoff")
+    int deleteSentBefore(@Param("sent") OutboxState sent, @Param("cutoff") LocalDateTime cutoff);
+}
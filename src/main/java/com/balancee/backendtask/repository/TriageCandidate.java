@@ -0,0 +1,13 @@
+package com.balancee.backendtask.repository;
+
+import com.balancee.backendtask.model.Priority;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Interface projection used to rebuild the triage queue
+public interface TriageCandidate {
+    UUID getId();
+    Priority getPriority();
+    LocalDateTime getCreatedAt();
+}
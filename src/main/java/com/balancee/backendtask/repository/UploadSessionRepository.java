@@ -0,0 +1,23 @@
+package com.balancee.backendtask.repository;
+
+import com.balancee.backendtask.model.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface UploadSessionRepository extends JpaRepository<UploadSession, UUID> {
+    List<UploadSession> findByUpdatedAtBefore(LocalDateTime cutoff);
+
+    @Query("select s.partPath from UploadSession s where s.feedback.id in :feedbackIds")
+    List<String> findPartPathsByFeedbackIds(@Param("feedbackIds") Collection<UUID> feedbackIds);
+
+    @Modifying
+    @Query("delete from UploadSession s where s.feedback.id in :feedbackIds")
+    int deleteByFeedbackIds(@Param("feedbackIds") Collection<UUID> feedbackIds);
+}
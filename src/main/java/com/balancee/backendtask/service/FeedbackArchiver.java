@@ -0,0 +1,134 @@
+package com.balancee.backendtask.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.balancee.backendtask.events.FeedbackEvent;
+import com.balancee.backendtask.model.Status;
+import com.balancee.backendtask.repository.AdminResponseRepository;
+import com.balancee.backendtask.repository.ArchivedAdminResponseRepository;
+import com.balancee.backendtask.repository.ArchivedAttachmentRepository;
+import com.balancee.backendtask.repository.ArchivedFeedbackRepository;
+import com.balancee.backendtask.repository.AttachmentRepository;
+import com.balancee.backendtask.repository.FeedbackRepository;
+import com.balancee.backendtask.repository.UploadSessionRepository;
+
+/**
+ * Moves RESOLVED/CLOSED feedback older than the configured age, together with its
+ * responses and attachments, out of the hot tables. Each chunk is copied and deleted
+ * in its own short transaction so row locks are only held for one chunk at a time.
+ */
+@Component
+public class FeedbackArchiver {
+    private static final Logger logger = LoggerFactory.getLogger(FeedbackArchiver.class);
+    private static final List<Status> ARCHIVABLE_STATUSES = List.of(Status.RESOLVED, Status.CLOSED);
+
+    private final FeedbackRepository feedbackRepository;
+    private final AdminResponseRepository adminResponseRepository;
+    private final AttachmentRepository attachmentRepository;
+    private final ArchivedFeedbackRepository archivedFeedbackRepository;
+    private final ArchivedAdminResponseRepository archivedAdminResponseRepository;
+    private final ArchivedAttachmentRepository archivedAttachmentRepository;
+    private final UploadSessionRepository uploadSessionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${feedback.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${feedback.archive.max-age:90d}")
+    private Duration maxAge;
+
+    @Value("${feedback.archive.chunk-size:500}")
+    private int chunkSize;
+
+    public FeedbackArchiver(FeedbackRepository feedbackRepository,
+                            AdminResponseRepository adminResponseRepository,
+                            AttachmentRepository attachmentRepository,
+                            ArchivedFeedbackRepository archivedFeedbackRepository,
+                            ArchivedAdminResponseRepository archivedAdminResponseRepository,
+                            ArchivedAttachmentRepository archivedAttachmentRepository,
+                            UploadSessionRepository uploadSessionRepository,
+                            TransactionTemplate transactionTemplate,
+                            ApplicationEventPublisher eventPublisher) {
+        this.feedbackRepository = feedbackRepository;
+        this.adminResponseRepository = adminResponseRepository;
+        this.attachmentRepository = attachmentRepository;
+        this.archivedFeedbackRepository = archivedFeedbackRepository;
+        this.archivedAdminResponseRepository = archivedAdminResponseRepository;
+        this.archivedAttachmentRepository = archivedAttachmentRepository;
+        this.uploadSessionRepository = uploadSessionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Scheduled(initialDelayString = "${feedback.archive.initial-delay-ms:60000}",
+            fixedDelayString = "${feedback.archive.interval-ms:3600000}")
+    public void archiveClosedFeedback() {
+        if (!enabled) {
+            return;
+        }
+        archiveOlderThan(LocalDateTime.now().minus(maxAge));
+    }
+
+    public int archiveOlderThan(LocalDateTime cutoff) {
+        int total = 0;
+        int moved;
+        do {
+            ArchivedChunk archived = transactionTemplate.execute(tx -> archiveChunk(cutoff));
+            archived.ids().forEach(id -> eventPublisher.publishEvent(FeedbackEvent.archived(id)));
+            archived.partPaths().forEach(this::deletePart);
+            moved = archived.ids().size();
+            total += moved;
+        } while (moved == chunkSize);
+
+        if (total > 0) {
+            logger.info("Archived {} feedback entries last updated before {}", total, cutoff);
+        }
+        return total;
+    }
+
+    private ArchivedChunk archiveChunk(LocalDateTime cutoff) {
+        List<UUID> ids = feedbackRepository.findArchivableIds(ARCHIVABLE_STATUSES, cutoff, PageRequest.of(0, chunkSize));
+        if (ids.isEmpty()) {
+            return new ArchivedChunk(ids, List.of());
+        }
+
+        archivedFeedbackRepository.copyFromHot(ids);
+        archivedAdminResponseRepository.copyFromHot(ids);
+        archivedAttachmentRepository.copyFromHot(ids);
+
+        // Unfinished uploads can't be completed on archived feedback; their part files go once the chunk commits
+        List<String> partPaths = uploadSessionRepository.findPartPathsByFeedbackIds(ids);
+        uploadSessionRepository.deleteByFeedbackIds(ids);
+        attachmentRepository.deleteByFeedbackIds(ids);
+        adminResponseRepository.deleteByFeedbackIds(ids);
+        feedbackRepository.deleteByIds(ids);
+        return new ArchivedChunk(ids, partPaths);
+    }
+
+    private void deletePart(String partPath) {
+        try {
+            Files.deleteIfExists(Paths.get(partPath));
+        } catch (IOException e) {
+            logger.warn("Failed to delete upload part {} of archived feedback", partPath, e);
+        }
+    }
+
+    private record ArchivedChunk(List<UUID> ids, List<String> partPaths) {
+    }
+}
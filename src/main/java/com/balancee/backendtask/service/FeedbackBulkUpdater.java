@@ -0,0 +1,116 @@
+package com.balancee.backendtask.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.balancee.backendtask.audit.AuditField;
+import com.balancee.backendtask.audit.AuditLog;
+import com.balancee.backendtask.events.FeedbackEvent;
+import com.balancee.backendtask.model.Feedback;
+import com.balancee.backendtask.model.Priority;
+import com.balancee.backendtask.model.Status;
+import com.balancee.backendtask.repository.FeedbackFilter;
+import com.balancee.backendtask.repository.FeedbackRepository;
+import com.balancee.backendtask.repository.FeedbackState;
+import com.balancee.backendtask.service.notification.NotificationOutbox;
+
+/**
+ * Applies a status and/or priority change to many feedback rows with one UPDATE per chunk,
+ * each chunk in its own transaction. The rows are locked and their old values read in the same
+ * transaction so every change can be written to the audit log.
+ */
+@Component
+public class FeedbackBulkUpdater {
+    private static final Logger logger = LoggerFactory.getLogger(FeedbackBulkUpdater.class);
+
+    private final FeedbackRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AuditLog auditLog;
+    private final NotificationOutbox notificationOutbox;
+
+    @Value("${feedback.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    public FeedbackBulkUpdater(FeedbackRepository repository, TransactionTemplate transactionTemplate,
+                               ApplicationEventPublisher eventPublisher, AuditLog auditLog,
+                               NotificationOutbox notificationOutbox) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.auditLog = auditLog;
+        this.notificationOutbox = notificationOutbox;
+    }
+
+    public int updateByIds(List<UUID> ids, Status status, Priority priority, String actor) {
+        LocalDateTime now = LocalDateTime.now();
+        int updated = 0;
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<UUID> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            updated += updateChunk(chunk, status, priority, now, actor);
+        }
+        logger.info("Bulk updated {} of {} feedback entries by id: status={}, priority={}", updated, ids.size(), status, priority);
+        return updated;
+    }
+
+    public int updateByFilter(FeedbackFilter filter, Status status, Priority priority, String actor) {
+        Specification<Feedback> spec = filter.toSpecification();
+        LocalDateTime now = LocalDateTime.now();
+        int updated = 0;
+        UUID after = null;
+        List<UUID> chunk;
+        do {
+            // Keyset on id so rows leaving the filter after their update don't shift later chunks
+            chunk = repository.findIds(spec, after, chunkSize);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            updated += updateChunk(chunk, status, priority, now, actor);
+            after = chunk.get(chunk.size() - 1);
+        } while (chunk.size() == chunkSize);
+        logger.info("Bulk updated {} feedback entries by filter {}: status={}, priority={}", updated, filter, status, priority);
+        return updated;
+    }
+
+    private int updateChunk(List<UUID> chunk, Status status, Priority priority, LocalDateTime now, String actor) {
+        List<FeedbackState> before = new ArrayList<>();
+        int updated = transactionTemplate.execute(tx -> {
+            before.addAll(repository.lockStates(chunk));
+            int changed = repository.bulkUpdate(chunk, status, priority, now);
+            if (status != null) {
+                before.forEach(state -> notificationOutbox.statusChanged(state.getId(), state.getUserId(), status));
+            }
+            return changed;
+        });
+        List<AuditLog.Change> changes = new ArrayList<>();
+        for (FeedbackState state : before) {
+            if (status != null) {
+                changes.add(new AuditLog.Change(state.getId(), AuditField.STATUS, state.getStatus(), status));
+            }
+            if (priority != null) {
+                changes.add(new AuditLog.Change(state.getId(), AuditField.PRIORITY, state.getPriority(), priority));
+            }
+        }
+        auditLog.append(actor, changes);
+        // The rows the UPDATE wrote (their version moved even if the value did not); unknown ids get no event
+        for (FeedbackState state : before) {
+            if (status != null) {
+                eventPublisher.publishEvent(FeedbackEvent.statusChanged(state.getId(), status));
+            }
+            if (priority != null) {
+                eventPublisher.publishEvent(FeedbackEvent.priorityChanged(state.getId(), priority));
+            }
+        }
+        return updated;
+    }
+}
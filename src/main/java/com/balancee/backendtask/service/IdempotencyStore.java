@@ -0,0 +1,224 @@
+package com.balancee.backendtask.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Remembers the response to a request sent with an Idempotency-Key so a client retry gets the
+ * original response instead of writing again. A duplicate that arrives while the first request
+ * is still running waits for its result rather than running in parallel. Entries expire after
+ * the TTL. Every entry has the same TTL, so insertion order is expiry order and a FIFO queue is
+ * enough to evict both expired entries and, past max-entries or max-bytes, the oldest ones.
+ * Bodies are kept as JSON bytes, so max-bytes bounds what the store holds; a body larger than
+ * max-body-size is replaced by just its id.
+ */
+@Component
+public class IdempotencyStore {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+    public static final String HEADER = "Idempotency-Key";
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final long maxBodyBytes;
+    private final long maxBytes;
+    private final AtomicLong storedBytes = new AtomicLong();
+    private final Duration waitTimeout;
+    private final ObjectMapper objectMapper;
+    private final Counter replays;
+    private final Counter conflicts;
+
+    public IdempotencyStore(MeterRegistry meterRegistry, ObjectMapper objectMapper,
+                            @Value("${feedback.idempotency.ttl:24h}") Duration ttl,
+                            @Value("${feedback.idempotency.max-entries:10000}") int maxEntries,
+                            @Value("${feedback.idempotency.max-body-size:16KB}") DataSize maxBodySize,
+                            @Value("${feedback.idempotency.max-bytes:32MB}") DataSize maxSize,
+                            @Value("${feedback.idempotency.wait-timeout:30s}") Duration waitTimeout) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.maxBodyBytes = maxBodySize.toBytes();
+        this.maxBytes = maxSize.toBytes();
+        this.waitTimeout = waitTimeout;
+        this.objectMapper = objectMapper;
+        this.replays = Counter.builder("feedback.idempotency.replays").register(meterRegistry);
+        this.conflicts = Counter.builder("feedback.idempotency.conflicts").register(meterRegistry);
+        Gauge.builder("feedback.idempotency.entries", entries, Map::size).register(meterRegistry);
+        Gauge.builder("feedback.idempotency.bytes", storedBytes, AtomicLong::get).baseUnit("bytes").register(meterRegistry);
+    }
+
+    // charged is the body size added to storedBytes: 0 until stored, -1 once the entry is removed
+    private record Entry(String key, String fingerprint, long createdAt, CompletableFuture<Stored> result,
+                         AtomicLong charged) {
+        boolean isExpired(long now, long ttlNanos) {
+            return now - createdAt > ttlNanos;
+        }
+    }
+
+    private record Stored(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+    }
+
+    // SHA-256 of the request parts, each length-prefixed so different splits cannot produce the same input
+    public static String fingerprint(Object... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object part : parts) {
+                byte[] bytes = String.valueOf(part).getBytes(StandardCharsets.UTF_8);
+                digest.update((bytes.length + ":").getBytes(StandardCharsets.US_ASCII));
+                digest.update(bytes);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Runs the action once per key. The fingerprint describes the request; reusing a key for a
+     * different request is answered with 422. Server errors are not remembered so they can be retried,
+     * and duplicates that waited for one run the action again instead of replaying it.
+     */
+    public ResponseEntity<?> execute(String key, String fingerprint, Supplier<ResponseEntity<?>> action) {
+        long now = System.nanoTime();
+        Entry entry = new Entry(key, fingerprint, now, new CompletableFuture<>(), new AtomicLong());
+        Entry existing = entries.putIfAbsent(key, entry);
+        if (existing != null && existing.isExpired(now, ttlNanos)) {
+            remove(existing);
+            existing = entries.putIfAbsent(key, entry);
+        }
+        if (existing != null) {
+            return replay(existing, fingerprint, action);
+        }
+
+        insertionOrder.add(entry);
+        evict(now);
+        ResponseEntity<?> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            remove(entry);
+            entry.result().completeExceptionally(e);
+            throw e;
+        }
+        if (response.getStatusCode().is5xxServerError()) {
+            remove(entry);
+            entry.result().complete(new Stored(response.getStatusCode(), response.getHeaders(), null));
+            return response;
+        }
+        Stored stored = store(response);
+        long size = stored.body() == null ? 0 : stored.body().length;
+        if (entry.charged().compareAndSet(0, size)) {
+            storedBytes.addAndGet(size);
+        }
+        entry.result().complete(stored);
+        evict(now);
+        return response;
+    }
+
+    // The body as JSON bytes, or only its id when it is larger than max-body-size
+    private Stored store(ResponseEntity<?> response) {
+        if (response.getBody() == null) {
+            return new Stored(response.getStatusCode(), response.getHeaders(), null);
+        }
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(response.getBody());
+            if (body.length > maxBodyBytes) {
+                JsonNode id = objectMapper.readTree(body).get("id");
+                body = id == null ? null : objectMapper.writeValueAsBytes(Map.of("id", id));
+            }
+            return new Stored(response.getStatusCode(), response.getHeaders(), body);
+        } catch (IOException e) {
+            logger.warn("Could not keep the response body for replay", e);
+            return new Stored(response.getStatusCode(), response.getHeaders(), null);
+        }
+    }
+
+    private void remove(Entry entry) {
+        if (entries.remove(entry.key(), entry)) {
+            long charged = entry.charged().getAndSet(-1);
+            if (charged > 0) {
+                storedBytes.addAndGet(-charged);
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private ResponseEntity<?> replay(Entry existing, String fingerprint, Supplier<ResponseEntity<?>> action) {
+        if (!existing.fingerprint().equals(fingerprint)) {
+            conflicts.increment();
+            return ResponseEntity.unprocessableEntity()
+                    .body(Map.of("error", "Idempotency-Key was already used for a different request"));
+        }
+        try {
+            Stored original = existing.result().get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (original.status().is5xxServerError()) {
+                // Nothing was committed and the entry is gone: retry as the client would have
+                return execute(existing.key(), fingerprint, action);
+            }
+            replays.increment();
+            logger.debug("Replaying response for idempotency key {}", existing.key());
+            // A tree is written in whatever format the retry asked for, like the original body was
+            return ResponseEntity.status(original.status())
+                    .headers(original.headers())
+                    .header("Idempotent-Replayed", "true")
+                    .body(original.body() == null ? null : objectMapper.readTree(original.body()));
+        } catch (IOException e) {
+            throw new IllegalStateException("Stored response body is not valid JSON", e);
+        } catch (TimeoutException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "A request with this Idempotency-Key is still in progress"));
+        } catch (ExecutionException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "The original request with this Idempotency-Key failed, retry it"));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+
+    private void evict(long now) {
+        Entry oldest;
+        while ((oldest = insertionOrder.peek()) != null
+                && (entries.size() > maxEntries || storedBytes.get() > maxBytes || oldest.isExpired(now, ttlNanos)
+                    || entries.get(oldest.key()) != oldest)) {
+            if (insertionOrder.remove(oldest)) {
+                remove(oldest);
+            }
+        }
+    }
+}
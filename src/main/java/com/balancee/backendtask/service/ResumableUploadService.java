@@ -0,0 +1,231 @@
+package com.balancee.backendtask.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.balancee.backendtask.events.FeedbackEvent;
+import com.balancee.backendtask.events.FeedbackEventType;
+import com.balancee.backendtask.model.Attachment;
+import com.balancee.backendtask.model.Feedback;
+import com.balancee.backendtask.model.UploadSession;
+import com.balancee.backendtask.repository.AttachmentRepository;
+import com.balancee.backendtask.repository.UploadSessionRepository;
+import com.balancee.backendtask.service.processing.AttachmentProcessingPipeline;
+import com.balancee.backendtask.service.storage.AttachmentStorage;
+
+/**
+ * Resumable uploads: a session preallocates a part file of the announced size, chunks are
+ * streamed from the request body straight into it with positional FileChannel writes, and
+ * completing the session hands the part file to the attachment storage. The received offset
+ * is persisted after each chunk so a client can resume after a dropped connection.
+ * The part file and the in-flight write guard are local to the instance that created the
+ * session, so with several instances every request of an upload must reach that instance
+ * (sticky routing on the upload id); elsewhere the upload is answered with 409.
+ */
+@Component
+public class ResumableUploadService {
+    private static final Logger logger = LoggerFactory.getLogger(ResumableUploadService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final UploadSessionRepository sessionRepository;
+    private final AttachmentRepository attachmentRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AttachmentProcessingPipeline processingPipeline;
+    private final AttachmentStorage storage;
+    private final Set<UUID> activeWrites = ConcurrentHashMap.newKeySet();
+    private final Path partDir;
+    private final long maxSize;
+    private final Duration sessionTtl;
+
+    public ResumableUploadService(UploadSessionRepository sessionRepository,
+                                  AttachmentRepository attachmentRepository,
+                                  ApplicationEventPublisher eventPublisher,
+                                  AttachmentProcessingPipeline processingPipeline,
+                                  AttachmentStorage storage,
+                                  @Value("${feedback.uploads.dir:uploads/}") String uploadDir,
+                                  @Value("${feedback.uploads.max-size:200MB}") DataSize maxSize,
+                                  @Value("${feedback.uploads.session-ttl:24h}") Duration sessionTtl) throws IOException {
+        this.sessionRepository = sessionRepository;
+        this.attachmentRepository = attachmentRepository;
+        this.eventPublisher = eventPublisher;
+        this.processingPipeline = processingPipeline;
+        this.storage = storage;
+        // Parts stay on this node's disk until complete; only finished uploads go to the storage
+        this.partDir = Paths.get(uploadDir).resolve(".partial");
+        this.maxSize = maxSize.toBytes();
+        this.sessionTtl = sessionTtl;
+        Files.createDirectories(partDir);
+    }
+
+    public UploadSession create(Feedback feedback, String fileName, String contentType, long totalSize) {
+        if (fileName == null || fileName.isBlank()) {
+            throw new UploadException(HttpStatus.BAD_REQUEST, "fileName is required");
+        }
+        if (totalSize <= 0) {
+            throw new UploadException(HttpStatus.BAD_REQUEST, "size must be positive");
+        }
+        if (totalSize > maxSize) {
+            throw new UploadException(HttpStatus.PAYLOAD_TOO_LARGE, "size exceeds the limit of " + maxSize + " bytes");
+        }
+
+        UploadSession session = new UploadSession();
+        session.setFeedback(feedback);
+        session.setFileName(sanitize(fileName));
+        session.setContentType(contentType);
+        session.setTotalSize(totalSize);
+        Path partPath = partDir.resolve(session.getId() + ".part");
+        try (RandomAccessFile file = new RandomAccessFile(partPath.toFile(), "rw")) {
+            file.setLength(totalSize);
+        } catch (IOException e) {
+            throw new UploadException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to allocate upload");
+        }
+        session.setPartPath(partPath.toString());
+        UploadSession saved = sessionRepository.save(session);
+        logger.info("Upload session {} created for feedback {}: {} ({} bytes)", saved.getId(), feedback.getId(),
+                saved.getFileName(), totalSize);
+        return saved;
+    }
+
+    // Writes the body at offset; returns the new received offset. Bytes that arrived before a
+    // dropped connection are kept, so the client resumes from whatever offset is reported.
+    public long writeChunk(UploadSession session, long offset, InputStream body) {
+        if (offset < 0 || offset > session.getReceivedBytes()) {
+            throw new UploadException(HttpStatus.CONFLICT, "Expected offset " + session.getReceivedBytes());
+        }
+        if (!activeWrites.add(session.getId())) {
+            throw new UploadException(HttpStatus.CONFLICT, "Another chunk is being written to this upload");
+        }
+        long position = offset;
+        try (FileChannel channel = FileChannel.open(Paths.get(session.getPartPath()), StandardOpenOption.WRITE);
+             ReadableByteChannel source = Channels.newChannel(body)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            try {
+                while (source.read(buffer) != -1) {
+                    buffer.flip();
+                    if (position + buffer.remaining() > session.getTotalSize()) {
+                        throw new UploadException(HttpStatus.PAYLOAD_TOO_LARGE,
+                                "Chunk exceeds the announced size of " + session.getTotalSize() + " bytes");
+                    }
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                    buffer.clear();
+                }
+            } catch (IOException e) {
+                logger.warn("Upload {} interrupted at offset {}", session.getId(), position);
+            } finally {
+                channel.force(false);
+                recordProgress(session, position);
+            }
+        } catch (NoSuchFileException e) {
+            throw notOnThisInstance(session);
+        } catch (IOException e) {
+            throw new UploadException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to write upload");
+        } finally {
+            activeWrites.remove(session.getId());
+        }
+        return session.getReceivedBytes();
+    }
+
+    public Attachment complete(UploadSession session) {
+        if (session.getReceivedBytes() != session.getTotalSize()) {
+            throw new UploadException(HttpStatus.CONFLICT,
+                    "Upload incomplete: " + session.getReceivedBytes() + " of " + session.getTotalSize() + " bytes");
+        }
+        if (!Files.exists(Paths.get(session.getPartPath()))) {
+            throw notOnThisInstance(session);
+        }
+        String key;
+        try {
+            key = storage.putFile(System.currentTimeMillis() + "_" + session.getFileName(),
+                    Paths.get(session.getPartPath()), session.getContentType());
+        } catch (IOException e) {
+            logger.error("Failed to store completed upload {}", session.getId(), e);
+            throw new UploadException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to finalize upload");
+        }
+
+        Attachment attachment = new Attachment();
+        attachment.setFeedback(session.getFeedback());
+        attachment.setFileName(session.getFileName());
+        attachment.setContentType(session.getContentType());
+        attachment.setFileSize(session.getTotalSize());
+        attachment.setFilePath(key);
+        Attachment saved = attachmentRepository.save(attachment);
+        sessionRepository.delete(session);
+
+        logger.info("Upload {} completed for feedback {}: {}", session.getId(), session.getFeedback().getId(), key);
+        eventPublisher.publishEvent(FeedbackEvent.of(FeedbackEventType.ATTACHMENT_ADDED, session.getFeedback()));
+        processingPipeline.submit(saved.getId());
+        return saved;
+    }
+
+    @Scheduled(fixedDelayString = "${feedback.uploads.cleanup-interval-ms:3600000}")
+    public void purgeAbandonedSessions() {
+        for (UploadSession session : sessionRepository.findByUpdatedAtBefore(LocalDateTime.now().minus(sessionTtl))) {
+            try {
+                Files.deleteIfExists(Paths.get(session.getPartPath()));
+            } catch (IOException e) {
+                logger.warn("Failed to delete abandoned upload part {}", session.getPartPath(), e);
+            }
+            sessionRepository.delete(session);
+            logger.info("Purged abandoned upload session {}", session.getId());
+        }
+    }
+
+    private static UploadException notOnThisInstance(UploadSession session) {
+        logger.warn("Upload {} has no part file on this instance; is routing sticky?", session.getId());
+        return new UploadException(HttpStatus.CONFLICT,
+                "Upload " + session.getId() + " is held by another instance; send every request of an upload to the same one");
+    }
+
+    private void recordProgress(UploadSession session, long position) {
+        if (position > session.getReceivedBytes()) {
+            session.setReceivedBytes(position);
+        }
+        session.setUpdatedAt(LocalDateTime.now());
+        sessionRepository.save(session);
+    }
+
+    private static String sanitize(String fileName) {
+        String normalized = fileName.replace('\\', '/');
+        String safe = normalized.substring(normalized.lastIndexOf('/') + 1).replaceAll("[^A-Za-z0-9._-]", "_");
+        return safe.isEmpty() || safe.chars().allMatch(c -> c == '.') ? "upload" : safe;
+    }
+
+    public static class UploadException extends RuntimeException {
+        private final HttpStatus status;
+
+        public UploadException(HttpStatus status, String message) {
+            super(message);
+            this.status = status;
+        }
+
+        public HttpStatus getStatus() {
+            return status;
+        }
+    }
+}
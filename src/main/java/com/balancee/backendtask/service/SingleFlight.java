@@ -0,0 +1,86 @@
+package com.balancee.backendtask.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Coalesces identical concurrent reads: the first caller for a key runs the query, callers that
+ * arrive while it is running wait for and share its result. The result is dropped as soon as it
+ * completes, or after the optional linger window, so this is not a cache. Callers should put
+ * a change version in the key so nobody joins a query that started before their own write.
+ */
+@Component
+public class SingleFlight {
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final Executor lingerExecutor;
+
+    public SingleFlight(MeterRegistry meterRegistry,
+                        @Value("${feedback.single-flight.enabled:true}") boolean enabled,
+                        @Value("${feedback.single-flight.linger:0ms}") Duration linger) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.lingerExecutor = linger.isZero() ? null
+                : CompletableFuture.delayedExecutor(linger.toMillis(), TimeUnit.MILLISECONDS);
+        Gauge.builder("feedback.singleflight.inflight", inFlight, Map::size).register(meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String endpoint, String key, Supplier<T> query) {
+        if (!enabled) {
+            return query.get();
+        }
+        String flightKey = endpoint + '|' + key;
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, flight);
+        if (existing != null) {
+            counter(endpoint, "shared").increment();
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                // Surface the leader's failure as if this caller had run the query itself
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        counter(endpoint, "executed").increment();
+        try {
+            T result = query.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            if (lingerExecutor == null || flight.isCompletedExceptionally()) {
+                inFlight.remove(flightKey, flight);
+            } else {
+                lingerExecutor.execute(() -> inFlight.remove(flightKey, flight));
+            }
+        }
+    }
+
+    private Counter counter(String endpoint, String outcome) {
+        return Counter.builder("feedback.singleflight.requests")
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,195 @@
+package com.balancee.backendtask.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.balancee.backendtask.events.FeedbackEvent;
+import com.balancee.backendtask.model.Priority;
+import com.balancee.backendtask.model.Status;
+import com.balancee.backendtask.repository.FeedbackRepository;
+import com.balancee.backendtask.repository.FeedbackSummary;
+import com.balancee.backendtask.repository.TriageCandidate;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * In-memory index of NEW feedback for the triage endpoint. Each priority has its own skip list
+ * ordered by age, so claiming the next item is a pollFirst on the highest non-empty priority.
+ * A claimed item is held under a lease and goes back into the queue if the lease runs out
+ * while the feedback is still NEW. The index follows the feedback events and is rebuilt from
+ * the table at startup. It is per instance: several instances would each hand out the same items.
+ */
+@Component
+public class TriageQueue {
+    private static final Logger logger = LoggerFactory.getLogger(TriageQueue.class);
+
+    private static final Comparator<Entry> BY_AGE = Comparator.comparing(Entry::createdAt).thenComparing(Entry::id);
+    // Highest priority first
+    private static final Priority[] CLAIM_ORDER = {Priority.HIGH, Priority.MEDIUM, Priority.LOW};
+
+    private final FeedbackRepository repository;
+    private final Map<Priority, ConcurrentSkipListSet<Entry>> queues = new EnumMap<>(Priority.class);
+    private final Map<UUID, Entry> queued = new ConcurrentHashMap<>();
+    private final Map<UUID, Lease> leases = new ConcurrentHashMap<>();
+    private final Duration leaseDuration;
+
+    public TriageQueue(FeedbackRepository repository, MeterRegistry meterRegistry,
+                       @Value("${feedback.triage.lease:15m}") Duration leaseDuration) {
+        this.repository = repository;
+        this.leaseDuration = leaseDuration;
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new ConcurrentSkipListSet<>(BY_AGE));
+        }
+        Gauge.builder("feedback.triage.queued", queued, Map::size).register(meterRegistry);
+        Gauge.builder("feedback.triage.leased", leases, Map::size).register(meterRegistry);
+    }
+
+    public record Entry(UUID id, Priority priority, LocalDateTime createdAt) {
+    }
+
+    public record Lease(Entry entry, String owner, Instant expiresAt) {
+        boolean isExpired(Instant now) {
+            return expiresAt.isBefore(now);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        int count = 0;
+        for (TriageCandidate candidate : repository.findCandidatesByStatus(Status.NEW)) {
+            add(new Entry(candidate.getId(), candidate.getPriority(), candidate.getCreatedAt()));
+            count++;
+        }
+        logger.info("Triage queue rebuilt with {} NEW feedback entries", count);
+    }
+
+    @EventListener
+    public void onFeedbackEvent(FeedbackEvent event) {
+        switch (event.type()) {
+            case CREATED -> {
+                if (event.status() == Status.NEW) {
+                    add(new Entry(event.feedbackId(), event.priority(), event.createdAt()));
+                }
+            }
+            case STATUS_CHANGED -> {
+                if (event.status() == Status.NEW) {
+                    reopen(event.feedbackId());
+                } else {
+                    remove(event.feedbackId());
+                }
+            }
+            case PRIORITY_CHANGED -> reprioritize(event.feedbackId(), event.priority());
+            case ARCHIVED -> remove(event.feedbackId());
+            default -> {
+            }
+        }
+    }
+
+    // Claims the oldest item of the highest priority that has any; empty when nothing is waiting
+    public Optional<Lease> claim(String owner) {
+        Instant now = Instant.now();
+        for (Priority priority : CLAIM_ORDER) {
+            ConcurrentSkipListSet<Entry> queue = queues.get(priority);
+            Entry entry;
+            while ((entry = queue.pollFirst()) != null) {
+                // Losing this race means the entry was removed or re-prioritized concurrently
+                if (queued.remove(entry.id(), entry)) {
+                    Lease lease = new Lease(entry, owner, now.plus(leaseDuration));
+                    leases.put(entry.id(), lease);
+                    return Optional.of(lease);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Gives a claimed item back before its lease ends; only the lease holder may do so
+    public boolean release(UUID id, String owner) {
+        Lease lease = leases.get(id);
+        if (lease == null || !lease.owner().equals(owner) || !leases.remove(id, lease)) {
+            return false;
+        }
+        add(lease.entry());
+        return true;
+    }
+
+    // Drops a lease whose item turned out not to be claimable after all (e.g. no longer NEW)
+    public void discard(UUID id) {
+        leases.remove(id);
+    }
+
+    public int size() {
+        return queued.size();
+    }
+
+    @Scheduled(fixedDelayString = "${feedback.triage.lease-check-ms:10000}")
+    public void expireLeases() {
+        Instant now = Instant.now();
+        for (Lease lease : leases.values()) {
+            if (lease.isExpired(now) && leases.remove(lease.entry().id(), lease)) {
+                // The status event may have raced with the claim, so confirm the item still needs triage
+                Optional<FeedbackSummary> summary = repository.findSummaryById(lease.entry().id());
+                if (summary.isPresent() && summary.get().getStatus() == Status.NEW) {
+                    add(new Entry(lease.entry().id(), summary.get().getPriority(), lease.entry().createdAt()));
+                    logger.info("Triage lease on {} held by {} expired, item requeued", lease.entry().id(), lease.owner());
+                }
+            }
+        }
+    }
+
+    private void add(Entry entry) {
+        if (entry.priority() == null || leases.containsKey(entry.id())) {
+            return;
+        }
+        Entry previous = queued.put(entry.id(), entry);
+        if (previous != null) {
+            queues.get(previous.priority()).remove(previous);
+        }
+        queues.get(entry.priority()).add(entry);
+    }
+
+    private void remove(UUID id) {
+        leases.remove(id);
+        Entry entry = queued.remove(id);
+        if (entry != null) {
+            queues.get(entry.priority()).remove(entry);
+        }
+    }
+
+    private void reprioritize(UUID id, Priority priority) {
+        Lease lease = leases.get(id);
+        if (lease != null) {
+            Entry entry = lease.entry();
+            leases.replace(id, lease, new Lease(new Entry(id, priority, entry.createdAt()), lease.owner(), lease.expiresAt()));
+            return;
+        }
+        Entry entry = queued.get(id);
+        if (entry != null) {
+            add(new Entry(id, priority, entry.createdAt()));
+        }
+    }
+
+    private void reopen(UUID id) {
+        if (queued.containsKey(id) || leases.containsKey(id)) {
+            return;
+        }
+        repository.findById(id).ifPresent(feedback -> add(new Entry(id, feedback.getPriority(), feedback.getCreatedAt())));
+    }
+}
@@ -0,0 +1,25 @@
+package com.balancee.backendtask.service.backup;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * What a snapshot contains, stored as manifest.json inside its archive and as {id}.json next to
+ * it. Every referenced upload is listed; archive names the snapshot whose archive holds its bytes,
+ * which is an earlier one when the file had not changed since. base is the snapshot this one was
+ * compared against, null for a full snapshot.
+ */
+public record BackupManifest(String id, Instant createdAt, String base, long databaseBytes,
+                             String databaseSha256, List<FileEntry> files, List<String> missing) {
+
+    public record FileEntry(String key, long size, Instant lastModified, String sha256, String archive) {
+    }
+
+    public long copiedFiles() {
+        return files.stream().filter(file -> file.archive().equals(id)).count();
+    }
+
+    public long copiedBytes() {
+        return files.stream().filter(file -> file.archive().equals(id)).mapToLong(FileEntry::size).sum();
+    }
+}
@@ -0,0 +1,463 @@
+package com.balancee.backendtask.service.backup;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.balancee.backendtask.service.storage.AttachmentStorage;
+import com.balancee.backendtask.service.storage.AttachmentStorage.StoredObject;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Online snapshots of the database together with the uploads it references, without stopping
+ * the service. The database is dumped with H2's SCRIPT inside one SNAPSHOT transaction, which
+ * also reads the attachment file paths, so the dump and the file list describe the same moment;
+ * MVCC readers do not block writers. Stored objects never change under a key, so every file the
+ * dump references can still be read afterwards (stale file cleanup waits while a snapshot runs).
+ * Files whose size and modification time match the previous manifest are not copied again.
+ * Everything is streamed into {id}.zip with reads and writes paced to max-bandwidth.
+ */
+@Component
+public class BackupService {
+    private static final Logger logger = LoggerFactory.getLogger(BackupService.class);
+    static final String DATABASE_ENTRY = "database.sql";
+    static final String FILES_PREFIX = "files/";
+    static final String MANIFEST_ENTRY = "manifest.json";
+    private static final DateTimeFormatter IDS = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmssSSS'Z'")
+            .withZone(ZoneOffset.UTC);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final DataSource dataSource;
+    private final AttachmentStorage storage;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Path directory;
+    private final BandwidthLimiter limiter;
+    private final int compressionLevel;
+    private final String restoreFrom;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // The EntityManagerFactory is only a dependency so a restore replaces the schema Hibernate created, not the other way round
+    public BackupService(DataSource dataSource, AttachmentStorage storage, ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry, EntityManagerFactory entityManagerFactory,
+                         @Value("${feedback.backup.dir:backups}") String directory,
+                         @Value("${feedback.backup.max-bandwidth:20MB}") DataSize maxBandwidth,
+                         @Value("${feedback.backup.compression-level:6}") int compressionLevel,
+                         @Value("${feedback.backup.restore-from:}") String restoreFrom) throws IOException {
+        this.dataSource = dataSource;
+        this.storage = storage;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.directory = Paths.get(directory);
+        this.limiter = new BandwidthLimiter(maxBandwidth.toBytes());
+        this.compressionLevel = compressionLevel;
+        this.restoreFrom = restoreFrom;
+        Files.createDirectories(this.directory);
+    }
+
+    // Restores before the application takes traffic: with feedback.backup.restore-from set, startup is the restore command
+    @PostConstruct
+    public void restoreOnStartup() throws IOException {
+        if (restoreFrom.isBlank()) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            restore(restoreFrom, connection, storage);
+        } catch (SQLException e) {
+            throw new IOException("Restore of snapshot " + restoreFrom + " failed", e);
+        }
+    }
+
+    public boolean inProgress() {
+        return running.get();
+    }
+
+    /**
+     * Takes a snapshot. Unless full is set, files unchanged since the latest snapshot are only
+     * listed in the manifest, pointing at the archive that already holds them.
+     */
+    public BackupManifest snapshot(boolean full) throws IOException {
+        if (!running.compareAndSet(false, true)) {
+            throw new BackupException(HttpStatus.CONFLICT, "A snapshot is already running");
+        }
+        long start = System.nanoTime();
+        String outcome = "failed";
+        Instant createdAt = Instant.now();
+        String id = IDS.format(createdAt);
+        Path temp = directory.resolve(id + ".zip.tmp");
+        try {
+            if (Files.exists(archivePath(id))) {
+                throw new BackupException(HttpStatus.CONFLICT, "Snapshot " + id + " already exists");
+            }
+            BackupManifest previous = full ? null : latest().orElse(null);
+            Map<String, BackupManifest.FileEntry> previousFiles = previous == null ? Map.of()
+                    : previous.files().stream().collect(Collectors.toMap(BackupManifest.FileEntry::key, Function.identity()));
+
+            BackupManifest manifest;
+            try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), BUFFER_SIZE))) {
+                zip.setLevel(compressionLevel);
+                MessageDigest databaseDigest = sha256();
+                zip.putNextEntry(new ZipEntry(DATABASE_ENTRY));
+                long[] databaseBytes = {0};
+                Set<String> keys = dumpDatabase(line -> {
+                    byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+                    write(zip, bytes, bytes.length, databaseDigest);
+                    databaseBytes[0] += bytes.length;
+                });
+                zip.closeEntry();
+
+                Map<String, StoredObject> stored = new HashMap<>();
+                try (Stream<StoredObject> objects = storage.list()) {
+                    objects.filter(object -> keys.contains(object.key())).forEach(object -> stored.put(object.key(), object));
+                }
+                List<BackupManifest.FileEntry> files = new ArrayList<>();
+                List<String> missing = new ArrayList<>();
+                for (String key : keys) {
+                    StoredObject object = stored.get(key);
+                    if (object == null) {
+                        missing.add(key);
+                        continue;
+                    }
+                    BackupManifest.FileEntry known = previousFiles.get(key);
+                    if (known != null && known.size() == object.size() && known.lastModified().equals(object.lastModified())) {
+                        files.add(known);
+                        continue;
+                    }
+                    MessageDigest digest = sha256();
+                    zip.putNextEntry(new ZipEntry(entryName(key)));
+                    try (InputStream in = storage.get(key)) {
+                        copy(in, zip, digest);
+                    } catch (NoSuchFileException e) {
+                        // Nothing deletes referenced files, but a snapshot should not die on one that vanished anyway
+                        missing.add(key);
+                        zip.closeEntry();
+                        continue;
+                    }
+                    zip.closeEntry();
+                    files.add(new BackupManifest.FileEntry(key, object.size(), object.lastModified(),
+                            HexFormat.of().formatHex(digest.digest()), id));
+                }
+                manifest = new BackupManifest(id, createdAt, previous == null ? null : previous.id(), databaseBytes[0],
+                        HexFormat.of().formatHex(databaseDigest.digest()), files, missing);
+                zip.putNextEntry(new ZipEntry(MANIFEST_ENTRY));
+                zip.write(objectMapper.writeValueAsBytes(manifest));
+                zip.closeEntry();
+            }
+            Files.move(temp, archivePath(id), StandardCopyOption.ATOMIC_MOVE);
+            Path manifestTemp = directory.resolve(id + ".json.tmp");
+            objectMapper.writeValue(manifestTemp.toFile(), manifest);
+            Files.move(manifestTemp, directory.resolve(id + ".json"), StandardCopyOption.ATOMIC_MOVE);
+
+            outcome = "ok";
+            if (!manifest.missing().isEmpty()) {
+                logger.warn("Snapshot {} could not find {} referenced files: {}", id, manifest.missing().size(),
+                        manifest.missing());
+            }
+            logger.info("Snapshot {} taken in {} ms: {} database bytes, {} of {} files copied ({} bytes), based on {}",
+                    id, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), manifest.databaseBytes(),
+                    manifest.copiedFiles(), manifest.files().size(), manifest.copiedBytes(), manifest.base());
+            return manifest;
+        } finally {
+            Files.deleteIfExists(temp);
+            running.set(false);
+            Timer.builder("feedback.backup.snapshot").tag("outcome", outcome).register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public List<BackupManifest> list() throws IOException {
+        List<BackupManifest> manifests = new ArrayList<>();
+        for (String id : ids()) {
+            manifests.add(manifest(id));
+        }
+        return manifests;
+    }
+
+    public BackupManifest manifest(String id) throws IOException {
+        if (!id.matches("[0-9TZ]+")) {
+            throw new BackupException(HttpStatus.BAD_REQUEST, "Invalid snapshot id");
+        }
+        Path path = directory.resolve(id + ".json");
+        if (!Files.exists(path)) {
+            throw new BackupException(HttpStatus.NOT_FOUND, "No snapshot " + id);
+        }
+        return objectMapper.readValue(path.toFile(), BackupManifest.class);
+    }
+
+    /**
+     * Reads back everything a restore of this snapshot would need, across all archives it points
+     * into, and checks it against the manifest. Returns the problems found, empty when it is sound.
+     */
+    public List<String> verify(String id) throws IOException {
+        BackupManifest manifest = manifest(id);
+        List<String> problems = new ArrayList<>();
+        Map<String, ZipFile> archives = new HashMap<>();
+        try {
+            ZipFile own = archive(archives, id, problems);
+            if (own != null) {
+                checkEntry(own, DATABASE_ENTRY, manifest.databaseBytes(), manifest.databaseSha256(), problems);
+            }
+            for (BackupManifest.FileEntry file : manifest.files()) {
+                ZipFile archive = archive(archives, file.archive(), problems);
+                if (archive != null) {
+                    checkEntry(archive, entryName(file.key()), file.size(), file.sha256(), problems);
+                }
+            }
+        } finally {
+            for (ZipFile archive : archives.values()) {
+                if (archive != null) {
+                    archive.close();
+                }
+            }
+        }
+        for (String key : manifest.missing()) {
+            problems.add(key + " was referenced but missing when the snapshot was taken");
+        }
+        return problems;
+    }
+
+    /**
+     * Replaces the database behind connection with the snapshot's and puts its files into target.
+     * Files land under whatever key target gives them; when that differs from the original key the
+     * restored attachment rows are pointed at the new one, so a snapshot can move between storages.
+     * The snapshot is verified first and nothing is touched if that fails.
+     */
+    public void restore(String id, Connection connection, AttachmentStorage target) throws IOException, SQLException {
+        List<String> problems = verify(id);
+        if (!problems.isEmpty()) {
+            throw new BackupException(HttpStatus.CONFLICT, "Snapshot " + id + " failed verification: " + problems);
+        }
+        BackupManifest manifest = manifest(id);
+        long start = System.nanoTime();
+        Path script = Files.createTempFile(directory, id, ".sql");
+        try {
+            try (ZipFile archive = new ZipFile(archivePath(id).toFile());
+                 InputStream in = archive.getInputStream(archive.getEntry(DATABASE_ENTRY))) {
+                Files.copy(in, script, StandardCopyOption.REPLACE_EXISTING);
+            }
+            try (Statement statement = connection.createStatement()) {
+                // The dump starts with DROP statements, so this replaces whatever schema is there
+                statement.execute("RUNSCRIPT FROM '" + script.toAbsolutePath().toString().replace("'", "''") + "'");
+            }
+        } finally {
+            Files.deleteIfExists(script);
+        }
+
+        int moved = 0;
+        Map<String, ZipFile> archives = new HashMap<>();
+        try (PreparedStatement live = connection.prepareStatement("UPDATE attachment SET file_path = ? WHERE file_path = ?");
+             PreparedStatement archived = connection.prepareStatement(
+                     "UPDATE archived_attachment SET file_path = ? WHERE file_path = ?")) {
+            for (BackupManifest.FileEntry file : manifest.files()) {
+                ZipFile archive = archive(archives, file.archive(), new ArrayList<>());
+                String key;
+                try (InputStream in = archive.getInputStream(archive.getEntry(entryName(file.key())))) {
+                    key = target.put(file.key().substring(file.key().lastIndexOf('/') + 1), in, file.size(), null);
+                }
+                if (!key.equals(file.key())) {
+                    for (PreparedStatement update : List.of(live, archived)) {
+                        update.setString(1, key);
+                        update.setString(2, file.key());
+                        update.executeUpdate();
+                    }
+                    moved++;
+                }
+            }
+        } finally {
+            for (ZipFile archive : archives.values()) {
+                if (archive != null) {
+                    archive.close();
+                }
+            }
+        }
+        logger.info("Restored snapshot {} in {} ms: {} database bytes, {} files ({} under a new key)", id,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), manifest.databaseBytes(),
+                manifest.files().size(), moved);
+    }
+
+    // Streams the SCRIPT output to sink and returns the attachment file paths of the same snapshot
+    private Set<String> dumpDatabase(ScriptSink sink) throws IOException {
+        try (Connection connection = dataSource.getConnection()) {
+            String product = connection.getMetaData().getDatabaseProductName();
+            if (!product.equals("H2")) {
+                throw new BackupException(HttpStatus.NOT_IMPLEMENTED,
+                        "Online snapshots need H2; use the backup tooling of " + product);
+            }
+            boolean autoCommit = connection.getAutoCommit();
+            int isolation = connection.getTransactionIsolation();
+            try (Statement statement = connection.createStatement()) {
+                // Must be set outside a transaction; every read below then sees the database as of its first one
+                statement.execute("SET SESSION CHARACTERISTICS AS TRANSACTION ISOLATION LEVEL SNAPSHOT");
+                connection.setAutoCommit(false);
+                try (ResultSet script = statement.executeQuery("SCRIPT DROP")) {
+                    while (script.next()) {
+                        String line = script.getString(1);
+                        sink.accept(line.endsWith(";") ? line + "\n" : line + ";\n");
+                    }
+                }
+                Set<String> keys = new TreeSet<>();
+                try (ResultSet paths = statement.executeQuery(
+                        "SELECT file_path FROM attachment UNION SELECT file_path FROM archived_attachment")) {
+                    while (paths.next()) {
+                        if (paths.getString(1) != null) {
+                            keys.add(paths.getString(1));
+                        }
+                    }
+                }
+                connection.rollback();
+                return keys;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+                connection.setTransactionIsolation(isolation);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Database dump failed", e);
+        }
+    }
+
+    private interface ScriptSink {
+        void accept(String line) throws IOException;
+    }
+
+    private Optional<BackupManifest> latest() throws IOException {
+        List<String> ids = ids();
+        return ids.isEmpty() ? Optional.empty() : Optional.of(manifest(ids.get(ids.size() - 1)));
+    }
+
+    // Snapshot ids are UTC timestamps, so name order is time order
+    private List<String> ids() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(".json"))
+                    .map(name -> name.substring(0, name.length() - ".json".length()))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path archivePath(String id) {
+        return directory.resolve(id + ".zip");
+    }
+
+    // Keys can be absolute paths with a local storage; entry names must not be
+    private static String entryName(String key) {
+        return FILES_PREFIX + key.replaceFirst("^/+", "");
+    }
+
+    private ZipFile archive(Map<String, ZipFile> open, String id, List<String> problems) throws IOException {
+        if (!open.containsKey(id)) {
+            Path path = archivePath(id);
+            if (Files.exists(path)) {
+                open.put(id, new ZipFile(path.toFile()));
+            } else {
+                problems.add("Archive " + path.getFileName() + " is missing");
+                open.put(id, null);
+            }
+        }
+        return open.get(id);
+    }
+
+    private void checkEntry(ZipFile archive, String name, long size, String sha256, List<String> problems)
+            throws IOException {
+        ZipEntry entry = archive.getEntry(name);
+        if (entry == null) {
+            problems.add(name + " is not in " + archive.getName());
+            return;
+        }
+        MessageDigest digest = sha256();
+        long read;
+        try (InputStream in = archive.getInputStream(entry)) {
+            read = copy(in, OutputStream.nullOutputStream(), digest);
+        }
+        if (read != size) {
+            problems.add(name + " has " + read + " bytes, expected " + size);
+        } else if (!HexFormat.of().formatHex(digest.digest()).equals(sha256)) {
+            problems.add(name + " does not match its checksum");
+        }
+    }
+
+    private long copy(InputStream in, OutputStream out, MessageDigest digest) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long total = 0;
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            write(out, buffer, n, digest);
+            total += n;
+        }
+        return total;
+    }
+
+    private void write(OutputStream out, byte[] bytes, int length, MessageDigest digest) throws IOException {
+        limiter.acquire(length);
+        digest.update(bytes, 0, length);
+        out.write(bytes, 0, length);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class BackupException extends RuntimeException {
+        private final HttpStatus status;
+
+        public BackupException(HttpStatus status, String message) {
+            super(message);
+            this.status = status;
+        }
+
+        public HttpStatus getStatus() {
+            return status;
+        }
+    }
+}
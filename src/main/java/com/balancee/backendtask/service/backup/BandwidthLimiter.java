@@ -0,0 +1,34 @@
+package com.balancee.backendtask.service.backup;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+// Paces callers to bytesPerSecond on average, with bursts of at most one second's worth; 0 means unlimited
+final class BandwidthLimiter {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long bytesPerSecond;
+    private long nextFree = System.nanoTime();
+
+    BandwidthLimiter(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    synchronized void acquire(long bytes) throws InterruptedIOException {
+        if (bytesPerSecond <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        // Idle time only builds up one second of credit
+        nextFree = Math.max(nextFree, now - SECOND) + (long) ((double) bytes * SECOND / bytesPerSecond);
+        long wait = nextFree - now;
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while throttled");
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.balancee.backendtask.service.notification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.balancee.backendtask.model.OutboxMessage;
+
+// Used when no webhook is configured, so the outbox still drains in development
+public class LoggingNotifier implements Notifier {
+    private static final Logger logger = LoggerFactory.getLogger(LoggingNotifier.class);
+
+    @Override
+    public void send(OutboxMessage message) {
+        logger.info("Notification {} for {}: {}", message.getType(), message.getRecipient(), message.getPayload());
+    }
+}
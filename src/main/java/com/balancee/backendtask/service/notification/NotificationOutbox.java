@@ -0,0 +1,85 @@
+package com.balancee.backendtask.service.notification;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.balancee.backendtask.model.AdminResponse;
+import com.balancee.backendtask.model.NotificationType;
+import com.balancee.backendtask.model.OutboxMessage;
+import com.balancee.backendtask.model.Status;
+import com.balancee.backendtask.repository.OutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Writes notifications for the submitting user into the outbox table. Must be called inside the
+ * transaction of the change being reported, so the message exists exactly when the change does;
+ * the OutboxDispatcher delivers it later, off the request thread.
+ */
+@Component
+public class NotificationOutbox {
+    // Responses can be up to a megabyte; the notification carries the start and the ids to fetch the rest
+    static final int RESPONSE_PREVIEW_LENGTH = 1000;
+
+    private final OutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final Counter enqueued;
+
+    public NotificationOutbox(OutboxRepository outboxRepository, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.enqueued = Counter.builder("feedback.outbox.enqueued").register(meterRegistry);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void responseAdded(AdminResponse response) {
+        Map<String, Object> payload = payload(NotificationType.RESPONSE_ADDED, response.getFeedback().getId(),
+                response.getFeedback().getUserId());
+        payload.put("responseId", response.getId());
+        String text = response.getResponse();
+        boolean truncated = text.length() > RESPONSE_PREVIEW_LENGTH;
+        payload.put("response", truncated ? text.substring(0, RESPONSE_PREVIEW_LENGTH) : text);
+        payload.put("responseTruncated", truncated);
+        enqueue(NotificationType.RESPONSE_ADDED, response.getFeedback().getId(), response.getFeedback().getUserId(), payload);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void statusChanged(UUID feedbackId, String userId, Status status) {
+        Map<String, Object> payload = payload(NotificationType.STATUS_CHANGED, feedbackId, userId);
+        payload.put("status", status);
+        enqueue(NotificationType.STATUS_CHANGED, feedbackId, userId, payload);
+    }
+
+    private Map<String, Object> payload(NotificationType type, UUID feedbackId, String userId) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", type);
+        payload.put("feedbackId", feedbackId);
+        payload.put("userId", userId);
+        payload.put("occurredAt", Instant.now().toString());
+        return payload;
+    }
+
+    private void enqueue(NotificationType type, UUID feedbackId, String userId, Map<String, Object> payload) {
+        OutboxMessage message = new OutboxMessage();
+        message.setType(type);
+        message.setFeedbackId(feedbackId);
+        message.setRecipient(userId);
+        payload.put("messageId", message.getId());
+        try {
+            message.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize notification for feedback " + feedbackId, e);
+        }
+        outboxRepository.save(message);
+        enqueued.increment();
+    }
+}
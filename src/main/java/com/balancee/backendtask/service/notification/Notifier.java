@@ -0,0 +1,12 @@
+package com.balancee.backendtask.service.notification;
+
+import com.balancee.backendtask.model.OutboxMessage;
+
+/**
+ * Delivers one outbox message. Throwing marks the message for a retry. Delivery is at least once:
+ * a dispatcher that dies after sending but before recording it sends the message again, so the
+ * message id should be used to drop duplicates on the receiving side.
+ */
+public interface Notifier {
+    void send(OutboxMessage message) throws Exception;
+}
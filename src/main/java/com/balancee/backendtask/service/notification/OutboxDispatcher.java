@@ -0,0 +1,177 @@
+package com.balancee.backendtask.service.notification;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.balancee.backendtask.model.OutboxMessage;
+import com.balancee.backendtask.model.OutboxState;
+import com.balancee.backendtask.repository.OutboxRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Delivers outbox messages in batches. Each poll claims up to batch-size due messages with one
+ * conditional UPDATE stamped with a fresh claim token, sends them in parallel through the
+ * Notifier, then marks the delivered ones SENT in one statement. A failed message goes back to
+ * PENDING with an exponential, jittered backoff, and becomes FAILED after max-attempts. Messages
+ * left SENDING by a dispatcher that died are claimed again once they are stale.
+ */
+@Component
+public class OutboxDispatcher {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private final OutboxRepository outboxRepository;
+    private final Notifier notifier;
+    private final ExecutorService senders;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration maxBackoff;
+    private final Duration staleAfter;
+    private final Duration retention;
+    private final AtomicLong pending = new AtomicLong();
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter failed;
+    private final Timer batchTimer;
+    private final Timer deliveryLag;
+
+    public OutboxDispatcher(OutboxRepository outboxRepository, Notifier notifier, MeterRegistry meterRegistry,
+                            @Value("${feedback.notifications.senders:4}") int senders,
+                            @Value("${feedback.notifications.batch-size:100}") int batchSize,
+                            @Value("${feedback.notifications.max-attempts:8}") int maxAttempts,
+                            @Value("${feedback.notifications.retry-backoff:1s}") Duration retryBackoff,
+                            @Value("${feedback.notifications.max-backoff:10m}") Duration maxBackoff,
+                            @Value("${feedback.notifications.stale-after:5m}") Duration staleAfter,
+                            @Value("${feedback.notifications.retention:7d}") Duration retention) {
+        this.outboxRepository = outboxRepository;
+        this.notifier = notifier;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.maxBackoff = maxBackoff;
+        this.staleAfter = staleAfter;
+        this.retention = retention;
+        this.senders = Executors.newFixedThreadPool(senders, r -> {
+            Thread thread = new Thread(r, "outbox-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sent = Counter.builder("feedback.outbox.dispatched").tag("outcome", "sent").register(meterRegistry);
+        this.retried = Counter.builder("feedback.outbox.dispatched").tag("outcome", "retry").register(meterRegistry);
+        this.failed = Counter.builder("feedback.outbox.dispatched").tag("outcome", "failed").register(meterRegistry);
+        this.batchTimer = Timer.builder("feedback.outbox.batch").register(meterRegistry);
+        this.deliveryLag = Timer.builder("feedback.outbox.delivery.lag").register(meterRegistry);
+        Gauge.builder("feedback.outbox.pending", pending, AtomicLong::get).register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${feedback.notifications.poll-ms:500}",
+            fixedDelayString = "${feedback.notifications.poll-ms:500}")
+    public void dispatch() {
+        // Keep going while batches come back full so a backlog drains without waiting for the next poll
+        int dispatched;
+        do {
+            dispatched = dispatchBatch();
+        } while (dispatched == batchSize);
+        pending.set(outboxRepository.countByState(OutboxState.PENDING));
+    }
+
+    int dispatchBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minus(staleAfter);
+        List<UUID> ids = outboxRepository.findDispatchable(OutboxState.PENDING, OutboxState.SENDING, now, staleBefore,
+                PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        UUID token = UUID.randomUUID();
+        outboxRepository.claim(ids, token, OutboxState.PENDING, OutboxState.SENDING, now, staleBefore);
+        List<OutboxMessage> claimed = outboxRepository.findByClaimToken(token);
+
+        long start = System.nanoTime();
+        List<CompletableFuture<Throwable>> results = new ArrayList<>(claimed.size());
+        for (OutboxMessage message : claimed) {
+            results.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    notifier.send(message);
+                    return null;
+                } catch (Exception e) {
+                    return e;
+                }
+            }, senders));
+        }
+
+        List<OutboxMessage> delivered = new ArrayList<>();
+        for (int i = 0; i < claimed.size(); i++) {
+            Throwable error = results.get(i).join();
+            if (error == null) {
+                delivered.add(claimed.get(i));
+            } else {
+                reschedule(claimed.get(i), token, error);
+            }
+        }
+        if (!delivered.isEmpty()) {
+            LocalDateTime sentAt = LocalDateTime.now();
+            outboxRepository.markSent(delivered.stream().map(OutboxMessage::getId).toList(), token, OutboxState.SENT, sentAt);
+            sent.increment(delivered.size());
+            delivered.forEach(message -> deliveryLag.record(Duration.between(message.getCreatedAt(), sentAt)));
+        }
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        logger.debug("Dispatched outbox batch: {} claimed, {} delivered", claimed.size(), delivered.size());
+        return claimed.size();
+    }
+
+    private void reschedule(OutboxMessage message, UUID token, Throwable error) {
+        String reason = String.valueOf(error.getMessage());
+        reason = reason.length() > 500 ? reason.substring(0, 500) : reason;
+        if (message.getAttempts() >= maxAttempts) {
+            outboxRepository.markUnsent(message.getId(), token, OutboxState.FAILED, null, reason);
+            failed.increment();
+            logger.error("Giving up on notification {} for feedback {} after {} attempts",
+                    message.getId(), message.getFeedbackId(), message.getAttempts(), error);
+            return;
+        }
+        // Jittered so messages that failed together do not retry together
+        long capMs = Math.min(maxBackoff.toMillis(), retryBackoff.toMillis() << Math.min(message.getAttempts() - 1, 20));
+        long delayMs = ThreadLocalRandom.current().nextLong(capMs / 2, capMs + 1);
+        outboxRepository.markUnsent(message.getId(), token, OutboxState.PENDING,
+                LocalDateTime.now().plusNanos(delayMs * 1_000_000), reason);
+        retried.increment();
+        logger.warn("Notification {} failed (attempt {}), retrying in {} ms: {}",
+                message.getId(), message.getAttempts(), delayMs, reason);
+    }
+
+    @Scheduled(initialDelayString = "${feedback.notifications.cleanup-interval-ms:3600000}",
+            fixedDelayString = "${feedback.notifications.cleanup-interval-ms:3600000}")
+    public void purgeSent() {
+        int removed = outboxRepository.deleteSentBefore(OutboxState.SENT, LocalDateTime.now().minus(retention));
+        if (removed > 0) {
+            logger.info("Purged {} delivered notifications", removed);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdown();
+    }
+}
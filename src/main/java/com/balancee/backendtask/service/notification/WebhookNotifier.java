@@ -0,0 +1,38 @@
+package com.balancee.backendtask.service.notification;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+import com.balancee.backendtask.model.OutboxMessage;
+
+// POSTs the message payload as JSON. Any status outside 2xx is a failed delivery.
+public class WebhookNotifier implements Notifier {
+    private final URI endpoint;
+    private final Duration timeout;
+    private final HttpClient client;
+
+    public WebhookNotifier(URI endpoint, Duration timeout) {
+        this.endpoint = endpoint;
+        this.timeout = timeout;
+        this.client = HttpClient.newBuilder().connectTimeout(timeout).build();
+    }
+
+    @Override
+    public void send(OutboxMessage message) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(endpoint)
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .header("Idempotency-Key", message.getId().toString())
+                .header("X-Notification-Type", message.getType().name())
+                .POST(HttpRequest.BodyPublishers.ofString(message.getPayload()))
+                .build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("Webhook answered " + response.statusCode());
+        }
+    }
+}
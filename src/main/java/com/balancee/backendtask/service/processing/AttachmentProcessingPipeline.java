@@ -0,0 +1,234 @@
+package com.balancee.backendtask.service.processing;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.balancee.backendtask.events.FeedbackEvent;
+import com.balancee.backendtask.events.FeedbackEventType;
+import com.balancee.backendtask.model.Attachment;
+import com.balancee.backendtask.model.ProcessingState;
+import com.balancee.backendtask.repository.ArchivedAttachmentRepository;
+import com.balancee.backendtask.repository.AttachmentRepository;
+import com.balancee.backendtask.service.backup.BackupService;
+import com.balancee.backendtask.service.storage.AttachmentStorage;
+import com.balancee.backendtask.service.storage.AttachmentStorage.StoredObject;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs the attachment stages (checksum, content sniffing, compression) off the request thread.
+ * Uploads only enqueue the new row's id; a full queue is not an error because the periodic
+ * sweep picks up every PENDING row anyway. Each attachment is claimed with a conditional
+ * update so the enqueue and the sweep never process it twice. Failures go back to PENDING
+ * with an exponentially growing nextAttemptAt, up to the configured number of attempts,
+ * after which the row is FAILED.
+ */
+@Component
+public class AttachmentProcessingPipeline {
+    private static final Logger logger = LoggerFactory.getLogger(AttachmentProcessingPipeline.class);
+
+    private final AttachmentRepository attachmentRepository;
+    private final ArchivedAttachmentRepository archivedAttachmentRepository;
+    private final List<AttachmentStage> stages;
+    private final AttachmentStorage storage;
+    private final BackupService backupService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService retries = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "attachment-processing-retry");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration staleAfter;
+    private final Duration orphanMinAge;
+
+    public AttachmentProcessingPipeline(AttachmentRepository attachmentRepository,
+                                        ArchivedAttachmentRepository archivedAttachmentRepository,
+                                        List<AttachmentStage> stages,
+                                        AttachmentStorage storage,
+                                        BackupService backupService,
+                                        ApplicationEventPublisher eventPublisher,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${feedback.attachments.processing.threads:2}") int threads,
+                                        @Value("${feedback.attachments.processing.queue-capacity:500}") int queueCapacity,
+                                        @Value("${feedback.attachments.processing.max-attempts:5}") int maxAttempts,
+                                        @Value("${feedback.attachments.processing.retry-backoff:2s}") Duration retryBackoff,
+                                        @Value("${feedback.attachments.processing.stale-after:10m}") Duration staleAfter,
+                                        @Value("${feedback.attachments.orphan-min-age:1d}") Duration orphanMinAge) {
+        this.attachmentRepository = attachmentRepository;
+        this.archivedAttachmentRepository = archivedAttachmentRepository;
+        this.stages = stages;
+        this.storage = storage;
+        this.backupService = backupService;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.staleAfter = staleAfter;
+        this.orphanMinAge = orphanMinAge;
+        this.workers = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "attachment-processing");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        Gauge.builder("attachment.processing.queue.size", workers, executor -> executor.getQueue().size())
+                .register(meterRegistry);
+    }
+
+    // Never blocks the caller
+    public void submit(UUID attachmentId) {
+        try {
+            workers.execute(() -> process(attachmentId));
+        } catch (RejectedExecutionException e) {
+            logger.debug("Processing queue full, attachment {} left for the sweep", attachmentId);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${feedback.attachments.processing.sweep-ms:30000}",
+            fixedDelayString = "${feedback.attachments.processing.sweep-ms:30000}")
+    public void sweep() {
+        int capacity = workers.getQueue().remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        attachmentRepository.findIdsToProcess(ProcessingState.PENDING, ProcessingState.PROCESSING, now,
+                now.minus(staleAfter), PageRequest.of(0, capacity)).forEach(this::submit);
+    }
+
+    private void process(UUID attachmentId) {
+        LocalDateTime now = LocalDateTime.now();
+        if (attachmentRepository.claimForProcessing(attachmentId, ProcessingState.PENDING, ProcessingState.PROCESSING,
+                now, now.minus(staleAfter)) == 0) {
+            return;
+        }
+        Optional<Attachment> attachmentOpt = attachmentRepository.findById(attachmentId);
+        if (attachmentOpt.isEmpty()) {
+            return;
+        }
+        Attachment attachment = attachmentOpt.get();
+        attachment.setProcessingAttempts(attachment.getProcessingAttempts() + 1);
+
+        for (AttachmentStage stage : stages) {
+            long start = System.nanoTime();
+            try {
+                stage.process(attachment);
+                record(stage, "success", start);
+            } catch (Exception e) {
+                record(stage, "failure", start);
+                fail(attachment, stage, e);
+                return;
+            }
+        }
+
+        attachment.setProcessingState(ProcessingState.PROCESSED);
+        attachment.setProcessingUpdatedAt(LocalDateTime.now());
+        attachment.setNextAttemptAt(null);
+        attachmentRepository.save(attachment);
+        publishUpdated(attachment);
+        logger.info("Attachment {} processed: type={}, compressed={}", attachmentId,
+                attachment.getDetectedContentType(), attachment.isCompressed());
+    }
+
+    private void fail(Attachment attachment, AttachmentStage stage, Exception e) {
+        boolean retry = attachment.getProcessingAttempts() < maxAttempts;
+        long delayMs = retryBackoff.toMillis() << Math.min(attachment.getProcessingAttempts() - 1, 10);
+        attachment.setProcessingState(retry ? ProcessingState.PENDING : ProcessingState.FAILED);
+        attachment.setProcessingUpdatedAt(LocalDateTime.now());
+        attachment.setNextAttemptAt(retry ? LocalDateTime.now().plusNanos(delayMs * 1_000_000) : null);
+        attachmentRepository.save(attachment);
+        publishUpdated(attachment);
+
+        if (retry) {
+            logger.warn("Attachment {} failed at stage {} (attempt {}), retrying in {} ms",
+                    attachment.getId(), stage.name(), attachment.getProcessingAttempts(), delayMs, e);
+            Counter.builder("attachment.processing.retries").tag("stage", stage.name()).register(meterRegistry).increment();
+            retries.schedule(() -> submit(attachment.getId()), delayMs, TimeUnit.MILLISECONDS);
+        } else {
+            logger.error("Attachment {} failed at stage {} after {} attempts",
+                    attachment.getId(), stage.name(), attachment.getProcessingAttempts(), e);
+            Counter.builder("attachment.processing.failed").tag("stage", stage.name()).register(meterRegistry).increment();
+        }
+    }
+
+    // Size, type and state changed: bumps the feedback's attachments ETag and tells event subscribers
+    private void publishUpdated(Attachment attachment) {
+        eventPublisher.publishEvent(FeedbackEvent.of(FeedbackEventType.ATTACHMENT_UPDATED, attachment.getFeedback()));
+    }
+
+    private void record(AttachmentStage stage, String outcome, long startNanos) {
+        Timer.builder("attachment.processing.stage")
+                .tag("stage", stage.name())
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Removes stored objects that no attachment (live or archived) references, such as originals
+    // replaced by their compressed copy or files from uploads whose row was never saved
+    @Scheduled(initialDelayString = "${feedback.attachments.cleanup-interval-ms:3600000}",
+            fixedDelayString = "${feedback.attachments.cleanup-interval-ms:3600000}")
+    public void removeStaleFiles() {
+        Set<String> referenced = new HashSet<>(attachmentRepository.findAllFilePaths());
+        referenced.addAll(archivedAttachmentRepository.findAllFilePaths());
+        Instant cutoff = Instant.now().minus(orphanMinAge);
+
+        int removed = 0;
+        try (Stream<StoredObject> objects = storage.list()) {
+            for (StoredObject object : (Iterable<StoredObject>) objects::iterator) {
+                if (referenced.contains(object.key()) || object.lastModified().isAfter(cutoff)) {
+                    continue;
+                }
+                // A running snapshot may still have to copy a file its dump references
+                if (backupService.inProgress()) {
+                    logger.info("Stale upload cleanup stopped for a running snapshot");
+                    break;
+                }
+                storage.delete(object.key());
+                removed++;
+            }
+        } catch (IOException | UncheckedIOException e) {
+            logger.warn("Stale upload cleanup failed", e);
+        }
+        if (removed > 0) {
+            logger.info("Removed {} unreferenced upload files", removed);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retries.shutdownNow();
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,12 @@
+package com.balancee.backendtask.service.processing;
+
+import java.io.IOException;
+
+import com.balancee.backendtask.model.Attachment;
+
+// One step of post-upload processing. Stages must be idempotent: a retry runs them all again.
+public interface AttachmentStage {
+    String name();
+
+    void process(Attachment attachment) throws IOException;
+}
@@ -0,0 +1,53 @@
+package com.balancee.backendtask.service.processing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.balancee.backendtask.model.Attachment;
+import com.balancee.backendtask.service.storage.AttachmentStorage;
+
+@Component
+@Order(1)
+public class ChecksumStage implements AttachmentStage {
+    private final AttachmentStorage storage;
+
+    public ChecksumStage(AttachmentStorage storage) {
+        this.storage = storage;
+    }
+
+    @Override
+    public String name() {
+        return "checksum";
+    }
+
+    // Checksum of the content as uploaded, so it runs before compression
+    @Override
+    public void process(Attachment attachment) throws IOException {
+        if (attachment.getChecksum() != null) {
+            return;
+        }
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = storage.get(attachment.getFilePath())) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        attachment.setChecksum(HexFormat.of().formatHex(digest.digest()));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.balancee.backendtask.service.processing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import com.balancee.backendtask.model.Attachment;
+import com.balancee.backendtask.service.storage.AttachmentStorage;
+
+// Gzips text/log attachments above a threshold; fileSize and checksum keep describing the original bytes
+@Component
+@Order(3)
+public class CompressionStage implements AttachmentStage {
+    private final AttachmentStorage storage;
+    private final long minSize;
+
+    public CompressionStage(AttachmentStorage storage,
+                            @Value("${feedback.attachments.compress-min-size:4KB}") DataSize minSize) {
+        this.storage = storage;
+        this.minSize = minSize.toBytes();
+    }
+
+    @Override
+    public String name() {
+        return "compress";
+    }
+
+    @Override
+    public void process(Attachment attachment) throws IOException {
+        if (attachment.isCompressed() || !"text/plain".equals(attachment.getDetectedContentType())) {
+            return;
+        }
+        if (attachment.getFileSize() < minSize) {
+            return;
+        }
+        String source = attachment.getFilePath();
+
+        // Compressed into a local temp file first, since the size has to be known before storing
+        Path temp = Files.createTempFile("attachment", ".gz.tmp");
+        String target;
+        try {
+            try (InputStream in = storage.get(source);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp), 64 * 1024)) {
+                in.transferTo(out);
+            }
+            target = storage.putFile(source.substring(source.lastIndexOf('/') + 1) + ".gz", temp, "application/gzip");
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        // The uncompressed original is no longer referenced once the row is saved; the stale file sweep removes it
+        attachment.setFilePath(target);
+        attachment.setCompressed(true);
+    }
+}
@@ -0,0 +1,107 @@
+package com.balancee.backendtask.service.processing;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import com.balancee.backendtask.model.Attachment;
+import com.balancee.backendtask.service.storage.AttachmentStorage;
+
+// Detects the content type from the leading bytes instead of trusting the client's Content-Type
+@Component
+@Order(2)
+public class ContentTypeSniffingStage implements AttachmentStage {
+    private static final int SNIFF_BYTES = 8192;
+
+    private final AttachmentStorage storage;
+
+    public ContentTypeSniffingStage(AttachmentStorage storage) {
+        this.storage = storage;
+    }
+
+    @Override
+    public String name() {
+        return "sniff";
+    }
+
+    @Override
+    public void process(Attachment attachment) throws IOException {
+        if (attachment.getDetectedContentType() != null) {
+            return;
+        }
+        byte[] head;
+        try (InputStream in = storage.getRange(attachment.getFilePath(), 0, SNIFF_BYTES)) {
+            head = in.readNBytes(SNIFF_BYTES);
+        }
+        attachment.setDetectedContentType(detect(head));
+    }
+
+    static String detect(byte[] head) {
+        if (startsWith(head, 0x89, 'P', 'N', 'G')) {
+            return "image/png";
+        }
+        if (startsWith(head, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(head, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(head, '%', 'P', 'D', 'F')) {
+            return "application/pdf";
+        }
+        if (startsWith(head, 'P', 'K', 0x03, 0x04)) {
+            return "application/zip";
+        }
+        if (startsWith(head, 0x1F, 0x8B)) {
+            return "application/gzip";
+        }
+        return isText(head) ? "text/plain" : "application/octet-stream";
+    }
+
+    private static boolean startsWith(byte[] data, int... prefix) {
+        if (data.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((data[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Valid UTF-8 without NUL bytes; a multi-byte sequence cut off at the sniff boundary is allowed
+    private static boolean isText(byte[] head) {
+        for (byte b : head) {
+            if (b == 0) {
+                return false;
+            }
+        }
+        int length = head.length;
+        if (length == SNIFF_BYTES) {
+            int back = 0;
+            while (back < 3 && back < length && (head[length - 1 - back] & 0xC0) == 0x80) {
+                back++;
+            }
+            if (back < length && (head[length - 1 - back] & 0xC0) == 0xC0) {
+                length -= back + 1;
+            }
+        }
+        try {
+            StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(Arrays.copyOf(head, length)));
+            return true;
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.balancee.backendtask.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+/**
+ * Where attachment bytes live. Attachment.filePath holds the key returned by put. Objects are
+ * written once and never modified, so a key always names the same bytes. Missing keys are
+ * reported as NoSuchFileException.
+ */
+public interface AttachmentStorage {
+
+    record StoredObject(String key, long size, Instant lastModified) {
+    }
+
+    // Stores size bytes from content under a new key derived from name and returns the key
+    String put(String name, InputStream content, long size, String contentType) throws IOException;
+
+    // Stores a finished local file and removes it; backends on the same disk can simply move it
+    default String putFile(String name, Path file, String contentType) throws IOException {
+        String key;
+        try (InputStream in = Files.newInputStream(file)) {
+            key = put(name, in, Files.size(file), contentType);
+        }
+        Files.deleteIfExists(file);
+        return key;
+    }
+
+    InputStream get(String key) throws IOException;
+
+    // length bytes starting at offset, fewer if the object ends first
+    InputStream getRange(String key, long offset, long length) throws IOException;
+
+    long size(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    // Every stored object; the caller closes the stream
+    Stream<StoredObject> list() throws IOException;
+}
@@ -0,0 +1,194 @@
+package com.balancee.backendtask.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Keeps recently read objects of a remote storage on local disk, least recently used out first
+ * once the cache passes maxBytes. Objects never change under a key, so an entry is valid until
+ * the key is deleted. Processing reads an upload right after it is stored, so putFile keeps a
+ * copy on the way in. Objects bigger than a quarter of the cache are not kept, so one large
+ * download cannot flush everything else.
+ */
+public class CachingAttachmentStorage implements AttachmentStorage {
+    private static final Logger logger = LoggerFactory.getLogger(CachingAttachmentStorage.class);
+
+    private final AttachmentStorage delegate;
+    private final Path directory;
+    private final long maxBytes;
+    private final Counter hits;
+    private final Counter misses;
+    // Guarded by itself; access order, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes;
+
+    public CachingAttachmentStorage(AttachmentStorage delegate, Path directory, long maxBytes,
+                                    MeterRegistry meterRegistry) throws IOException {
+        this.delegate = delegate;
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.hits = Counter.builder("feedback.storage.cache").tag("outcome", "hit").register(meterRegistry);
+        this.misses = Counter.builder("feedback.storage.cache").tag("outcome", "miss").register(meterRegistry);
+        Gauge.builder("feedback.storage.cache.bytes", this, CachingAttachmentStorage::cachedBytes).register(meterRegistry);
+        // Entries from a previous run are not tracked, start empty
+        Files.createDirectories(directory);
+        try (Stream<Path> stale = Files.list(directory)) {
+            for (Path path : stale.toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Override
+    public String put(String name, InputStream content, long size, String contentType) throws IOException {
+        return delegate.put(name, content, size, contentType);
+    }
+
+    @Override
+    public String putFile(String name, Path file, String contentType) throws IOException {
+        long size = Files.size(file);
+        Path copy = null;
+        if (cacheable(size)) {
+            copy = Files.createTempFile(directory, "put", ".tmp");
+            Files.copy(file, copy, StandardCopyOption.REPLACE_EXISTING);
+        }
+        try {
+            String key = delegate.putFile(name, file, contentType);
+            if (copy != null) {
+                admit(key, copy, size);
+                copy = null;
+            }
+            return key;
+        } finally {
+            if (copy != null) {
+                Files.deleteIfExists(copy);
+            }
+        }
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        InputStream cached = openCached(key);
+        if (cached != null) {
+            return cached;
+        }
+        long size = delegate.size(key);
+        if (!cacheable(size)) {
+            return delegate.get(key);
+        }
+        Path download = Files.createTempFile(directory, "get", ".tmp");
+        try (InputStream in = delegate.get(key)) {
+            Files.copy(in, download, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(download);
+            throw e;
+        }
+        // Open before admitting: an eviction right after would otherwise delete it from under us
+        InputStream in = Files.newInputStream(download);
+        admit(key, download, size);
+        return in;
+    }
+
+    @Override
+    public InputStream getRange(String key, long offset, long length) throws IOException {
+        InputStream cached = openCached(key);
+        if (cached == null) {
+            // A range is usually a client seeking in a large file; fetching all of it would not pay off
+            return delegate.getRange(key, offset, length);
+        }
+        // skip stops at the end of the file
+        cached.skip(offset);
+        return new BoundedInputStream(cached, length);
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        synchronized (entries) {
+            Long size = entries.get(key);
+            if (size != null) {
+                return size;
+            }
+        }
+        return delegate.size(key);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        delegate.delete(key);
+        synchronized (entries) {
+            Long size = entries.remove(key);
+            if (size != null) {
+                cachedBytes -= size;
+            }
+        }
+        Files.deleteIfExists(pathFor(key));
+    }
+
+    @Override
+    public Stream<StoredObject> list() throws IOException {
+        return delegate.list();
+    }
+
+    long cachedBytes() {
+        synchronized (entries) {
+            return cachedBytes;
+        }
+    }
+
+    private boolean cacheable(long size) {
+        return size >= 0 && size <= maxBytes / 4;
+    }
+
+    // Opened under the lock so an eviction cannot remove the file between lookup and open
+    private InputStream openCached(String key) throws IOException {
+        synchronized (entries) {
+            if (entries.get(key) != null) {
+                hits.increment();
+                return Files.newInputStream(pathFor(key));
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    private void admit(String key, Path file, long size) throws IOException {
+        Path target = pathFor(key);
+        synchronized (entries) {
+            Files.move(file, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Long previous = entries.put(key, size);
+            cachedBytes += size - (previous == null ? 0 : previous);
+            Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+            while (cachedBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                if (entry.getKey().equals(key)) {
+                    continue;
+                }
+                eldest.remove();
+                cachedBytes -= entry.getValue();
+                // Readers that already opened it keep their handle
+                Files.deleteIfExists(pathFor(entry.getKey()));
+                logger.debug("Evicted {} from the attachment cache", entry.getKey());
+            }
+        }
+    }
+
+    // Keys may contain '/' and other characters a file name cannot
+    private Path pathFor(String key) {
+        return directory.resolve(S3RequestSigner.sha256Hex(key.getBytes(StandardCharsets.UTF_8)));
+    }
+}
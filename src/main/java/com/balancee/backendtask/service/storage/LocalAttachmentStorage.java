@@ -0,0 +1,91 @@
+package com.balancee.backendtask.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+// Keys are file paths under the upload directory, the same form filePath has always had
+public class LocalAttachmentStorage implements AttachmentStorage {
+    private final Path root;
+
+    public LocalAttachmentStorage(Path root) throws IOException {
+        this.root = root.normalize();
+        Files.createDirectories(root);
+    }
+
+    @Override
+    public String put(String name, InputStream content, long size, String contentType) throws IOException {
+        Path target = resolve(root.resolve(name).toString());
+        Files.copy(content, target, StandardCopyOption.REPLACE_EXISTING);
+        return target.toString();
+    }
+
+    @Override
+    public String putFile(String name, Path file, String contentType) throws IOException {
+        Path target = resolve(root.resolve(name).toString());
+        try {
+            Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Staged on another file system
+            Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return target.toString();
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public InputStream getRange(String key, long offset, long length) throws IOException {
+        FileChannel channel = FileChannel.open(resolve(key), StandardOpenOption.READ);
+        channel.position(offset);
+        return new BoundedInputStream(Channels.newInputStream(channel), length);
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return Files.size(resolve(key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public Stream<StoredObject> list() throws IOException {
+        return Files.list(root)
+                .filter(Files::isRegularFile)
+                .map(path -> {
+                    try {
+                        return new StoredObject(path.normalize().toString(), Files.size(path),
+                                Files.getLastModifiedTime(path).toInstant());
+                    } catch (IOException e) {
+                        // Removed between listing and stat
+                        return null;
+                    }
+                })
+                .filter(Objects::nonNull);
+    }
+
+    // Keys come from the database; never let one point outside the upload directory
+    private Path resolve(String key) throws NoSuchFileException {
+        Path path = Paths.get(key).normalize();
+        if (!path.toAbsolutePath().startsWith(root.toAbsolutePath()) || path.equals(root)) {
+            throw new NoSuchFileException(key);
+        }
+        return path;
+    }
+}
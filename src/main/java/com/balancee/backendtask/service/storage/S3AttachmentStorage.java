@@ -0,0 +1,397 @@
+package com.balancee.backendtask.service.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Stream;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * Stores attachments in an S3-compatible bucket (AWS, MinIO, Ceph, ...) so every node sees the
+ * same objects. Requests are signed with SigV4 over plain HTTP, with no SDK. Objects larger than
+ * one part go up as a multipart upload whose parts are sent in parallel; a shared semaphore caps
+ * the parts in memory across all uploads at uploadConcurrency, so memory stays at most
+ * uploadConcurrency * partSize however many users upload at once.
+ */
+public class S3AttachmentStorage implements AttachmentStorage {
+    private static final Logger logger = LoggerFactory.getLogger(S3AttachmentStorage.class);
+    // S3 rejects smaller parts other than the last one
+    static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+    public record Settings(URI endpoint, String bucket, String region, String accessKey, String secretKey,
+                           boolean pathStyle, String prefix, long partSize, int uploadConcurrency,
+                           Duration timeout) {
+    }
+
+    private final Settings settings;
+    private final int partSize;
+    private final Semaphore partSlots;
+    private final S3RequestSigner signer;
+    private final HttpClient client;
+
+    public S3AttachmentStorage(Settings settings) {
+        this.settings = settings;
+        this.partSize = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(MIN_PART_SIZE, settings.partSize()));
+        this.partSlots = new Semaphore(Math.max(1, settings.uploadConcurrency()));
+        this.signer = new S3RequestSigner(settings.accessKey(), settings.secretKey(), settings.region());
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(settings.timeout())
+                .build();
+    }
+
+    @Override
+    public String put(String name, InputStream content, long size, String contentType) throws IOException {
+        String key = settings.prefix() + name;
+        if (size >= 0 && size <= partSize) {
+            HttpRequest.BodyPublisher body = HttpRequest.BodyPublishers.fromPublisher(
+                    HttpRequest.BodyPublishers.ofInputStream(() -> content), size);
+            send(request("PUT", key, null, contentTypeHeader(contentType), S3RequestSigner.UNSIGNED_PAYLOAD)
+                    .PUT(body), key, HttpResponse.BodyHandlers.discarding());
+        } else {
+            putMultipart(key, content, contentType);
+        }
+        return key;
+    }
+
+    private void putMultipart(String key, InputStream content, String contentType) throws IOException {
+        String uploadId = text(parse(send(request("POST", key, "uploads", contentTypeHeader(contentType),
+                S3RequestSigner.EMPTY_SHA256).POST(HttpRequest.BodyPublishers.noBody()), key,
+                HttpResponse.BodyHandlers.ofByteArray()).body()), "UploadId");
+        List<CompletableFuture<String>> parts = new ArrayList<>();
+        try {
+            for (int partNumber = 1; ; partNumber++) {
+                // Wait for a free slot before reading, so at most uploadConcurrency parts are buffered
+                acquirePartSlot();
+                byte[] part;
+                try {
+                    part = content.readNBytes(partSize);
+                } catch (IOException e) {
+                    partSlots.release();
+                    throw e;
+                }
+                if (part.length == 0 && partNumber > 1) {
+                    partSlots.release();
+                    break;
+                }
+                parts.add(uploadPart(key, uploadId, partNumber, part));
+                if (part.length < partSize) {
+                    break;
+                }
+                failFast(parts);
+            }
+            StringBuilder manifest = new StringBuilder("<CompleteMultipartUpload>");
+            for (int i = 0; i < parts.size(); i++) {
+                manifest.append("<Part><PartNumber>").append(i + 1).append("</PartNumber><ETag>")
+                        .append(escape(join(parts.get(i)))).append("</ETag></Part>");
+            }
+            byte[] body = manifest.append("</CompleteMultipartUpload>").toString().getBytes(StandardCharsets.UTF_8);
+            // A completion that fails part way still answers 200, with an Error document as the body
+            Document result = parse(send(request("POST", key, "uploadId=" + S3RequestSigner.encode(uploadId, false),
+                    Map.of("Content-Type", "application/xml"), S3RequestSigner.sha256Hex(body))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body)), key,
+                    HttpResponse.BodyHandlers.ofByteArray()).body());
+            if ("Error".equals(result.getDocumentElement().getTagName())) {
+                throw new IOException("S3 rejected multipart upload of " + key + ": " + text(result, "Code"));
+            }
+            logger.debug("Uploaded {} in {} parts", key, parts.size());
+        } catch (IOException | RuntimeException e) {
+            // Let parts in flight settle first, or they could land after the abort
+            CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new)).exceptionally(error -> null).join();
+            abort(key, uploadId);
+            throw e;
+        }
+    }
+
+    private CompletableFuture<String> uploadPart(String key, String uploadId, int partNumber, byte[] part) {
+        HttpRequest request = request("PUT", key,
+                "partNumber=" + partNumber + "&uploadId=" + S3RequestSigner.encode(uploadId, false),
+                Map.of(), S3RequestSigner.sha256Hex(part))
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(part))
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> partSlots.release())
+                .thenApply(response -> {
+                    if (response.statusCode() / 100 != 2) {
+                        throw new UncheckedIOException(failure("PUT", key, response.statusCode(), response.body()));
+                    }
+                    return response.headers().firstValue("ETag")
+                            .orElseThrow(() -> new UncheckedIOException(
+                                    new IOException("S3 returned no ETag for part " + partNumber + " of " + key)));
+                });
+    }
+
+    // Stops reading the rest of the upload as soon as one part has failed
+    private static void failFast(List<CompletableFuture<String>> parts) throws IOException {
+        for (CompletableFuture<String> part : parts) {
+            if (part.isCompletedExceptionally()) {
+                join(part);
+            }
+        }
+    }
+
+    private void abort(String key, String uploadId) {
+        try {
+            send(request("DELETE", key, "uploadId=" + S3RequestSigner.encode(uploadId, false), Map.of(),
+                    S3RequestSigner.EMPTY_SHA256).DELETE(), key, HttpResponse.BodyHandlers.discarding());
+        } catch (IOException e) {
+            // The bucket's lifecycle rule for incomplete uploads reclaims the parts eventually
+            logger.warn("Could not abort multipart upload {} of {}", uploadId, key, e);
+        }
+    }
+
+    @Override
+    public InputStream get(String key) throws IOException {
+        return send(request("GET", key, null, Map.of(), S3RequestSigner.EMPTY_SHA256).GET(), key,
+                HttpResponse.BodyHandlers.ofInputStream()).body();
+    }
+
+    @Override
+    public InputStream getRange(String key, long offset, long length) throws IOException {
+        if (length <= 0) {
+            return InputStream.nullInputStream();
+        }
+        String range = "bytes=" + offset + "-" + (offset + length - 1);
+        HttpRequest request = request("GET", key, null, Map.of("Range", range), S3RequestSigner.EMPTY_SHA256)
+                .GET()
+                .build();
+        HttpResponse<InputStream> response = sendRaw(request);
+        if (response.statusCode() == 416) {
+            // Starts at or past the end of the object
+            response.body().close();
+            return InputStream.nullInputStream();
+        }
+        check(response, "GET", key);
+        // A server that ignores Range sends the whole object
+        if (response.statusCode() == 200) {
+            InputStream body = response.body();
+            body.skipNBytes(offset);
+            return new BoundedInputStream(body, length);
+        }
+        return response.body();
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        HttpResponse<Void> response = send(request("HEAD", key, null, Map.of(), S3RequestSigner.EMPTY_SHA256)
+                .method("HEAD", HttpRequest.BodyPublishers.noBody()), key, HttpResponse.BodyHandlers.discarding());
+        return response.headers().firstValueAsLong("Content-Length").orElseThrow(
+                () -> new IOException("S3 returned no Content-Length for " + key));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            send(request("DELETE", key, null, Map.of(), S3RequestSigner.EMPTY_SHA256).DELETE(), key,
+                    HttpResponse.BodyHandlers.discarding());
+        } catch (NoSuchFileException e) {
+            // Already gone
+        }
+    }
+
+    private record ListPage(List<StoredObject> objects, String nextToken) {
+    }
+
+    @Override
+    public Stream<StoredObject> list() throws IOException {
+        // Pages are fetched as the stream is consumed
+        return Stream.iterate(listPage(null), Objects::nonNull, page -> {
+                    if (page.nextToken() == null) {
+                        return null;
+                    }
+                    try {
+                        return listPage(page.nextToken());
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .flatMap(page -> page.objects().stream());
+    }
+
+    private ListPage listPage(String continuationToken) throws IOException {
+        StringBuilder query = new StringBuilder("list-type=2&prefix=").append(S3RequestSigner.encode(settings.prefix(), false));
+        if (continuationToken != null) {
+            query.append("&continuation-token=").append(S3RequestSigner.encode(continuationToken, false));
+        }
+        Document page = parse(send(request("GET", "", query.toString(), Map.of(), S3RequestSigner.EMPTY_SHA256).GET(),
+                settings.bucket(), HttpResponse.BodyHandlers.ofByteArray()).body());
+        List<StoredObject> objects = new ArrayList<>();
+        NodeList contents = page.getElementsByTagName("Contents");
+        for (int i = 0; i < contents.getLength(); i++) {
+            Element object = (Element) contents.item(i);
+            objects.add(new StoredObject(text(object, "Key"), Long.parseLong(text(object, "Size")),
+                    Instant.parse(text(object, "LastModified"))));
+        }
+        boolean truncated = "true".equals(text(page.getDocumentElement(), "IsTruncated"));
+        return new ListPage(objects, truncated ? text(page.getDocumentElement(), "NextContinuationToken") : null);
+    }
+
+    private HttpRequest.Builder request(String method, String key, String query, Map<String, String> headers,
+                                        String payloadHash) {
+        URI uri = objectUri(key, query);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(settings.timeout());
+        headers.forEach(builder::header);
+        signer.sign(method, uri, headers, payloadHash, ZonedDateTime.now()).forEach(builder::header);
+        return builder;
+    }
+
+    private URI objectUri(String key, String query) {
+        URI endpoint = settings.endpoint();
+        String authority = endpoint.getRawAuthority();
+        String path = "/" + S3RequestSigner.encode(key, true);
+        if (settings.pathStyle()) {
+            path = "/" + settings.bucket() + path;
+        } else {
+            authority = settings.bucket() + "." + authority;
+        }
+        return URI.create(endpoint.getScheme() + "://" + authority + path + (query == null ? "" : "?" + query));
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest.Builder request, String key, HttpResponse.BodyHandler<T> handler)
+            throws IOException {
+        HttpResponse<T> response;
+        try {
+            response = client.send(request.build(), handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted talking to S3 about " + key);
+        }
+        if (response.statusCode() / 100 != 2) {
+            if (response.statusCode() == 404) {
+                throw new NoSuchFileException(key);
+            }
+            throw failure(request.build().method(), key, response.statusCode(), bodyText(response.body()));
+        }
+        return response;
+    }
+
+    private HttpResponse<InputStream> sendRaw(HttpRequest request) throws IOException {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted talking to S3");
+        }
+    }
+
+    private static void check(HttpResponse<InputStream> response, String method, String key) throws IOException {
+        if (response.statusCode() / 100 == 2) {
+            return;
+        }
+        String body;
+        try (InputStream in = response.body()) {
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        if (response.statusCode() == 404) {
+            throw new NoSuchFileException(key);
+        }
+        throw failure(method, key, response.statusCode(), body);
+    }
+
+    private static String bodyText(Object body) throws IOException {
+        if (body instanceof byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (body instanceof InputStream in) {
+            try (in) {
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+        return body == null ? "" : body.toString();
+    }
+
+    private static IOException failure(String method, String key, int status, String body) {
+        int start = body.indexOf("<Code>");
+        int end = body.indexOf("</Code>");
+        String code = start >= 0 && end > start ? " " + body.substring(start + 6, end) : "";
+        return new IOException("S3 " + method + " " + key + " answered " + status + code);
+    }
+
+    private void acquirePartSlot() throws InterruptedIOException {
+        try {
+            partSlots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting to upload a part");
+        }
+    }
+
+    private static String join(CompletableFuture<String> part) throws IOException {
+        try {
+            return part.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException io) {
+                throw io.getCause();
+            }
+            throw new IOException("Part upload failed", e.getCause());
+        }
+    }
+
+    private static Map<String, String> contentTypeHeader(String contentType) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        if (contentType != null && !contentType.isBlank()) {
+            headers.put("Content-Type", contentType);
+        }
+        return headers;
+    }
+
+    private static Document parse(byte[] xml) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+            factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+            return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Unreadable S3 response", e);
+        }
+    }
+
+    private static String text(Document document, String tag) throws IOException {
+        return text(document.getDocumentElement(), tag);
+    }
+
+    private static String text(Element parent, String tag) throws IOException {
+        if (parent.getTagName().equals(tag)) {
+            return parent.getTextContent();
+        }
+        NodeList nodes = parent.getElementsByTagName(tag);
+        if (nodes.getLength() == 0) {
+            throw new IOException("S3 response has no " + tag);
+        }
+        return nodes.item(0).getTextContent();
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,47 @@
+package com.balancee.backendtask.service.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.springframework.core.io.AbstractResource;
+
+/**
+ * A stored object as a Spring Resource that can be opened more than once, so Spring MVC can
+ * answer Range requests on it by itself. Compressed objects are served gunzipped, and size must
+ * then be the uncompressed size.
+ */
+public class StoredObjectResource extends AbstractResource {
+    private final AttachmentStorage storage;
+    private final String key;
+    private final long size;
+    private final boolean compressed;
+
+    public StoredObjectResource(AttachmentStorage storage, String key, long size, boolean compressed) {
+        this.storage = storage;
+        this.key = key;
+        this.size = size;
+        this.compressed = compressed;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        InputStream in = storage.get(key);
+        return compressed ? new GZIPInputStream(in, 64 * 1024) : in;
+    }
+
+    @Override
+    public long contentLength() {
+        return size;
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public String getDescription() {
+        return "stored object [" + key + "]";
+    }
+}
@@ -0,0 +1,66 @@
+package com.balancee.backendtask.service.trending;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size frequency estimator. Estimates never undercount; they overcount by at most
+ * 2N/width with probability 1 - 2^-depth, where N is the total added to the sketch.
+ * Rows are indexed with double hashing (h1 + i * h2) so one hash computation serves all rows.
+ * Not thread-safe.
+ */
+public class CountMinSketch {
+    private final int[][] counts;
+    private final int mask;
+    private long total;
+
+    public CountMinSketch(int depth, int width) {
+        if (width <= 0 || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("width must be a power of two: " + width);
+        }
+        this.counts = new int[depth][width];
+        this.mask = width - 1;
+    }
+
+    public void add(String term) {
+        long hash = hash(term);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int row = 0; row < counts.length; row++) {
+            counts[row][(h1 + row * h2) & mask]++;
+        }
+        total++;
+    }
+
+    public int estimate(String term) {
+        long hash = hash(term);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < counts.length; row++) {
+            min = Math.min(min, counts[row][(h1 + row * h2) & mask]);
+        }
+        return min;
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public void clear() {
+        for (int[] row : counts) {
+            Arrays.fill(row, 0);
+        }
+        total = 0;
+    }
+
+    // String.hashCode spread by the murmur3 64-bit finalizer; h2 is forced odd so rows differ
+    private static long hash(String term) {
+        long h = term.hashCode() * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h | (1L << 32);
+    }
+}
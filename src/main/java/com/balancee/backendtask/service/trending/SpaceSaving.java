@@ -0,0 +1,74 @@
+package com.balancee.backendtask.service.trending;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving top-k: tracks at most capacity candidate terms. A new term replaces the one with
+ * the smallest count and inherits that count as its error, so any term more frequent than
+ * N/capacity is guaranteed to be tracked. Not thread-safe.
+ */
+public class SpaceSaving {
+    private final int capacity;
+    private final Map<String, Counter> counters;
+
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public static final class Counter {
+        private final String term;
+        private long count;
+        private long error;
+
+        Counter(String term, long count, long error) {
+            this.term = term;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String term() {
+            return term;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long error() {
+            return error;
+        }
+    }
+
+    public void add(String term) {
+        Counter counter = counters.get(term);
+        if (counter != null) {
+            counter.count++;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(term, new Counter(term, 1, 0));
+            return;
+        }
+        // Linear scan for the minimum; capacity is small and replacements only happen for new terms
+        Counter min = null;
+        for (Counter candidate : counters.values()) {
+            if (min == null || candidate.count < min.count) {
+                min = candidate;
+            }
+        }
+        counters.remove(min.term);
+        counters.put(term, new Counter(term, min.count + 1, min.count));
+    }
+
+    public List<Counter> candidates() {
+        return new ArrayList<>(counters.values());
+    }
+
+    public void clear() {
+        counters.clear();
+    }
+}
@@ -0,0 +1,55 @@
+package com.balancee.backendtask.service.trending;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+// Lower-cased words of at least three letters/digits plus bigrams of adjacent words; stop words
+// are dropped and break bigrams, so "the payment failed" yields "payment", "failed", "payment failed"
+public final class TermTokenizer {
+    private static final Set<String> STOP_WORDS = Set.of(
+            "the", "and", "for", "are", "but", "not", "you", "all", "any", "can", "had", "her", "was", "one",
+            "our", "out", "has", "have", "him", "his", "how", "its", "may", "now", "see", "who", "did", "get",
+            "this", "that", "with", "from", "they", "will", "would", "there", "their", "what", "when", "which",
+            "been", "were", "than", "then", "them", "into", "just", "also", "very", "your", "about", "after",
+            "please", "thanks", "thank");
+
+    private TermTokenizer() {
+    }
+
+    public static List<String> terms(String message, int maxWords) {
+        List<String> terms = new ArrayList<>();
+        if (message == null) {
+            return terms;
+        }
+        String previous = null;
+        int words = 0;
+        int length = message.length();
+        int i = 0;
+        while (i < length && words < maxWords) {
+            while (i < length && !Character.isLetterOrDigit(message.charAt(i))) {
+                i++;
+            }
+            int start = i;
+            while (i < length && Character.isLetterOrDigit(message.charAt(i))) {
+                i++;
+            }
+            if (i == start) {
+                break;
+            }
+            words++;
+            String word = message.substring(start, i).toLowerCase(Locale.ROOT);
+            if (word.length() < 3 || STOP_WORDS.contains(word)) {
+                previous = null;
+                continue;
+            }
+            terms.add(word);
+            if (previous != null) {
+                terms.add(previous + " " + word);
+            }
+            previous = word;
+        }
+        return terms;
+    }
+}
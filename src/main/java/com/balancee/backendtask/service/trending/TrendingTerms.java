@@ -0,0 +1,143 @@
+package com.balancee.backendtask.service.trending;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.balancee.backendtask.model.Category;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Heavy-hitter terms of incoming feedback over a sliding time window, per category. Time is cut
+ * into fixed buckets held in a ring; each bucket has a Count-Min Sketch for counts and a
+ * Space-Saving summary for the candidate terms, so memory is fixed no matter how many distinct
+ * terms arrive. A window query sums the sketches of its buckets for the union of their candidates.
+ */
+@Component
+public class TrendingTerms {
+    private static final int MAX_WORDS_PER_MESSAGE = 200;
+
+    private final Map<Category, Bucket[]> rings = new EnumMap<>(Category.class);
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final Timer recordTimer;
+
+    public TrendingTerms(MeterRegistry meterRegistry,
+                         @Value("${feedback.trending.bucket:5m}") Duration bucket,
+                         @Value("${feedback.trending.buckets:24}") int buckets,
+                         @Value("${feedback.trending.sketch-depth:4}") int sketchDepth,
+                         @Value("${feedback.trending.sketch-width:2048}") int sketchWidth,
+                         @Value("${feedback.trending.top-k:200}") int topK) {
+        this.bucketMillis = bucket.toMillis();
+        this.bucketCount = buckets;
+        for (Category category : Category.values()) {
+            Bucket[] ring = new Bucket[buckets];
+            for (int i = 0; i < buckets; i++) {
+                ring[i] = new Bucket(new CountMinSketch(sketchDepth, sketchWidth), new SpaceSaving(topK));
+            }
+            rings.put(category, ring);
+        }
+        this.recordTimer = Timer.builder("feedback.trending.record").register(meterRegistry);
+    }
+
+    public record TrendingTerm(String term, long count, Long previousCount) {
+        // Add-one smoothing so a term that was absent before does not divide by zero
+        public double growth() {
+            return previousCount == null ? 0 : (count + 1.0) / (previousCount + 1.0);
+        }
+    }
+
+    private static final class Bucket {
+        private final CountMinSketch sketch;
+        private final SpaceSaving topK;
+        private long index = -1;
+
+        Bucket(CountMinSketch sketch, SpaceSaving topK) {
+            this.sketch = sketch;
+            this.topK = topK;
+        }
+    }
+
+    public void record(Category category, String message) {
+        if (category == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<String> terms = TermTokenizer.terms(message, MAX_WORDS_PER_MESSAGE);
+        long index = System.currentTimeMillis() / bucketMillis;
+        Bucket bucket = rings.get(category)[(int) (index % bucketCount)];
+        synchronized (bucket) {
+            if (bucket.index != index) {
+                bucket.sketch.clear();
+                bucket.topK.clear();
+                bucket.index = index;
+            }
+            for (String term : terms) {
+                bucket.sketch.add(term);
+                bucket.topK.add(term);
+            }
+        }
+        recordTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Top terms over the last window, for one category or all of them when category is null.
+     * previousCount covers the window before it when the ring still holds it, otherwise null.
+     */
+    public List<TrendingTerm> trending(Category category, Duration window, int limit, boolean byGrowth) {
+        int windowBuckets = (int) Math.max(1, Math.min(bucketCount, (window.toMillis() + bucketMillis - 1) / bucketMillis));
+        long current = System.currentTimeMillis() / bucketMillis;
+        List<Bucket[]> selected = category != null ? List.<Bucket[]>of(rings.get(category)) : new ArrayList<>(rings.values());
+        boolean hasPrevious = windowBuckets * 2 <= bucketCount;
+
+        Set<String> candidates = new HashSet<>();
+        for (Bucket[] ring : selected) {
+            for (long index = current - windowBuckets + 1; index <= current; index++) {
+                Bucket bucket = ring[(int) (index % bucketCount)];
+                synchronized (bucket) {
+                    if (bucket.index == index) {
+                        bucket.topK.candidates().forEach(counter -> candidates.add(counter.term()));
+                    }
+                }
+            }
+        }
+
+        List<TrendingTerm> result = new ArrayList<>(candidates.size());
+        for (String term : candidates) {
+            long count = sum(selected, term, current - windowBuckets + 1, current);
+            Long previous = hasPrevious ? sum(selected, term, current - 2L * windowBuckets + 1, current - windowBuckets) : null;
+            result.add(new TrendingTerm(term, count, previous));
+        }
+        Comparator<TrendingTerm> order = byGrowth
+                ? Comparator.comparingDouble(TrendingTerm::growth).thenComparingLong(TrendingTerm::count)
+                : Comparator.comparingLong(TrendingTerm::count);
+        result.sort(order.reversed());
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    private long sum(List<Bucket[]> rings, String term, long fromIndex, long toIndex) {
+        long total = 0;
+        for (Bucket[] ring : rings) {
+            for (long index = Math.max(0, fromIndex); index <= toIndex; index++) {
+                Bucket bucket = ring[(int) (index % bucketCount)];
+                synchronized (bucket) {
+                    if (bucket.index == index) {
+                        total += bucket.sketch.estimate(term);
+                    }
+                }
+            }
+        }
+        return total;
+    }
+}
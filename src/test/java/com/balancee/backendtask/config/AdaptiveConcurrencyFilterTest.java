@@ -0,0 +1,164 @@
+package com.balancee.backendtask.config;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.balancee.backendtask.config.AdaptiveConcurrencyFilter.GradientLimiter;
+import com.balancee.backendtask.config.AdaptiveConcurrencyFilter.Partition;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AdaptiveConcurrencyFilterTest {
+    private static final long MILLIS = 1_000_000L;
+    // Enough samples to close a window, with as many in flight as the limit could ever be
+    private static final int WINDOW = 50;
+    private static final int BUSY = 1_000;
+
+    @Test
+    void shouldRejectAcquiresPastTheLimit() {
+        GradientLimiter limiter = new GradientLimiter(2, 1, 10);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        limiter.release(MILLIS);
+        assertTrue(limiter.tryAcquire());
+        assertEquals(2, limiter.getInflight());
+    }
+
+    @Test
+    void shouldGrowTheLimitWhileLatencyHolds() {
+        GradientLimiter limiter = new GradientLimiter(20, 4, 200);
+
+        sample(limiter, 10, 20, BUSY);
+
+        assertTrue(limiter.getLimit() > 30, "limit " + limiter.getLimit());
+        assertTrue(limiter.getLimit() <= 200);
+    }
+
+    @Test
+    void shouldShrinkTheLimitWhenLatencyRises() {
+        GradientLimiter limiter = new GradientLimiter(100, 4, 200);
+        sample(limiter, 10, 5, BUSY);
+        double baseline = limiter.getLimit();
+
+        sample(limiter, 200, 30, BUSY);
+
+        assertTrue(limiter.getLimit() < baseline / 4, baseline + " -> " + limiter.getLimit());
+        assertTrue(limiter.getLimit() >= 4);
+    }
+
+    @Test
+    void shouldNotLearnFromWindowsFarBelowTheLimit() {
+        GradientLimiter limiter = new GradientLimiter(20, 4, 200);
+
+        sample(limiter, 10, 5, 2);
+        sample(limiter, 500, 5, 2);
+
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void shouldKeepAFixedLimitWhateverTheLatency() {
+        GradientLimiter limiter = GradientLimiter.fixed(3);
+        for (int i = 0; i < 10 * WINDOW; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(30_000 * MILLIS);
+        }
+
+        assertEquals(3, limiter.getLimit());
+        assertTrue(limiter.tryAcquire() && limiter.tryAcquire() && limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+    }
+
+    @Test
+    void shouldRouteRequestsToTheirPartition() {
+        assertEquals(Partition.SUBMISSION, partitionOf("POST", "/api/feedback"));
+        assertEquals(Partition.UPLOAD, partitionOf("POST", "/api/feedback/1/attachments"));
+        assertEquals(Partition.UPLOAD, partitionOf("PUT", "/api/feedback/1/uploads/2/chunks/0"));
+        assertEquals(Partition.OTHER, partitionOf("GET", "/api/feedback/1/attachments"));
+        assertEquals(Partition.AUTH, partitionOf("POST", "/api/auth/login"));
+        assertEquals(Partition.ADMIN, partitionOf("GET", "/api/admin/feedback"));
+        assertEquals(Partition.OTHER, partitionOf("GET", "/api/feedback/mine"));
+        assertNull(partitionOf("GET", "/api/admin/feedback/stream"));
+        assertNull(partitionOf("GET", "/actuator/health"));
+    }
+
+    @Test
+    void shouldShedRequestsOverTheLimitWithRetryAfter() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        AdaptiveConcurrencyFilter filter = new AdaptiveConcurrencyFilter(meterRegistry, true, 1, 1, 1, 1);
+        SlowController controller = new SlowController();
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(controller).addFilters(filter).build();
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<MvcResult> first = executor.submit(() -> mockMvc.perform(get("/api/feedback/slow")).andReturn());
+            assertTrue(controller.entered.await(5, TimeUnit.SECONDS));
+
+            mockMvc.perform(get("/api/feedback/slow"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"))
+                    .andExpect(jsonPath("$.error").exists());
+            // Another partition has its own limit
+            mockMvc.perform(get("/api/admin/fast")).andExpect(status().isOk());
+
+            controller.release.countDown();
+            assertEquals(200, first.get(5, TimeUnit.SECONDS).getResponse().getStatus());
+            assertEquals(1, meterRegistry.get("http.concurrency.shed").tag("partition", "other").counter().count());
+            mockMvc.perform(get("/api/feedback/slow")).andExpect(status().isOk());
+        } finally {
+            controller.release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @RestController
+    static class SlowController {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @GetMapping("/api/feedback/slow")
+        String slow() throws InterruptedException {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return "done";
+        }
+
+        @GetMapping("/api/admin/fast")
+        String fast() {
+            return "done";
+        }
+    }
+
+    private static void sample(GradientLimiter limiter, long rttMillis, int windows, int inflight) {
+        for (int i = 0; i < windows * WINDOW; i++) {
+            limiter.onSample(rttMillis * MILLIS, inflight);
+        }
+    }
+
+    private static Partition partitionOf(String method, String path) {
+        return AdaptiveConcurrencyFilter.partitionOf(new MockHttpServletRequest(method, path));
+    }
+}
@@ -0,0 +1,280 @@
+package com.balancee.backendtask.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.balancee.backendtask.model.Attachment;
+import com.balancee.backendtask.model.Category;
+import com.balancee.backendtask.model.Feedback;
+import com.balancee.backendtask.model.ProcessingState;
+import com.balancee.backendtask.model.Status;
+import com.balancee.backendtask.repository.ArchivedFeedbackRepository;
+import com.balancee.backendtask.repository.AttachmentRepository;
+import com.balancee.backendtask.repository.FeedbackRepository;
+import com.balancee.backendtask.repository.UploadSessionRepository;
+import com.balancee.backendtask.service.FeedbackArchiver;
+import com.balancee.backendtask.service.processing.AttachmentProcessingPipeline;
+import com.balancee.backendtask.service.storage.AttachmentStorage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AttachmentUploadControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FeedbackRepository repository;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private UploadSessionRepository uploadSessionRepository;
+
+    @Autowired
+    private ArchivedFeedbackRepository archivedFeedbackRepository;
+
+    @Autowired
+    private FeedbackArchiver feedbackArchiver;
+
+    @Autowired
+    private AttachmentProcessingPipeline processingPipeline;
+
+    @Autowired
+    private AttachmentStorage storage;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Feedback feedback;
+
+    @BeforeEach
+    void setUp() {
+        Feedback newFeedback = new Feedback();
+        newFeedback.setUserId("user1");
+        newFeedback.setMessage("App crashes on export");
+        newFeedback.setRating(1);
+        newFeedback.setCategory(Category.BUG_REPORT);
+        feedback = repository.save(newFeedback);
+    }
+
+    @AfterEach
+    void tearDown() {
+        uploadSessionRepository.deleteAll();
+        attachmentRepository.deleteAll();
+        repository.deleteAll();
+    }
+
+    @Test
+    @WithMockUser(username = "user1")
+    void shouldResumeUploadAndCreateAttachment() throws Exception {
+        byte[] first = "first half of the log\n".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "second half of the log\n".getBytes(StandardCharsets.UTF_8);
+        String base = "/api/feedback/" + feedback.getId() + "/uploads";
+
+        String created = mockMvc.perform(post(base)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"fileName\":\"app.log\",\"contentType\":\"text/plain\",\"size\":" + (first.length + second.length) + "}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Upload-Offset", "0"))
+                .andReturn().getResponse().getContentAsString();
+        String uploadId = objectMapper.readTree(created).get("uploadId").asText();
+
+        mockMvc.perform(put(base + "/" + uploadId)
+                .header("Upload-Offset", 0)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .content(first))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string("Upload-Offset", String.valueOf(first.length)));
+
+        // A client that lost track of its progress asks for the offset before resuming
+        mockMvc.perform(get(base + "/" + uploadId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.offset").value(first.length));
+
+        mockMvc.perform(put(base + "/" + uploadId)
+                .header("Upload-Offset", first.length)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .content(second))
+                .andExpect(status().isNoContent());
+
+        String attachment = mockMvc.perform(post(base + "/" + uploadId + "/complete"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.fileName").value("app.log"))
+                .andExpect(jsonPath("$.fileSize").value(first.length + second.length))
+                .andReturn().getResponse().getContentAsString();
+
+        JsonNode saved = objectMapper.readTree(attachment);
+        assertEquals("first half of the log\nsecond half of the log\n",
+                Files.readString(Paths.get(saved.get("filePath").asText())));
+
+        // Checksum and content sniffing run in the background after the upload is acknowledged
+        UUID attachmentId = UUID.fromString(saved.get("id").asText());
+        Attachment processed = attachmentRepository.findById(attachmentId).orElseThrow();
+        for (int i = 0; i < 50 && processed.getProcessingState() != ProcessingState.PROCESSED; i++) {
+            Thread.sleep(100);
+            processed = attachmentRepository.findById(attachmentId).orElseThrow();
+        }
+        assertEquals(ProcessingState.PROCESSED, processed.getProcessingState());
+        assertEquals(64, processed.getChecksum().length());
+        assertEquals("text/plain", processed.getDetectedContentType());
+    }
+
+    @Test
+    @WithMockUser(username = "user1")
+    void shouldAnswerConflictWhenTheUploadIsHeldByAnotherInstance() throws Exception {
+        String base = "/api/feedback/" + feedback.getId() + "/uploads";
+        String created = mockMvc.perform(post(base)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"fileName\":\"small.txt\",\"size\":4}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String uploadId = objectMapper.readTree(created).get("uploadId").asText();
+        // What a node other than the one that created the session sees
+        Files.delete(Paths.get(uploadSessionRepository.findById(UUID.fromString(uploadId)).orElseThrow().getPartPath()));
+
+        mockMvc.perform(put(base + "/" + uploadId)
+                .header("Upload-Offset", 0)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .content("data".getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value(containsString(uploadId)));
+        mockMvc.perform(post(base + "/" + uploadId + "/complete"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @WithMockUser(username = "user1")
+    void shouldRejectChunkBeyondAnnouncedSize() throws Exception {
+        String base = "/api/feedback/" + feedback.getId() + "/uploads";
+        String created = mockMvc.perform(post(base)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"fileName\":\"small.txt\",\"size\":4}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String uploadId = objectMapper.readTree(created).get("uploadId").asText();
+
+        mockMvc.perform(put(base + "/" + uploadId)
+                .header("Upload-Offset", 0)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .content("too many bytes".getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    @Test
+    @WithMockUser(username = "user1")
+    void shouldServeRequestedRangeOfStoredAttachment() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "app.log", "text/plain",
+                "first half of the log\n".getBytes(StandardCharsets.UTF_8));
+        String created = mockMvc.perform(multipart("/api/feedback/" + feedback.getId() + "/attachments").file(file))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String url = "/api/feedback/" + feedback.getId() + "/attachments/"
+                + objectMapper.readTree(created).get("id").asText() + "/content";
+
+        mockMvc.perform(get(url).header("Range", "bytes=6-9"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string("Content-Range", "bytes 6-9/22"))
+                .andExpect(content().string("half"));
+
+        mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(content().string("first half of the log\n"));
+
+        mockMvc.perform(get(url).header("Range", "bytes=100-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string("Content-Range", "bytes */22"));
+
+        mockMvc.perform(get(url).header("Range", "bytes=0-4,6-9"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("first half of the log\n"));
+
+        mockMvc.perform(get(url).header("Range", "lines=1-2"))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+    }
+
+    @Test
+    @WithMockUser(username = "user1")
+    void shouldDropOpenUploadSessionWhenFeedbackIsArchived() throws Exception {
+        String created = mockMvc.perform(post("/api/feedback/" + feedback.getId() + "/uploads")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"fileName\":\"app.log\",\"contentType\":\"text/plain\",\"size\":100}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        String partPath = uploadSessionRepository.findById(
+                UUID.fromString(objectMapper.readTree(created).get("uploadId").asText())).orElseThrow().getPartPath();
+        assertTrue(Files.exists(Paths.get(partPath)));
+
+        feedback.setStatus(Status.CLOSED);
+        feedback.setCreatedAt(LocalDateTime.now().minusDays(200));
+        repository.save(feedback);
+
+        assertEquals(1, feedbackArchiver.archiveOlderThan(LocalDateTime.now().minusDays(90)));
+        assertTrue(archivedFeedbackRepository.existsById(feedback.getId()));
+        assertEquals(0, uploadSessionRepository.count());
+        assertFalse(Files.exists(Paths.get(partPath)));
+        archivedFeedbackRepository.deleteById(feedback.getId());
+    }
+
+    @Test
+    @WithMockUser(username = "user1")
+    void shouldChangeAttachmentsETagWhenProcessingFinishes() throws Exception {
+        byte[] bytes = "plain text log\n".getBytes(StandardCharsets.UTF_8);
+        Attachment attachment = new Attachment();
+        attachment.setFeedback(feedback);
+        attachment.setFileName("app.log");
+        attachment.setContentType("application/octet-stream");
+        attachment.setFileSize((long) bytes.length);
+        attachment.setFilePath(storage.put(System.nanoTime() + "_app.log", new ByteArrayInputStream(bytes),
+                bytes.length, "application/octet-stream"));
+        attachment = attachmentRepository.save(attachment);
+
+        String url = "/api/feedback/" + feedback.getId() + "/attachments";
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].processingState").value("PENDING"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        processingPipeline.submit(attachment.getId());
+        int status = 304;
+        for (int i = 0; i < 50 && status == 304; i++) {
+            Thread.sleep(100);
+            status = mockMvc.perform(get(url).header("If-None-Match", etag)).andReturn().getResponse().getStatus();
+        }
+        assertEquals(200, status);
+        mockMvc.perform(get(url))
+                .andExpect(jsonPath("$[0].processingState").value("PROCESSED"))
+                .andExpect(jsonPath("$[0].detectedContentType").value("text/plain"));
+    }
+}
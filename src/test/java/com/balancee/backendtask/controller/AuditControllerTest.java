@@ -0,0 +1,107 @@
+package com.balancee.backendtask.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.balancee.backendtask.model.Category;
+import com.balancee.backendtask.model.Feedback;
+import com.balancee.backendtask.persistence.QueryProfiler;
+import com.balancee.backendtask.repository.FeedbackRepository;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AuditControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FeedbackRepository repository;
+
+    @Autowired
+    private QueryProfiler queryProfiler;
+
+    @Test
+    @WithMockUser(username = "alice", roles = {"ADMIN"})
+    void shouldReplayStatusAndPriorityChangesInOrder() throws Exception {
+        Feedback feedback = new Feedback();
+        feedback.setUserId("user1");
+        feedback.setMessage("Export to CSV fails");
+        feedback.setRating(2);
+        feedback.setCategory(Category.BUG_REPORT);
+        feedback = repository.save(feedback);
+        String id = feedback.getId().toString();
+
+        mockMvc.perform(put("/api/admin/feedback/" + id + "/status").param("status", "IN_PROGRESS"))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/admin/feedback/" + id + "/priority").param("priority", "HIGH"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/admin/feedback/bulk-update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[\"" + id + "\"],\"status\":\"RESOLVED\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/admin/feedback/" + id + "/history"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].field").value("STATUS"))
+                .andExpect(jsonPath("$[0].oldValue").value("NEW"))
+                .andExpect(jsonPath("$[0].newValue").value("IN_PROGRESS"))
+                .andExpect(jsonPath("$[0].actor").value("alice"))
+                .andExpect(jsonPath("$[1].field").value("PRIORITY"))
+                .andExpect(jsonPath("$[1].oldValue").value("MEDIUM"))
+                .andExpect(jsonPath("$[1].newValue").value("HIGH"))
+                .andExpect(jsonPath("$[2].oldValue").value("IN_PROGRESS"))
+                .andExpect(jsonPath("$[2].newValue").value("RESOLVED"));
+    }
+
+    @Test
+    @WithMockUser(username = "alice", roles = {"ADMIN"})
+    void shouldTakeTheOldValueFromTheUpdateAndRecordNothingOnConflict() throws Exception {
+        Feedback feedback = new Feedback();
+        feedback.setUserId("user1");
+        feedback.setMessage("Search ignores accents");
+        feedback.setRating(3);
+        feedback.setCategory(Category.BUG_REPORT);
+        feedback = repository.save(feedback);
+        String id = feedback.getId().toString();
+        long version = feedback.getVersion();
+
+        // The update statement itself returns the previous priority; nothing is read before it
+        List<String> statements;
+        try (QueryProfiler.Capture capture = queryProfiler.capture()) {
+            mockMvc.perform(put("/api/admin/feedback/" + id + "/priority")
+                            .param("priority", "HIGH")
+                            .param("version", String.valueOf(version)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.version").value(version + 1));
+            statements = capture.sql();
+        }
+        assertEquals(1, statements.size(), "ran " + statements);
+
+        mockMvc.perform(put("/api/admin/feedback/" + id + "/priority")
+                        .param("priority", "LOW")
+                        .param("version", String.valueOf(version)))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(get("/api/admin/feedback/" + id + "/history"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].oldValue").value("MEDIUM"))
+                .andExpect(jsonPath("$[0].newValue").value("HIGH"));
+    }
+}
@@ -0,0 +1,143 @@
+package com.balancee.backendtask.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.balancee.backendtask.model.Attachment;
+import com.balancee.backendtask.model.Category;
+import com.balancee.backendtask.model.Feedback;
+import com.balancee.backendtask.model.ProcessingState;
+import com.balancee.backendtask.repository.ArchivedAttachmentRepository;
+import com.balancee.backendtask.repository.AttachmentRepository;
+import com.balancee.backendtask.repository.FeedbackRepository;
+import com.balancee.backendtask.service.backup.BackupService;
+import com.balancee.backendtask.service.storage.AttachmentStorage;
+import com.balancee.backendtask.service.storage.LocalAttachmentStorage;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BackupControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FeedbackRepository repository;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private ArchivedAttachmentRepository archivedAttachmentRepository;
+
+    @Autowired
+    private AttachmentStorage storage;
+
+    @Autowired
+    private BackupService backupService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Feedback feedback;
+
+    @BeforeEach
+    void setUp() {
+        attachmentRepository.deleteAll();
+        archivedAttachmentRepository.deleteAll();
+        Feedback newFeedback = new Feedback();
+        newFeedback.setUserId("user1");
+        newFeedback.setMessage("Export loses the last row");
+        newFeedback.setRating(2);
+        newFeedback.setCategory(Category.BUG_REPORT);
+        feedback = repository.save(newFeedback);
+    }
+
+    @AfterEach
+    void tearDown() {
+        attachmentRepository.deleteAll();
+        repository.deleteAll();
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldCopyOnlyNewFilesAndRestoreSnapshotIntoEmptyDatabase(@TempDir Path restoreDir) throws Exception {
+        attach("first.log", "first upload\n");
+        JsonNode first = objectMapper.readTree(mockMvc.perform(post("/api/admin/backups?full=true"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.files").value(1))
+                .andExpect(jsonPath("$.copiedFiles").value(1))
+                .andReturn().getResponse().getContentAsString());
+
+        Attachment second = attach("second.log", "second upload\n");
+        JsonNode incremental = objectMapper.readTree(mockMvc.perform(post("/api/admin/backups"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.base").value(first.get("id").asText()))
+                .andExpect(jsonPath("$.files").value(2))
+                .andExpect(jsonPath("$.copiedFiles").value(1))
+                .andReturn().getResponse().getContentAsString());
+        String id = incremental.get("id").asText();
+
+        mockMvc.perform(post("/api/admin/backups/" + id + "/verify"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.valid").value(true));
+
+        // The incremental snapshot needs the first one's archive for first.log
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:restore-check;DB_CLOSE_DELAY=-1", "sa", "")) {
+            backupService.restore(id, connection, new LocalAttachmentStorage(restoreDir));
+
+            try (PreparedStatement query = connection.prepareStatement(
+                    "SELECT a.file_path FROM attachment a JOIN feedback f ON a.feedback_id = f.id WHERE a.id = ?")) {
+                query.setObject(1, second.getId());
+                try (ResultSet row = query.executeQuery()) {
+                    assertTrue(row.next());
+                    Path restored = Paths.get(row.getString(1));
+                    assertTrue(restored.startsWith(restoreDir.normalize()), restored.toString());
+                    assertEquals("second upload\n", Files.readString(restored));
+                }
+            }
+            try (ResultSet count = connection.createStatement().executeQuery("SELECT COUNT(*) FROM attachment")) {
+                count.next();
+                assertEquals(2, count.getInt(1));
+            }
+        }
+    }
+
+    private Attachment attach(String fileName, String content) throws Exception {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        Attachment attachment = new Attachment();
+        attachment.setFeedback(feedback);
+        attachment.setFileName(fileName);
+        attachment.setContentType("text/plain");
+        attachment.setFileSize((long) bytes.length);
+        attachment.setFilePath(storage.put(System.nanoTime() + "_" + fileName, new ByteArrayInputStream(bytes),
+                bytes.length, "text/plain"));
+        attachment.setProcessingState(ProcessingState.PROCESSED);
+        return attachmentRepository.save(attachment);
+    }
+}
@@ -6,12 +6,24 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.balancee.backendtask.model.Feedback;
@@ -19,9 +31,38 @@ import com.balancee.backendtask.model.Category;
 import com.balancee.backendtask.model.Status;
 import com.balancee.backendtask.model.Priority;
 import com.balancee.backendtask.model.AdminResponse;
+import com.balancee.backendtask.model.Attachment;
+import com.balancee.backendtask.model.ProcessingState;
+import com.balancee.backendtask.model.NotificationType;
+import com.balancee.backendtask.model.OutboxMessage;
+import com.balancee.backendtask.model.OutboxState;
 import com.balancee.backendtask.repository.FeedbackRepository;
 import com.balancee.backendtask.repository.AdminResponseRepository;
+import com.balancee.backendtask.repository.AttachmentRepository;
+import com.balancee.backendtask.repository.ArchivedAdminResponseRepository;
+import com.balancee.backendtask.repository.ArchivedAttachmentRepository;
+import com.balancee.backendtask.repository.ArchivedFeedbackRepository;
+import com.balancee.backendtask.repository.OutboxRepository;
+import com.balancee.backendtask.persistence.QueryProfiler;
+import com.balancee.backendtask.readmodel.FeedbackBitmapIndex;
+import com.balancee.backendtask.service.FeedbackArchiver;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 
 
@@ -38,13 +79,47 @@ class FeedbackControllerTest {
     @Autowired
     private AdminResponseRepository adminResponseRepository;
 
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private ArchivedFeedbackRepository archivedFeedbackRepository;
+
+    @Autowired
+    private ArchivedAdminResponseRepository archivedAdminResponseRepository;
+
+    @Autowired
+    private ArchivedAttachmentRepository archivedAttachmentRepository;
+
+    @Autowired
+    private FeedbackArchiver feedbackArchiver;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    @Autowired
+    private QueryProfiler queryProfiler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FeedbackBitmapIndex bitmapIndex;
+
     @BeforeEach
     void setUp() {
+        attachmentRepository.deleteAll();
         adminResponseRepository.deleteAll();
         repository.deleteAll();
+        archivedAdminResponseRepository.deleteAll();
+        archivedAttachmentRepository.deleteAll();
+        archivedFeedbackRepository.deleteAll();
     }
 
     @Test
@@ -69,6 +144,28 @@ class FeedbackControllerTest {
                 .andExpect(jsonPath("$.createdAt").exists());
     }
 
+    @Test
+    @WithMockUser(username = "alice")
+    void shouldOwnFeedbackByTheSignedInUserRatherThanTheClaimedOne() throws Exception {
+        Feedback feedback = new Feedback();
+        feedback.setUserId("bob");
+        feedback.setMessage("Posted as someone else");
+        feedback.setRating(2);
+        feedback.setCategory(Category.GENERAL);
+
+        mockMvc.perform(post("/api/feedback")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(feedback)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.userId").value("alice"));
+
+        mockMvc.perform(get("/api/feedback/mine"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].message").value("Posted as someone else"));
+        assertTrue(repository.findAll().stream().noneMatch(saved -> "bob".equals(saved.getUserId())));
+    }
+
     @Test
     void shouldRejectInvalidRating() throws Exception {
         Feedback feedback = new Feedback();
@@ -225,7 +322,12 @@ class FeedbackControllerTest {
 
         mockMvc.perform(put("/api/admin/feedback/" + saved.getId() + "/status?status=RESOLVED"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.status").value("RESOLVED"));
+                .andExpect(jsonPath("$.id").value(saved.getId().toString()))
+                .andExpect(jsonPath("$.status").value("RESOLVED"))
+                .andExpect(jsonPath("$.message").value("Bug report"))
+                .andExpect(jsonPath("$.category").value("BUG_REPORT"))
+                .andExpect(jsonPath("$.version").value(saved.getVersion() + 1))
+                .andExpect(jsonPath("$.updatedAt").isNotEmpty());
     }
 
     @Test
@@ -252,6 +354,65 @@ class FeedbackControllerTest {
                 .andExpect(jsonPath("$.createdAt").exists());
     }
 
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldNotifySubmitterThroughOutboxWhenAdminResponds() throws Exception {
+        Feedback feedback = new Feedback();
+        feedback.setUserId("user7");
+        feedback.setMessage("Dark mode resets after logout");
+        feedback.setRating(3);
+        feedback.setCategory(Category.BUG_REPORT);
+        Feedback saved = repository.save(feedback);
+
+        AdminResponse response = new AdminResponse();
+        response.setResponse("Fixed in the next release.");
+        response.setAdminId("admin1");
+        mockMvc.perform(post("/api/admin/feedback/" + saved.getId() + "/response")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(response)))
+                .andExpect(status().isCreated());
+
+        // Committed with the response, delivered afterwards by the background dispatcher
+        OutboxMessage message = findNotification(saved.getId());
+        for (int i = 0; i < 50 && message.getState() != OutboxState.SENT; i++) {
+            Thread.sleep(100);
+            message = findNotification(saved.getId());
+        }
+        assertEquals(OutboxState.SENT, message.getState());
+        assertEquals(NotificationType.RESPONSE_ADDED, message.getType());
+        assertEquals("user7", message.getRecipient());
+        assertEquals("Fixed in the next release.", objectMapper.readTree(message.getPayload()).get("response").asText());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldNotifyWithPreviewOfLongResponse() throws Exception {
+        Feedback feedback = new Feedback();
+        feedback.setUserId("user8");
+        feedback.setMessage("Sync fails on large accounts");
+        feedback.setRating(2);
+        feedback.setCategory(Category.BUG_REPORT);
+        Feedback saved = repository.save(feedback);
+
+        AdminResponse response = new AdminResponse();
+        response.setResponse("Root cause analysis follows. ".repeat(1000));
+        response.setAdminId("admin1");
+        mockMvc.perform(post("/api/admin/feedback/" + saved.getId() + "/response")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(response)))
+                .andExpect(status().isCreated());
+
+        JsonNode payload = objectMapper.readTree(findNotification(saved.getId()).getPayload());
+        assertEquals(1000, payload.get("response").asText().length());
+        assertTrue(payload.get("responseTruncated").asBoolean());
+    }
+
+    private OutboxMessage findNotification(UUID feedbackId) {
+        return outboxRepository.findAll().stream()
+                .filter(message -> message.getFeedbackId().equals(feedbackId))
+                .findFirst().orElseThrow();
+    }
+
     @Test
     @WithMockUser(username = "admin", roles = {"ADMIN"})
     void shouldGetFeedbackResponses() throws Exception {
@@ -338,4 +499,512 @@ class FeedbackControllerTest {
         mockMvc.perform(get("/api/admin/feedback"))
                 .andExpect(status().isUnauthorized());
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldArchiveClosedFeedbackAndServeItFromArchive() throws Exception {
+        Feedback closed = new Feedback();
+        closed.setUserId("user1");
+        closed.setMessage("Old bug");
+        closed.setRating(2);
+        closed.setCategory(Category.BUG_REPORT);
+        closed.setStatus(Status.CLOSED);
+        closed.setCreatedAt(LocalDateTime.now().minusDays(200));
+        Feedback savedClosed = repository.save(closed);
+
+        AdminResponse response = new AdminResponse();
+        response.setResponse("Fixed in 1.2");
+        response.setAdminId("admin1");
+        response.setFeedback(savedClosed);
+        adminResponseRepository.save(response);
+
+        Attachment attachment = new Attachment();
+        attachment.setFeedback(savedClosed);
+        attachment.setFileName("crash.log");
+        attachment.setContentType("text/plain");
+        attachment.setFileSize(4096L);
+        attachment.setFilePath("crash.log.gz");
+        attachment.setProcessingState(ProcessingState.PROCESSED);
+        attachment.setChecksum("abc123");
+        attachment.setDetectedContentType("text/plain");
+        attachment.setCompressed(true);
+        attachmentRepository.save(attachment);
+
+        Feedback open = new Feedback();
+        open.setUserId("user2");
+        open.setMessage("Still broken");
+        open.setRating(1);
+        open.setCategory(Category.BUG_REPORT);
+        open.setCreatedAt(LocalDateTime.now().minusDays(200));
+        repository.save(open);
+
+        feedbackArchiver.archiveOlderThan(LocalDateTime.now().minusDays(90));
+
+        mockMvc.perform(get("/api/admin/feedback"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].message").value("Still broken"));
+
+        mockMvc.perform(get("/api/admin/feedback?archived=true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].status").value("CLOSED"));
+
+        mockMvc.perform(get("/api/admin/feedback/" + savedClosed.getId() + "/responses"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/api/admin/feedback/" + savedClosed.getId() + "/responses?archived=true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].response").value("Fixed in 1.2"));
+
+        mockMvc.perform(get("/api/feedback/" + savedClosed.getId() + "/attachments?archived=true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].compressed").value(true))
+                .andExpect(jsonPath("$[0].checksum").value("abc123"))
+                .andExpect(jsonPath("$[0].processingState").value("PROCESSED"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldRejectStaleVersionOnStatusUpdate() throws Exception {
+        Feedback feedback = new Feedback();
+        feedback.setUserId("user1");
+        feedback.setMessage("Bug report");
+        feedback.setRating(2);
+        feedback.setCategory(Category.BUG_REPORT);
+        Feedback saved = repository.save(feedback);
+        long version = saved.getVersion();
+
+        mockMvc.perform(put("/api/admin/feedback/" + saved.getId() + "/status?status=IN_PROGRESS&version=" + version))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(version + 1));
+
+        mockMvc.perform(put("/api/admin/feedback/" + saved.getId() + "/status?status=CLOSED&version=" + version))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldBulkUpdateFeedbackByFilter() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            Feedback feedback = new Feedback();
+            feedback.setUserId("user" + i);
+            feedback.setMessage("Checkout fails");
+            feedback.setRating(1);
+            feedback.setCategory(Category.BUG_REPORT);
+            repository.save(feedback);
+        }
+        Feedback other = new Feedback();
+        other.setUserId("user9");
+        other.setMessage("Nice colours");
+        other.setRating(5);
+        other.setCategory(Category.GENERAL);
+        repository.save(other);
+
+        mockMvc.perform(post("/api/admin/feedback/bulk-update")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"filter\":{\"category\":\"BUG_REPORT\",\"status\":\"NEW\"},\"status\":\"CLOSED\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(3));
+
+        mockMvc.perform(get("/api/admin/feedback?status=CLOSED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(3));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldStreamFeedbackEventsMatchingSubscriberFilter() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/api/admin/feedback/stream?category=BUG_REPORT"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        Feedback general = new Feedback();
+        general.setMessage("Love the new theme");
+        general.setRating(5);
+        general.setCategory(Category.GENERAL);
+        mockMvc.perform(post("/api/feedback")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(general)))
+                .andExpect(status().isCreated());
+
+        Feedback bug = new Feedback();
+        bug.setMessage("Crash on login");
+        bug.setRating(1);
+        bug.setCategory(Category.BUG_REPORT);
+        mockMvc.perform(post("/api/feedback")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(bug)))
+                .andExpect(status().isCreated());
+
+        String events = "";
+        for (int i = 0; i < 50 && !events.contains("BUG_REPORT"); i++) {
+            Thread.sleep(50);
+            events = stream.getResponse().getContentAsString();
+        }
+        assertTrue(events.contains("event:CREATED"));
+        assertTrue(events.contains("BUG_REPORT"));
+        assertFalse(events.contains("GENERAL"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldAnswerUnchangedListingWithNotModified() throws Exception {
+        Feedback feedback = new Feedback();
+        feedback.setUserId("user1");
+        feedback.setMessage("Slow search");
+        feedback.setRating(3);
+        feedback.setCategory(Category.BUG_REPORT);
+        Feedback saved = repository.save(feedback);
+
+        String etag = mockMvc.perform(get("/api/admin/feedback"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/api/admin/feedback").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(put("/api/admin/feedback/" + saved.getId() + "/priority?priority=HIGH"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/admin/feedback").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].priority").value("HIGH"));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldReturnListingAsSmileWhenRequested() throws Exception {
+        Feedback feedback = new Feedback();
+        feedback.setUserId("user1");
+        feedback.setMessage("Binary please");
+        feedback.setRating(4);
+        feedback.setCategory(Category.GENERAL);
+        repository.save(feedback);
+
+        MediaType smile = MediaType.parseMediaType("application/x-jackson-smile");
+        byte[] body = mockMvc.perform(get("/api/admin/feedback").accept(smile))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(smile))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode page = new ObjectMapper(new SmileFactory()).readTree(body);
+        assertEquals(1, page.get("totalElements").asLong());
+        assertEquals("Binary please", page.get("content").get(0).get("message").asText());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldReturnOnlyRequestedFields() throws Exception {
+        Feedback feedback = new Feedback();
+        feedback.setUserId("user1");
+        feedback.setMessage("A very long stack trace");
+        feedback.setRating(2);
+        feedback.setCategory(Category.BUG_REPORT);
+        repository.save(feedback);
+
+        mockMvc.perform(get("/api/admin/feedback?fields=id,category,rating"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].category").value("BUG_REPORT"))
+                .andExpect(jsonPath("$.content[0].rating").value(2))
+                .andExpect(jsonPath("$.content[0].message").doesNotExist());
+
+        mockMvc.perform(get("/api/admin/feedback?fields=id,password"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldIncludeResponseCountsWhenRequested() throws Exception {
+        Feedback answered = new Feedback();
+        answered.setUserId("user1");
+        answered.setMessage("Answered");
+        answered.setRating(3);
+        answered.setCategory(Category.GENERAL);
+        answered = repository.save(answered);
+
+        Feedback unanswered = new Feedback();
+        unanswered.setUserId("user2");
+        unanswered.setMessage("Unanswered");
+        unanswered.setRating(4);
+        unanswered.setCategory(Category.GENERAL);
+        repository.save(unanswered);
+
+        for (int i = 0; i < 2; i++) {
+            AdminResponse response = new AdminResponse();
+            response.setFeedback(answered);
+            response.setResponse("Looking into it");
+            response.setAdminId("admin");
+            adminResponseRepository.save(response);
+        }
+
+        mockMvc.perform(get("/api/admin/feedback?includeCounts=true&sortBy=rating"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].responseCount").value(2))
+                .andExpect(jsonPath("$.content[0].attachmentCount").value(0))
+                .andExpect(jsonPath("$.content[0].lastResponseAt").exists())
+                .andExpect(jsonPath("$.content[1].responseCount").value(0));
+
+        mockMvc.perform(get("/api/admin/feedback"))
+                .andExpect(jsonPath("$.content[0].responseCount").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "user1")
+    void shouldReplayAttachmentUploadWithSameIdempotencyKey() throws Exception {
+        Feedback feedback = new Feedback();
+        feedback.setUserId("user1");
+        feedback.setMessage("Screenshot attached");
+        feedback.setRating(3);
+        feedback.setCategory(Category.BUG_REPORT);
+        feedback = repository.save(feedback);
+        MockMultipartFile file = new MockMultipartFile("file", "screen.txt", "text/plain",
+                "pretend screenshot".getBytes());
+
+        String first = mockMvc.perform(multipart("/api/feedback/" + feedback.getId() + "/attachments")
+                .file(file)
+                .header("Idempotency-Key", "retry-1"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(multipart("/api/feedback/" + feedback.getId() + "/attachments")
+                .file(file)
+                .header("Idempotency-Key", "retry-1"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id").value(objectMapper.readTree(first).get("id").asText()));
+
+        assertEquals(1, attachmentRepository.count());
+
+        // Reusing the key for a different file is a client error, not a replay
+        mockMvc.perform(multipart("/api/feedback/" + feedback.getId() + "/attachments")
+                .file(new MockMultipartFile("file", "other.txt", "text/plain", "something else".getBytes()))
+                .header("Idempotency-Key", "retry-1"))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    @WithMockUser(username = "alice")
+    void shouldPageOwnFeedbackHistoryWithCursor() throws Exception {
+        Feedback oldest = null;
+        for (int i = 0; i < 3; i++) {
+            Feedback feedback = new Feedback();
+            feedback.setUserId("alice");
+            feedback.setMessage("Report " + i);
+            feedback.setRating(3);
+            feedback.setCategory(Category.GENERAL);
+            feedback.setCreatedAt(LocalDateTime.now().minusDays(3 - i));
+            feedback = repository.save(feedback);
+            if (oldest == null) {
+                oldest = feedback;
+            }
+        }
+        Feedback other = new Feedback();
+        other.setUserId("bob");
+        other.setMessage("Not Alice's");
+        other.setRating(4);
+        other.setCategory(Category.GENERAL);
+        repository.save(other);
+
+        AdminResponse response = new AdminResponse();
+        response.setFeedback(oldest);
+        response.setResponse("Fixed in 2.1");
+        response.setAdminId("admin");
+        adminResponseRepository.save(response);
+
+        String firstPage = mockMvc.perform(get("/api/feedback/mine?size=2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].message").value("Report 2"))
+                .andExpect(jsonPath("$.nextCursor").exists())
+                .andReturn().getResponse().getContentAsString();
+        String cursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/feedback/mine?size=2&includeResponses=true&cursor=" + cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].message").value("Report 0"))
+                .andExpect(jsonPath("$.content[0].responses[0].response").value("Fixed in 2.1"))
+                .andExpect(jsonPath("$.nextCursor").value(nullValue()));
+
+        mockMvc.perform(get("/api/feedback/mine?cursor=not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "carol")
+    void shouldLoadHistoryPageWithResponsesInConstantStatements() throws Exception {
+        for (int i = 0; i < 12; i++) {
+            Feedback feedback = new Feedback();
+            feedback.setUserId("carol");
+            feedback.setMessage("Report " + i);
+            feedback.setRating(2);
+            feedback.setCategory(Category.GENERAL);
+            feedback = repository.save(feedback);
+            AdminResponse response = new AdminResponse();
+            response.setFeedback(feedback);
+            response.setResponse("Looking into it");
+            response.setAdminId("admin");
+            adminResponseRepository.save(response);
+        }
+
+        // One query for the page and one for all of its responses, however many rows the page has
+        try (QueryProfiler.Capture capture = queryProfiler.capture()) {
+            mockMvc.perform(get("/api/feedback/mine?size=12&includeResponses=true"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content.length()").value(12));
+
+            assertTrue(capture.count() <= 2, "statements run: " + capture.statementIds());
+            assertTrue(capture.repeatedSelects().isEmpty(), "repeated selects: " + capture.repeatedSelects());
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldServeFilteredListingFromBitmapIndex() throws Exception {
+        for (int rating = 1; rating <= 4; rating++) {
+            Feedback feedback = new Feedback();
+            feedback.setUserId("user" + rating);
+            feedback.setMessage("Rated " + rating);
+            feedback.setRating(rating);
+            feedback.setCategory(rating % 2 == 0 ? Category.BUG_REPORT : Category.GENERAL);
+            feedback.setCreatedAt(LocalDateTime.now().minusHours(rating));
+            repository.save(feedback);
+        }
+        Feedback target = repository.findAll().stream()
+                .filter(feedback -> feedback.getRating() == 4).findFirst().orElseThrow();
+
+        // A single-statement update reaches the index through its event, not the entity listener
+        mockMvc.perform(put("/api/admin/feedback/" + target.getId() + "/status").param("status", "IN_PROGRESS"))
+                .andExpect(status().isOk());
+
+        long bitmapQueries = meterRegistry.get("feedback.listing.query").tag("path", "bitmap").timer().count();
+        mockMvc.perform(get("/api/admin/feedback?category=BUG_REPORT&sortBy=createdAt&sortDir=desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(2))
+                .andExpect(jsonPath("$.content[0].rating").value(2))
+                .andExpect(jsonPath("$.content[1].rating").value(4));
+        mockMvc.perform(get("/api/admin/feedback?status=IN_PROGRESS"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(target.getId().toString()));
+        assertEquals(bitmapQueries + 2, meterRegistry.get("feedback.listing.query").tag("path", "bitmap").timer().count());
+
+        // A write the index never heard of: the page no longer matches, so SQL answers and the row is corrected
+        jdbcTemplate.update("UPDATE feedback SET status = 'CLOSED' WHERE id = ?", target.getId());
+        long sqlQueries = meterRegistry.get("feedback.listing.query").tag("path", "sql").timer().count();
+        mockMvc.perform(get("/api/admin/feedback?status=IN_PROGRESS"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(0));
+        assertEquals(sqlQueries + 1, meterRegistry.get("feedback.listing.query").tag("path", "sql").timer().count());
+        mockMvc.perform(get("/api/admin/feedback?status=CLOSED"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(target.getId().toString()));
+        assertEquals(bitmapQueries + 3, meterRegistry.get("feedback.listing.query").tag("path", "bitmap").timer().count());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldPageTiedRowsInTheSameOrderFromBitmapsAndSql() throws Exception {
+        LocalDateTime createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        for (int i = 0; i < 6; i++) {
+            Feedback feedback = new Feedback();
+            feedback.setUserId("user" + i);
+            feedback.setMessage("Same rating " + i);
+            feedback.setRating(3);
+            feedback.setCategory(Category.GENERAL);
+            feedback.setCreatedAt(createdAt);
+            repository.save(feedback);
+        }
+
+        long bitmapQueries = meterRegistry.get("feedback.listing.query").tag("path", "bitmap").timer().count();
+        List<String> fromBitmaps = pagedIds("/api/admin/feedback?sortBy=rating&size=2");
+        assertEquals(bitmapQueries + 3, meterRegistry.get("feedback.listing.query").tag("path", "bitmap").timer().count());
+        // Sparse fieldsets always query SQL
+        List<String> fromSql = pagedIds("/api/admin/feedback?sortBy=rating&size=2&fields=id,createdAt");
+        assertEquals(6, Set.copyOf(fromBitmaps).size());
+        assertEquals(fromSql, fromBitmaps);
+
+        // A rebuild hands out new ordinals; the order must not depend on them
+        bitmapIndex.rebuild();
+        assertEquals(fromSql, pagedIds("/api/admin/feedback?sortBy=rating&size=2"));
+    }
+
+    private List<String> pagedIds(String url) throws Exception {
+        List<String> ids = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            String body = mockMvc.perform(get(url + "&page=" + page))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            objectMapper.readTree(body).get("content").forEach(row -> ids.add(row.get("id").asText()));
+        }
+        return ids;
+    }
+
+    @Test
+    void shouldRunOneQueryForIdenticalConcurrentListings() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            Feedback feedback = new Feedback();
+            feedback.setUserId("user" + i);
+            feedback.setMessage("Burst " + i);
+            feedback.setRating(5);
+            feedback.setCategory(Category.BUG_REPORT);
+            feedback.setPriority(Priority.HIGH);
+            repository.save(feedback);
+        }
+        double executedBefore = singleFlightCount("executed");
+        double sharedBefore = singleFlightCount("shared");
+        long queriesBefore = meterRegistry.get("feedback.listing.query").tag("path", "bitmap").timer().count();
+
+        int burst = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(burst);
+        List<Future<String>> bodies = new ArrayList<>();
+        // Exclusive mode pauses every other session's statements, so the first listing to reach the
+        // database stays in flight until all the others have joined it
+        try (Connection exclusive = jdbcTemplate.getDataSource().getConnection();
+             Statement statement = exclusive.createStatement()) {
+            statement.execute("SET EXCLUSIVE 1");
+            try {
+                for (int i = 0; i < burst; i++) {
+                    bodies.add(executor.submit(() -> {
+                        start.await();
+                        return mockMvc.perform(get("/api/admin/feedback?status=NEW&priority=HIGH&rating=5")
+                                        .with(user("admin").roles("ADMIN")))
+                                .andExpect(status().isOk())
+                                .andReturn().getResponse().getContentAsString();
+                    }));
+                }
+                start.countDown();
+                for (int i = 0; i < 100 && singleFlightCount("shared") - sharedBefore < burst - 1; i++) {
+                    Thread.sleep(50);
+                }
+            } finally {
+                statement.execute("SET EXCLUSIVE 0");
+            }
+            String first = bodies.get(0).get();
+            for (Future<String> body : bodies) {
+                assertEquals(first, body.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // Only the executed requests reached the read model; the rest shared their result
+        double executed = singleFlightCount("executed") - executedBefore;
+        double shared = singleFlightCount("shared") - sharedBefore;
+        assertEquals(burst, executed + shared);
+        assertTrue(shared > 0, "no request shared a listing");
+        assertTrue(executed < burst, "every request ran its own listing");
+        assertEquals((long) executed,
+                meterRegistry.get("feedback.listing.query").tag("path", "bitmap").timer().count() - queriesBefore);
+    }
+
+    private double singleFlightCount(String outcome) {
+        return meterRegistry.find("feedback.singleflight.requests").tags("endpoint", "listing", "outcome", outcome)
+                .counters().stream().mapToDouble(counter -> counter.count()).sum();
+    }
+}
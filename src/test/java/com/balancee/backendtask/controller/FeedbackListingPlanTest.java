@@ -0,0 +1,97 @@
+package com.balancee.backendtask.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.balancee.backendtask.persistence.QueryProfiler;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Runs each supported listing against H2 and checks the plan of its page query
+@SpringBootTest
+@AutoConfigureMockMvc
+class FeedbackListingPlanTest {
+
+    // Filter and sort combinations the listing indexes are meant to serve
+    private static final List<String> LISTINGS = List.of(
+            "",
+            "&sortDir=asc",
+            "&status=NEW",
+            "&priority=HIGH",
+            "&category=BUG_REPORT",
+            "&rating=3",
+            "&sortBy=status",
+            "&sortBy=priority,createdAt",
+            "&sortBy=category&category=GENERAL",
+            "&sortBy=rating,createdAt&sortDir=asc,desc");
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private QueryProfiler queryProfiler;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldReadEverySupportedListingInIndexOrder() throws Exception {
+        // Sparse fieldsets and the archive always query SQL, the full live listing may be answered by the bitmaps
+        for (String source : List.of("fields=id,createdAt", "archived=true")) {
+            for (String listing : LISTINGS) {
+                String url = "/api/admin/feedback?" + source + listing;
+                List<String> pageQueries;
+                try (QueryProfiler.Capture capture = queryProfiler.capture()) {
+                    mockMvc.perform(get(url)).andExpect(status().isOk());
+                    pageQueries = capture.sql().stream().filter(sql -> sql.contains(" order by ")).toList();
+                }
+                assertEquals(1, pageQueries.size(), url + " ran " + pageQueries);
+
+                String plan = explain(pageQueries.get(0));
+                assertTrue(plan.contains("/* index sorted */"), url + " sorts its rows: " + plan);
+                assertFalse(plan.contains("tableScan"), url + " scans the table: " + plan);
+            }
+        }
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldRejectSortsWithoutAnIndex() throws Exception {
+        mockMvc.perform(get("/api/admin/feedback?sortBy=message")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/admin/feedback?sortBy=rating&sortDir=desc")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/admin/feedback?sortBy=createdAt,status")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/admin/feedback?sortBy=status,createdAt&sortDir=asc,desc,asc"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // Parameters stay unbound: EXPLAIN only plans the query
+    private String explain(String sql) {
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+                int parameters = explain.getParameterMetaData().getParameterCount();
+                for (int i = 1; i <= parameters; i++) {
+                    explain.setObject(i, null);
+                }
+                try (ResultSet plan = explain.executeQuery()) {
+                    plan.next();
+                    return plan.getString(1);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,52 @@
+package com.balancee.backendtask.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.balancee.backendtask.model.Category;
+import com.balancee.backendtask.service.trending.TrendingTerms;
+
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TrendingControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TrendingTerms trendingTerms;
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    void shouldReportMostFrequentTermsPerCategory() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            trendingTerms.record(Category.FEATURE_REQUEST, "Please add a kanban board view");
+        }
+        trendingTerms.record(Category.FEATURE_REQUEST, "Calendar sync would be nice");
+        trendingTerms.record(Category.GENERAL, "The kanban board is great");
+
+        mockMvc.perform(get("/api/admin/feedback/trending?category=FEATURE_REQUEST&windowMinutes=60&limit=50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.term == 'kanban board')].count").value(hasItem(5)))
+                .andExpect(jsonPath("$[?(@.term == 'calendar sync')].count").value(hasItem(1)))
+                .andExpect(jsonPath("$[?(@.term == 'please')]").value(empty()));
+
+        // Without a category the buckets of all categories are merged
+        mockMvc.perform(get("/api/admin/feedback/trending?limit=50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.term == 'kanban board')].count").value(hasItem(6)));
+
+        mockMvc.perform(get("/api/admin/feedback/trending?sortBy=relevance"))
+                .andExpect(status().isBadRequest());
+    }
+}
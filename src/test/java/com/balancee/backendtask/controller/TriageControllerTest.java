@@ -0,0 +1,118 @@
+package com.balancee.backendtask.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.balancee.backendtask.events.FeedbackEvent;
+import com.balancee.backendtask.events.FeedbackEventType;
+import com.balancee.backendtask.model.Category;
+import com.balancee.backendtask.model.Feedback;
+import com.balancee.backendtask.model.Priority;
+import com.balancee.backendtask.repository.AdminResponseRepository;
+import com.balancee.backendtask.repository.AttachmentRepository;
+import com.balancee.backendtask.repository.FeedbackRepository;
+import com.balancee.backendtask.service.TriageQueue;
+
+import java.time.LocalDateTime;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class TriageControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FeedbackRepository repository;
+
+    @Autowired
+    private AdminResponseRepository adminResponseRepository;
+
+    @Autowired
+    private AttachmentRepository attachmentRepository;
+
+    @Autowired
+    private TriageQueue triageQueue;
+
+    @BeforeEach
+    void setUp() {
+        attachmentRepository.deleteAll();
+        adminResponseRepository.deleteAll();
+        repository.deleteAll();
+    }
+
+    @Test
+    @WithMockUser(username = "admin1", roles = {"ADMIN"})
+    void shouldClaimByPriorityThenAgeAndRequeueOnRelease() throws Exception {
+        Feedback oldLow = save("Typo on the settings page", Priority.LOW, LocalDateTime.now().minusDays(3));
+        Feedback newHigh = save("Payments fail", Priority.HIGH, LocalDateTime.now().minusHours(1));
+        Feedback oldMedium = save("Slow search", Priority.MEDIUM, LocalDateTime.now().minusDays(2));
+        triageQueue.rebuild();
+
+        mockMvc.perform(post("/api/admin/triage/claim"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.feedback.id").value(newHigh.getId().toString()))
+                .andExpect(jsonPath("$.leaseExpiresAt").exists());
+
+        mockMvc.perform(post("/api/admin/triage/claim"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.feedback.id").value(oldMedium.getId().toString()));
+
+        // Only the lease holder can hand an item back
+        mockMvc.perform(post("/api/admin/triage/" + oldMedium.getId() + "/release")
+                .with(user("admin2").roles("ADMIN")))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(post("/api/admin/triage/" + oldMedium.getId() + "/release"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(post("/api/admin/triage/claim").with(user("admin2").roles("ADMIN")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.feedback.id").value(oldMedium.getId().toString()));
+
+        mockMvc.perform(post("/api/admin/triage/claim"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.feedback.id").value(oldLow.getId().toString()));
+
+        mockMvc.perform(post("/api/admin/triage/claim"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    @WithMockUser(username = "admin1", roles = {"ADMIN"})
+    void shouldQueueNewFeedbackByItsCreationTimeNotItsEventTime() throws Exception {
+        Feedback earlier = save("Login loop", Priority.HIGH, LocalDateTime.now().minusDays(2));
+        Feedback later = save("Logout loop", Priority.HIGH, LocalDateTime.now().minusDays(1));
+        // The older item's event arrives last, as it would after an import or a slow transaction
+        triageQueue.onFeedbackEvent(FeedbackEvent.of(FeedbackEventType.CREATED, later));
+        triageQueue.onFeedbackEvent(FeedbackEvent.of(FeedbackEventType.CREATED, earlier));
+
+        mockMvc.perform(post("/api/admin/triage/claim"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.feedback.id").value(earlier.getId().toString()));
+        mockMvc.perform(post("/api/admin/triage/claim"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.feedback.id").value(later.getId().toString()));
+    }
+
+    private Feedback save(String message, Priority priority, LocalDateTime createdAt) {
+        Feedback feedback = new Feedback();
+        feedback.setUserId("user1");
+        feedback.setMessage(message);
+        feedback.setRating(2);
+        feedback.setCategory(Category.BUG_REPORT);
+        feedback.setPriority(priority);
+        feedback.setCreatedAt(createdAt);
+        return repository.save(feedback);
+    }
+}
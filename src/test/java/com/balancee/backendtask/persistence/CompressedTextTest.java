@@ -0,0 +1,66 @@
+package com.balancee.backendtask.persistence;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressedTextTest {
+
+    @Test
+    void shouldStoreShortTextRaw() {
+        String text = "Checkout fails on Safari ✓";
+        CompressedText stored = CompressedText.of(text);
+
+        assertFalse(stored.isCompressed());
+        assertEquals(CompressedText.RAW, stored.stored()[0]);
+        assertEquals(text.getBytes(StandardCharsets.UTF_8).length + 1, stored.stored().length);
+        assertEquals(text, CompressedText.fromStored(stored.stored()).text());
+    }
+
+    @Test
+    void shouldDeflateTextFromTheThresholdOn() {
+        String below = "a".repeat(CompressedText.MIN_COMPRESSED_SIZE - 1);
+        String at = "a".repeat(CompressedText.MIN_COMPRESSED_SIZE);
+
+        assertFalse(CompressedText.of(below).isCompressed());
+        CompressedText stored = CompressedText.of(at);
+        assertTrue(stored.isCompressed());
+        assertEquals(CompressedText.DEFLATE, stored.stored()[0]);
+        assertTrue(stored.stored().length < CompressedText.MIN_COMPRESSED_SIZE / 4);
+        assertEquals(at, CompressedText.fromStored(stored.stored()).text());
+    }
+
+    @Test
+    void shouldRoundTripMultiByteTextThroughTheStoredForm() {
+        String text = "Die Übersetzung fehlt – 翻訳がありません. ".repeat(40);
+        CompressedText stored = CompressedText.of(text);
+
+        assertTrue(stored.isCompressed());
+        CompressedText loaded = CompressedText.fromStored(stored.stored());
+        assertEquals(stored, loaded);
+        assertEquals(text, loaded.text());
+    }
+
+    @Test
+    void shouldPassNullThrough() {
+        assertNull(CompressedText.of(null));
+        assertNull(CompressedText.fromStored(null));
+    }
+
+    @Test
+    void shouldRejectUnknownOrDamagedStoredForms() {
+        assertThrows(IllegalArgumentException.class, () -> CompressedText.fromStored(new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> CompressedText.fromStored(new byte[]{7, 1, 2}));
+
+        byte[] stored = CompressedText.of("x".repeat(4096)).stored();
+        CompressedText truncated = CompressedText.fromStored(Arrays.copyOf(stored, stored.length - 2));
+        assertThrows(IllegalStateException.class, truncated::text);
+    }
+}
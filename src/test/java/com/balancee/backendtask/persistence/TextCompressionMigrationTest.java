@@ -0,0 +1,103 @@
+package com.balancee.backendtask.persistence;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.balancee.backendtask.model.Category;
+import com.balancee.backendtask.model.Feedback;
+import com.balancee.backendtask.repository.FeedbackRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class TextCompressionMigrationTest {
+
+    @Autowired
+    private TextCompressionMigration migration;
+
+    @Autowired
+    private FeedbackRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private LazyInitializationExcludeFilter scheduledBeansExcludeFilter;
+
+    // The schema is built from the entities; each test puts back the column text lived in before compression
+    @BeforeEach
+    void addLegacyColumn() {
+        jdbcTemplate.execute("ALTER TABLE feedback ADD COLUMN IF NOT EXISTS message VARCHAR(10000)");
+    }
+
+    @AfterEach
+    void dropLegacyColumn() {
+        jdbcTemplate.execute("ALTER TABLE feedback DROP COLUMN IF EXISTS message");
+    }
+
+    @Test
+    void shouldMoveLegacyTextIntoTheStoredColumn() {
+        String shortText = "Dark mode please";
+        String longText = "The export button does nothing on the reports page. ".repeat(30);
+        UUID shortId = insertLegacy(shortText);
+        UUID longId = insertLegacy(longText);
+
+        migration.migrate();
+
+        assertEquals(shortText, repository.findById(shortId).orElseThrow().getMessage());
+        assertEquals(longText, repository.findById(longId).orElseThrow().getMessage());
+        assertNull(jdbcTemplate.queryForObject("SELECT message FROM feedback WHERE id = ?", String.class, longId));
+        byte[] stored = jdbcTemplate.queryForObject("SELECT message_data FROM feedback WHERE id = ?", byte[].class, longId);
+        assertEquals(CompressedText.DEFLATE, stored[0]);
+        assertTrue(stored.length < longText.length() / 4);
+    }
+
+    @Test
+    void shouldKeepTextAlreadyWrittenToTheStoredColumn() {
+        Feedback feedback = new Feedback();
+        feedback.setUserId("user1");
+        feedback.setMessage("Written after the upgrade");
+        feedback.setRating(4);
+        feedback.setCategory(Category.GENERAL);
+        feedback = repository.save(feedback);
+        jdbcTemplate.update("UPDATE feedback SET message = ? WHERE id = ?", "Stale legacy copy", feedback.getId());
+
+        migration.migrate();
+
+        assertEquals("Written after the upgrade", repository.findById(feedback.getId()).orElseThrow().getMessage());
+        assertNull(jdbcTemplate.queryForObject("SELECT message FROM feedback WHERE id = ?", String.class,
+                feedback.getId()));
+    }
+
+    @Test
+    void shouldRunAtStartupAndPublishMetersUnderLazyInitialization() {
+        // Nothing injects the migration, so under the fast-start profile it would otherwise never be created
+        assertTrue(scheduledBeansExcludeFilter.isExcluded("textCompressionMigration", null, TextCompressionMigration.class));
+        assertNotNull(meterRegistry.find("feedback.text.compressed").functionCounter());
+        assertNotNull(meterRegistry.find("feedback.text.bytes").tag("form", "stored").functionCounter());
+    }
+
+    private UUID insertLegacy(String message) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO feedback (id, user_id, message, rating, category, status, priority, created_at, version) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", id, "legacy", message, 3, "GENERAL", "NEW", "MEDIUM",
+                LocalDateTime.now().minusYears(1), 0L);
+        return id;
+    }
+}
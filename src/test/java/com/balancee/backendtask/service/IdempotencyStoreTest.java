@@ -0,0 +1,121 @@
+package com.balancee.backendtask.service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyStoreTest {
+    private final IdempotencyStore store = new IdempotencyStore(new SimpleMeterRegistry(), new ObjectMapper(),
+            Duration.ofHours(1), 100, DataSize.ofKilobytes(1), DataSize.ofKilobytes(4), Duration.ofSeconds(10));
+
+    @Test
+    void shouldReplayOnlyTheIdOfALargeBody() {
+        Map<String, String> created = Map.of("id", "42", "message", "x".repeat(5000));
+        store.execute("large", "request", () -> ResponseEntity.status(HttpStatus.CREATED).body(created));
+
+        ResponseEntity<?> replay = store.execute("large", "request", () -> ResponseEntity.internalServerError().build());
+        assertEquals(HttpStatus.CREATED, replay.getStatusCode());
+        JsonNode body = (JsonNode) replay.getBody();
+        assertEquals("42", body.get("id").asText());
+        assertFalse(body.has("message"));
+    }
+
+    @Test
+    void shouldEvictTheOldestEntriesPastTheByteLimit() {
+        // Each body is kept in full (under 1 KB), and 4 KB holds only a few of them
+        for (int i = 0; i < 10; i++) {
+            String body = i + "-" + "y".repeat(900);
+            store.execute("key-" + i, "request", () -> ResponseEntity.ok(body));
+        }
+
+        assertTrue(store.size() < 10);
+        ResponseEntity<?> newest = store.execute("key-9", "request", () -> ResponseEntity.internalServerError().build());
+        assertEquals("true", newest.getHeaders().getFirst("Idempotent-Replayed"));
+        ResponseEntity<?> oldest = store.execute("key-0", "request", () -> ResponseEntity.accepted().build());
+        assertEquals(HttpStatus.ACCEPTED, oldest.getStatusCode());
+    }
+
+    @Test
+    void shouldTellRequestsApartByTheirFullContent() {
+        // "Aa" and "BB" have the same String.hashCode
+        assertNotEquals(IdempotencyStore.fingerprint("user1", 5, "Aa"), IdempotencyStore.fingerprint("user1", 5, "BB"));
+        assertNotEquals(IdempotencyStore.fingerprint("a|b", "c"), IdempotencyStore.fingerprint("a", "b|c"));
+        assertEquals(IdempotencyStore.fingerprint("user1", 5, "Aa"), IdempotencyStore.fingerprint("user1", 5, "Aa"));
+    }
+
+    @Test
+    void shouldRunAgainForDuplicateThatWaitedOnServerError() throws Exception {
+        CountDownLatch firstRunning = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ResponseEntity<?>> first = executor.submit(() -> store.execute("key", "request", () -> {
+                runs.incrementAndGet();
+                firstRunning.countDown();
+                await(releaseFirst);
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+            }));
+            firstRunning.await(5, TimeUnit.SECONDS);
+
+            // Joins the running request, then has to run itself once that one fails
+            Thread release = new Thread(() -> {
+                sleep(200);
+                releaseFirst.countDown();
+            });
+            release.start();
+            ResponseEntity<?> duplicate = store.execute("key", "request", () -> {
+                runs.incrementAndGet();
+                return ResponseEntity.status(HttpStatus.CREATED).body("saved");
+            });
+
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, first.get().getStatusCode());
+            assertEquals(HttpStatus.CREATED, duplicate.getStatusCode());
+            assertNull(duplicate.getHeaders().getFirst("Idempotent-Replayed"));
+            assertEquals(2, runs.get());
+
+            ResponseEntity<?> retry = store.execute("key", "request", () -> ResponseEntity.internalServerError().build());
+            assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+            assertEquals("true", retry.getHeaders().getFirst("Idempotent-Replayed"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
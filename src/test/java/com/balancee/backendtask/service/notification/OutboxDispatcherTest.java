@@ -0,0 +1,180 @@
+package com.balancee.backendtask.service.notification;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.balancee.backendtask.model.NotificationType;
+import com.balancee.backendtask.model.OutboxMessage;
+import com.balancee.backendtask.model.OutboxState;
+import com.balancee.backendtask.repository.OutboxRepository;
+import com.sun.net.httpserver.HttpServer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A database of its own and no scheduled polls, so only the dispatcher built here touches the outbox
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outboxdispatchertest",
+        "feedback.notifications.poll-ms=3600000"
+})
+class OutboxDispatcherTest {
+    private static final int MAX_ATTEMPTS = 4;
+    private static final Duration RETRY_BACKOFF = Duration.ofSeconds(10);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(25);
+    private static final Duration STALE_AFTER = Duration.ofMinutes(5);
+
+    @Autowired
+    private OutboxRepository outboxRepository;
+
+    private HttpServer server;
+    private final Set<String> received = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger status = new AtomicInteger(204);
+    private OutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        outboxRepository.deleteAll();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/notify", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            received.add(exchange.getRequestHeaders().getFirst("Idempotency-Key"));
+            exchange.sendResponseHeaders(status.get(), -1);
+            exchange.close();
+        });
+        server.start();
+        WebhookNotifier notifier = new WebhookNotifier(
+                URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/notify"), Duration.ofSeconds(2));
+        dispatcher = new OutboxDispatcher(outboxRepository, notifier, new SimpleMeterRegistry(), 2, 10, MAX_ATTEMPTS,
+                RETRY_BACKOFF, MAX_BACKOFF, STALE_AFTER, Duration.ofDays(7));
+    }
+
+    @AfterEach
+    void stopServer() {
+        dispatcher.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void shouldClaimDueAndStaleMessagesAndMarkThemSent() {
+        OutboxMessage due = outboxRepository.save(message());
+        OutboxMessage later = message();
+        later.setNextAttemptAt(LocalDateTime.now().plusMinutes(1));
+        later = outboxRepository.save(later);
+        OutboxMessage abandoned = message();
+        abandoned.setState(OutboxState.SENDING);
+        abandoned.setClaimedAt(LocalDateTime.now().minus(STALE_AFTER).minusMinutes(1));
+        abandoned = outboxRepository.save(abandoned);
+        OutboxMessage inFlight = message();
+        inFlight.setState(OutboxState.SENDING);
+        inFlight.setClaimedAt(LocalDateTime.now());
+        inFlight = outboxRepository.save(inFlight);
+
+        assertEquals(2, dispatcher.dispatchBatch());
+
+        assertEquals(Set.of(due.getId().toString(), abandoned.getId().toString()), received);
+        for (OutboxMessage message : new OutboxMessage[]{due, abandoned}) {
+            OutboxMessage stored = reload(message);
+            assertEquals(OutboxState.SENT, stored.getState());
+            assertEquals(1, stored.getAttempts());
+            assertNotNull(stored.getSentAt());
+            assertNull(stored.getClaimToken());
+        }
+        assertEquals(OutboxState.PENDING, reload(later).getState());
+        assertEquals(OutboxState.SENDING, reload(inFlight).getState());
+        assertEquals(0, dispatcher.dispatchBatch());
+    }
+
+    @Test
+    void shouldRescheduleAFailedSendWithJitteredBackoff() {
+        status.set(503);
+        OutboxMessage message = outboxRepository.save(message());
+
+        LocalDateTime before = LocalDateTime.now();
+        assertEquals(1, dispatcher.dispatchBatch());
+
+        OutboxMessage stored = reload(message);
+        assertEquals(OutboxState.PENDING, stored.getState());
+        assertEquals(1, stored.getAttempts());
+        assertNull(stored.getClaimToken());
+        assertTrue(stored.getLastError().contains("503"), stored.getLastError());
+        // First retry waits between half and all of retry-backoff
+        assertBetween(stored.getNextAttemptAt(), before.plus(RETRY_BACKOFF.dividedBy(2)), LocalDateTime.now().plus(RETRY_BACKOFF));
+        // Not due yet, so the next poll leaves it alone
+        assertEquals(0, dispatcher.dispatchBatch());
+    }
+
+    @Test
+    void shouldDoubleTheBackoffPerAttemptUpToTheCap() {
+        status.set(503);
+        OutboxMessage second = message();
+        second.setAttempts(1);
+        second = outboxRepository.save(second);
+        OutboxMessage third = message();
+        third.setAttempts(2);
+        third = outboxRepository.save(third);
+
+        LocalDateTime before = LocalDateTime.now();
+        assertEquals(2, dispatcher.dispatchBatch());
+        LocalDateTime after = LocalDateTime.now();
+
+        // Second attempt: up to 2 x retry-backoff; third: 4 x retry-backoff, lowered to max-backoff
+        OutboxMessage stored = reload(second);
+        assertEquals(2, stored.getAttempts());
+        assertBetween(stored.getNextAttemptAt(), before.plus(RETRY_BACKOFF), after.plus(RETRY_BACKOFF.multipliedBy(2)));
+        stored = reload(third);
+        assertEquals(3, stored.getAttempts());
+        assertEquals(OutboxState.PENDING, stored.getState());
+        assertBetween(stored.getNextAttemptAt(), before.plus(MAX_BACKOFF.dividedBy(2)), after.plus(MAX_BACKOFF));
+    }
+
+    @Test
+    void shouldMarkTheMessageFailedAfterMaxAttempts() {
+        status.set(500);
+        OutboxMessage message = message();
+        message.setAttempts(MAX_ATTEMPTS - 1);
+        message = outboxRepository.save(message);
+
+        assertEquals(1, dispatcher.dispatchBatch());
+
+        OutboxMessage stored = reload(message);
+        assertEquals(OutboxState.FAILED, stored.getState());
+        assertEquals(MAX_ATTEMPTS, stored.getAttempts());
+        assertNull(stored.getNextAttemptAt());
+        assertNotNull(stored.getLastError());
+        status.set(204);
+        assertEquals(0, dispatcher.dispatchBatch());
+        assertEquals(1, received.size());
+    }
+
+    private static void assertBetween(LocalDateTime actual, LocalDateTime from, LocalDateTime to) {
+        assertTrue(!actual.isBefore(from) && !actual.isAfter(to), actual + " not in [" + from + ", " + to + "]");
+    }
+
+    private OutboxMessage reload(OutboxMessage message) {
+        return outboxRepository.findById(message.getId()).orElseThrow();
+    }
+
+    private static OutboxMessage message() {
+        OutboxMessage message = new OutboxMessage();
+        message.setType(NotificationType.STATUS_CHANGED);
+        message.setRecipient("user1");
+        message.setPayload("{\"status\":\"RESOLVED\"}");
+        return message;
+    }
+}
@@ -0,0 +1,73 @@
+package com.balancee.backendtask.service.notification;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.balancee.backendtask.model.NotificationType;
+import com.balancee.backendtask.model.OutboxMessage;
+import com.sun.net.httpserver.HttpServer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Runs the webhook notifier against a local stub server instead of a real receiver
+class WebhookNotifierTest {
+    private HttpServer server;
+    private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    private final AtomicInteger status = new AtomicInteger(204);
+    private WebhookNotifier notifier;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/notify", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            received.add(exchange.getRequestHeaders().getFirst("Idempotency-Key") + " " + body);
+            exchange.sendResponseHeaders(status.get(), -1);
+            exchange.close();
+        });
+        server.start();
+        notifier = new WebhookNotifier(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/notify"),
+                Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldPostPayloadWithMessageIdAsIdempotencyKey() throws Exception {
+        OutboxMessage message = message("{\"status\":\"RESOLVED\"}");
+
+        notifier.send(message);
+
+        assertEquals(message.getId() + " {\"status\":\"RESOLVED\"}", received.take());
+    }
+
+    @Test
+    void shouldFailDeliveryOnServerError() {
+        status.set(503);
+
+        assertThrows(IOException.class, () -> notifier.send(message("{}")));
+        assertEquals(1, received.size());
+    }
+
+    private static OutboxMessage message(String payload) {
+        OutboxMessage message = new OutboxMessage();
+        message.setType(NotificationType.STATUS_CHANGED);
+        message.setRecipient("user1");
+        message.setPayload(payload);
+        return message;
+    }
+}
@@ -0,0 +1,249 @@
+package com.balancee.backendtask.service.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs the S3 storage against a small in-memory stand-in for an S3 endpoint
+class S3AttachmentStorageTest {
+    private static final int PART_SIZE = (int) S3AttachmentStorage.MIN_PART_SIZE;
+
+    private HttpServer server;
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    private final AtomicInteger partsInFlight = new AtomicInteger();
+    private final AtomicInteger maxPartsInFlight = new AtomicInteger();
+    private final AtomicInteger unsigned = new AtomicInteger();
+    private S3AttachmentStorage storage;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newFixedThreadPool(8));
+        server.createContext("/bucket", this::handle);
+        server.start();
+        storage = new S3AttachmentStorage(new S3AttachmentStorage.Settings(
+                URI.create("http://127.0.0.1:" + server.getAddress().getPort()), "bucket", "us-east-1",
+                "test-key", "test-secret", true, "attachments/", PART_SIZE, 3, Duration.ofSeconds(5)));
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldStoreAndReadBackSmallObject() throws Exception {
+        byte[] content = "crash log line\n".getBytes(StandardCharsets.UTF_8);
+
+        String key = storage.put("1_app.log", new ByteArrayInputStream(content), content.length, "text/plain");
+
+        assertEquals("attachments/1_app.log", key);
+        try (InputStream in = storage.get(key)) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        try (InputStream in = storage.getRange(key, 6, 3)) {
+            assertEquals("log", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(0, unsigned.get());
+    }
+
+    @Test
+    void shouldUploadLargeObjectInParallelParts() throws Exception {
+        byte[] content = new byte[PART_SIZE * 3 + 1234];
+        for (int i = 0; i < content.length; i++) {
+            content[i] = (byte) (i * 31);
+        }
+
+        String key = storage.put("2_dump.bin", new ByteArrayInputStream(content), content.length, null);
+
+        assertArrayEquals(content, objects.get(key));
+        assertTrue(uploads.isEmpty());
+        assertTrue(maxPartsInFlight.get() > 1, "parts were uploaded one at a time");
+        assertTrue(maxPartsInFlight.get() <= 3, "more parts in flight than the upload concurrency");
+        try (InputStream in = storage.getRange(key, PART_SIZE - 2, 4)) {
+            assertArrayEquals(Arrays.copyOfRange(content, PART_SIZE - 2, PART_SIZE + 2), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void shouldListAcrossPagesAndDelete() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            byte[] content = ("object " + i).getBytes(StandardCharsets.UTF_8);
+            storage.put(i + "_file.txt", new ByteArrayInputStream(content), content.length, "text/plain");
+        }
+
+        List<String> keys;
+        try (Stream<AttachmentStorage.StoredObject> listed = storage.list()) {
+            keys = listed.map(AttachmentStorage.StoredObject::key).toList();
+        }
+        assertEquals(5, keys.size());
+
+        storage.delete("attachments/0_file.txt");
+        assertThrows(NoSuchFileException.class, () -> storage.get("attachments/0_file.txt"));
+        // Deleting twice is not an error
+        storage.delete("attachments/0_file.txt");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            if (authorization == null || !authorization.startsWith("AWS4-HMAC-SHA256 Credential=test-key/")) {
+                unsigned.incrementAndGet();
+                exchange.sendResponseHeaders(403, -1);
+                return;
+            }
+            String key = exchange.getRequestURI().getPath().substring("/bucket/".length());
+            Map<String, String> query = query(exchange.getRequestURI().getRawQuery());
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            switch (exchange.getRequestMethod()) {
+                case "PUT" -> {
+                    if (query.containsKey("partNumber")) {
+                        uploadPart(exchange, query, body);
+                    } else {
+                        objects.put(key, body);
+                        exchange.getResponseHeaders().set("ETag", "\"etag\"");
+                        exchange.sendResponseHeaders(200, -1);
+                    }
+                }
+                case "POST" -> {
+                    if (query.containsKey("uploads")) {
+                        String uploadId = "upload-" + key.hashCode();
+                        uploads.put(uploadId, new ConcurrentHashMap<>());
+                        respond(exchange, 200, "<InitiateMultipartUploadResult><UploadId>" + uploadId
+                                + "</UploadId></InitiateMultipartUploadResult>");
+                    } else {
+                        Map<Integer, byte[]> parts = uploads.remove(query.get("uploadId"));
+                        Matcher numbers = Pattern.compile("<PartNumber>(\\d+)</PartNumber>")
+                                .matcher(new String(body, StandardCharsets.UTF_8));
+                        ByteArrayOutputStream assembled = new ByteArrayOutputStream();
+                        while (numbers.find()) {
+                            assembled.write(parts.get(Integer.parseInt(numbers.group(1))));
+                        }
+                        objects.put(key, assembled.toByteArray());
+                        respond(exchange, 200, "<CompleteMultipartUploadResult><Key>" + key
+                                + "</Key></CompleteMultipartUploadResult>");
+                    }
+                }
+                case "GET" -> {
+                    if (key.isEmpty()) {
+                        list(exchange, query);
+                        return;
+                    }
+                    byte[] object = objects.get(key);
+                    if (object == null) {
+                        respond(exchange, 404, "<Error><Code>NoSuchKey</Code></Error>");
+                        return;
+                    }
+                    String range = exchange.getRequestHeaders().getFirst("Range");
+                    if (range == null) {
+                        exchange.sendResponseHeaders(200, object.length);
+                        exchange.getResponseBody().write(object);
+                        return;
+                    }
+                    String[] bounds = range.substring("bytes=".length()).split("-");
+                    int start = Integer.parseInt(bounds[0]);
+                    int end = Math.min(object.length - 1, Integer.parseInt(bounds[1]));
+                    exchange.getResponseHeaders().set("Content-Range", "bytes " + start + "-" + end + "/" + object.length);
+                    exchange.sendResponseHeaders(206, end - start + 1);
+                    exchange.getResponseBody().write(object, start, end - start + 1);
+                }
+                case "DELETE" -> {
+                    if (query.containsKey("uploadId")) {
+                        uploads.remove(query.get("uploadId"));
+                    } else {
+                        objects.remove(key);
+                    }
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                default -> exchange.sendResponseHeaders(405, -1);
+            }
+        }
+    }
+
+    private void uploadPart(HttpExchange exchange, Map<String, String> query, byte[] body) throws IOException {
+        int inFlight = partsInFlight.incrementAndGet();
+        maxPartsInFlight.accumulateAndGet(inFlight, Math::max);
+        try {
+            // Slow enough that parallel parts overlap
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        partsInFlight.decrementAndGet();
+        uploads.get(query.get("uploadId")).put(Integer.parseInt(query.get("partNumber")), body);
+        exchange.getResponseHeaders().set("ETag", "\"part-" + query.get("partNumber") + "\"");
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    // Two keys per page, so listing has to follow continuation tokens
+    private void list(HttpExchange exchange, Map<String, String> query) throws IOException {
+        TreeMap<String, byte[]> sorted = new TreeMap<>(objects);
+        String after = query.getOrDefault("continuation-token", "");
+        StringBuilder page = new StringBuilder("<ListBucketResult>");
+        int count = 0;
+        String last = null;
+        for (Map.Entry<String, byte[]> object : sorted.tailMap(after, false).entrySet()) {
+            if (count == 2) {
+                page.append("<IsTruncated>true</IsTruncated><NextContinuationToken>").append(last)
+                        .append("</NextContinuationToken>");
+                respond(exchange, 200, page.append("</ListBucketResult>").toString());
+                return;
+            }
+            page.append("<Contents><Key>").append(object.getKey()).append("</Key><LastModified>")
+                    .append(Instant.now()).append("</LastModified><Size>").append(object.getValue().length)
+                    .append("</Size></Contents>");
+            last = object.getKey();
+            count++;
+        }
+        respond(exchange, 200, page.append("<IsTruncated>false</IsTruncated></ListBucketResult>").toString());
+    }
+
+    private static void respond(HttpExchange exchange, int status, String xml) throws IOException {
+        byte[] body = xml.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> parameters = new TreeMap<>();
+        if (rawQuery != null) {
+            for (String parameter : rawQuery.split("&")) {
+                int eq = parameter.indexOf('=');
+                parameters.put(eq < 0 ? parameter : parameter.substring(0, eq),
+                        eq < 0 ? "" : URLDecoder.decode(parameter.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+}